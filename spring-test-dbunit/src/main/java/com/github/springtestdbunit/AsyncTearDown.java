@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+/**
+ * Runs {@link DatabaseTearDown &#064;DatabaseTearDown} operations on a background thread so that they overlap with
+ * the next test. Pending teardowns are only waited for when a later operation touches the same tables. Teardowns run
+ * one at a time in the order that they were submitted. A single instance is used for each test class, failures are
+ * {@link #throwFailure() thrown} before the next test runs, or when the instance is {@link #close() closed} after the
+ * last test of the class.
+ *
+ * @see DbUnitConfiguration#asyncTearDown()
+ */
+class AsyncTearDown {
+
+	private static final Log logger = LogFactory.getLog(AsyncTearDown.class);
+
+	private final ExecutorService executor;
+
+	private final List<PendingTearDown> pending = new ArrayList<PendingTearDown>();
+
+	private Exception failure;
+
+	public AsyncTearDown() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dbunit-teardown-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadExecutor(threadFactory);
+	}
+
+	/**
+	 * Submit a teardown to run in the background.
+	 * @param testName the name of the test that the teardown belongs to, used when reporting failures
+	 * @param reportFailure if a failure should be thrown, rather than logged, when this instance is closed
+	 * @param tableNames the names of the tables touched by the teardown or {@code null} if all tables may be touched
+	 * @param tearDown the teardown
+	 */
+	public synchronized void submit(String testName, boolean reportFailure, Collection<String> tableNames,
+			Callable<Void> tearDown) {
+		this.pending.add(new PendingTearDown(testName, reportFailure, tableNames, this.executor.submit(tearDown)));
+	}
+
+	/**
+	 * Returns if any submitted teardown is still running or waiting to run.
+	 * @return if teardowns are pending
+	 */
+	public synchronized boolean isPending() {
+		for (PendingTearDown tearDown : this.pending) {
+			if (!tearDown.future.isDone()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Wait for all pending teardowns that touch any of the specified tables. Failures are not thrown, they are kept
+	 * until {@link #throwFailure()} is called or this instance is {@link #close() closed}.
+	 * @param tableNames the table names or {@code null} to wait for all teardowns
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public void await(Collection<String> tableNames) throws InterruptedException {
+		await((tableNames == null ? null : upperCase(tableNames)), false);
+	}
+
+	/**
+	 * Throw the first failure of the teardowns that have completed, without waiting for any pending teardown. The
+	 * failure is only thrown once.
+	 * @throws Exception if any completed teardown that should report its failure failed
+	 */
+	public void throwFailure() throws Exception {
+		await(null, true);
+		Exception failure;
+		synchronized (this) {
+			failure = this.failure;
+			this.failure = null;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void await(Set<String> upperCaseTableNames, boolean completedOnly) throws InterruptedException {
+		List<PendingTearDown> awaited = new ArrayList<PendingTearDown>();
+		synchronized (this) {
+			for (PendingTearDown tearDown : this.pending) {
+				if (tearDown.future.isDone() || (!completedOnly && tearDown.touches(upperCaseTableNames))) {
+					awaited.add(tearDown);
+				}
+			}
+			this.pending.removeAll(awaited);
+		}
+		for (PendingTearDown tearDown : awaited) {
+			Exception failure = tearDown.await();
+			if (failure != null) {
+				synchronized (this) {
+					if (this.failure == null) {
+						this.failure = failure;
+					} else if (logger.isErrorEnabled()) {
+						logger.error(failure.getMessage(), failure.getCause());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wait for all pending teardowns and stop the background thread.
+	 * @throws Exception if any teardown that should report its failure failed
+	 */
+	public void close() throws Exception {
+		try {
+			await(null);
+		} finally {
+			this.executor.shutdown();
+		}
+		throwFailure();
+	}
+
+	private static Set<String> upperCase(Collection<String> tableNames) {
+		Set<String> upperCase = new HashSet<String>();
+		for (String tableName : tableNames) {
+			upperCase.add(tableName.substring(tableName.lastIndexOf('.') + 1).toUpperCase());
+		}
+		return upperCase;
+	}
+
+	/**
+	 * A submitted teardown.
+	 */
+	private static class PendingTearDown {
+
+		private final String testName;
+
+		private final boolean reportFailure;
+
+		private final Set<String> tableNames;
+
+		private final Future<Void> future;
+
+		public PendingTearDown(String testName, boolean reportFailure, Collection<String> tableNames,
+				Future<Void> future) {
+			this.testName = testName;
+			this.reportFailure = reportFailure;
+			this.tableNames = (tableNames == null ? null : upperCase(tableNames));
+			this.future = future;
+		}
+
+		public boolean touches(Set<String> tableNames) {
+			if ((this.tableNames == null) || (tableNames == null)) {
+				return true;
+			}
+			for (String tableName : tableNames) {
+				if (this.tableNames.contains(tableName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public Exception await() throws InterruptedException {
+			try {
+				this.future.get();
+			} catch (ExecutionException ex) {
+				if (this.reportFailure) {
+					return new IllegalStateException("Asynchronous @DatabaseTearDown of " + this.testName + " failed",
+							ex.getCause());
+				}
+				if (logger.isWarnEnabled()) {
+					logger.warn("Unable to throw database cleanup exception of " + this.testName
+							+ " due to existing test error", ex.getCause());
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
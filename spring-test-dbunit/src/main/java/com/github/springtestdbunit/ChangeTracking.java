@@ -0,0 +1,236 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.springframework.util.DigestUtils;
+
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.bean.ChangeTrackingDataSource;
+
+/**
+ * Remembers which expected tables have already been verified so that a table that has not been written since can be
+ * checked using only its row count.
+ * <p>
+ * Verifications are remembered against the repeatable setup that the test applied to the connection. Writes made by
+ * setups are expected to produce the same table content each time, all other writes are recorded by the
+ * {@link ChangeTrackingDataSource} and forget any verification of the written table and of the tables that reference
+ * it with a foreign key.
+ *
+ * @see DbUnitConfiguration#changeTracking()
+ * @see ChangeTrackingDataSource
+ */
+class ChangeTracking {
+
+	private final Map<String, String> setupFingerprints = new HashMap<String, String>();
+
+	private final ConcurrentMap<ChangeTrackingDataSource, Map<String, Integer>> verifiedRowCounts;
+
+	public ChangeTracking() {
+		this.verifiedRowCounts = new ConcurrentHashMap<ChangeTrackingDataSource, Map<String, Integer>>();
+	}
+
+	/**
+	 * Signal that a new test is starting, before any setup is applied. Verifications of tables that have been written
+	 * since the previous test started are forgotten.
+	 * @param connections the connections of the test
+	 * @throws SQLException on SQL error
+	 */
+	public void startTest(List<IDatabaseConnection> connections) throws SQLException {
+		this.setupFingerprints.clear();
+		for (IDatabaseConnection connection : connections) {
+			ChangeTrackingDataSource dataSource = getDataSource(connection);
+			if (dataSource != null) {
+				dataSource.addReferencingTables(connection.getConnection(), connection.getSchema());
+				forgetChanged(dataSource);
+			}
+		}
+	}
+
+	private void forgetChanged(ChangeTrackingDataSource dataSource) {
+		Map<String, Integer> rowCounts = this.verifiedRowCounts.get(dataSource);
+		if ((rowCounts == null) || dataSource.isAllChanged()) {
+			this.verifiedRowCounts.remove(dataSource);
+			return;
+		}
+		for (Iterator<String> iterator = rowCounts.keySet().iterator(); iterator.hasNext();) {
+			String key = iterator.next();
+			if (dataSource.isChanged(key.substring(0, key.indexOf(';')))) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Record that a repeatable setup with the given fingerprint has been applied to the connection by the current
+	 * test.
+	 * @param connection the connection name
+	 * @param fingerprint the setup fingerprint
+	 */
+	public void setup(String connection, String fingerprint) {
+		this.setupFingerprints.put(connection, fingerprint);
+	}
+
+	/**
+	 * Signal that all setups of the current test have been applied. Only writes made after this point are considered
+	 * to be made by the test.
+	 * @param connections the connections of the test
+	 * @throws SQLException on SQL error
+	 */
+	public void setupComplete(List<IDatabaseConnection> connections) throws SQLException {
+		for (IDatabaseConnection connection : connections) {
+			ChangeTrackingDataSource dataSource = getDataSource(connection);
+			if (dataSource != null) {
+				dataSource.reset();
+			}
+		}
+	}
+
+	/**
+	 * Returns a {@link TableCheck} for tables of the specified connection, or {@code null} if changes to the
+	 * connection are not tracked or the current test did not apply a repeatable setup to it.
+	 * @param connectionName the connection name
+	 * @param connection the connection
+	 * @param verification a description of how tables are verified, for example the assertion mode
+	 * @return the table check or {@code null}
+	 * @throws SQLException on SQL error
+	 */
+	public TableCheck getTableCheck(String connectionName, IDatabaseConnection connection, String verification)
+			throws SQLException {
+		String fingerprint = this.setupFingerprints.get(connectionName);
+		ChangeTrackingDataSource dataSource = getDataSource(connection);
+		if ((fingerprint == null) || (dataSource == null)) {
+			return null;
+		}
+		dataSource.addReferencingTables(connection.getConnection(), connection.getSchema());
+		Map<String, Integer> rowCounts = this.verifiedRowCounts.get(dataSource);
+		if (rowCounts == null) {
+			rowCounts = new ConcurrentHashMap<String, Integer>();
+			Map<String, Integer> existing = this.verifiedRowCounts.putIfAbsent(dataSource, rowCounts);
+			rowCounts = (existing != null ? existing : rowCounts);
+		}
+		return new TableCheck(connection, dataSource, rowCounts, fingerprint + ";" + verification);
+	}
+
+	/**
+	 * Returns the {@link ChangeTrackingDataSource} that provided the JDBC connection, or {@code null}.
+	 * @param connection the connection
+	 * @return the data source or {@code null}
+	 * @throws SQLException on SQL error
+	 */
+	public static ChangeTrackingDataSource getDataSource(IDatabaseConnection connection) throws SQLException {
+		Connection jdbcConnection = connection.getConnection();
+		try {
+			if (jdbcConnection.isWrapperFor(ChangeTrackingDataSource.class)) {
+				return jdbcConnection.unwrap(ChangeTrackingDataSource.class);
+			}
+		} catch (AbstractMethodError ex) {
+			// Pre JDBC 4 driver
+		}
+		return null;
+	}
+
+	/**
+	 * Checks expected tables of a single connection.
+	 */
+	public static class TableCheck {
+
+		private final IDatabaseConnection connection;
+
+		private final ChangeTrackingDataSource dataSource;
+
+		private final Map<String, Integer> rowCounts;
+
+		private final String suffix;
+
+		TableCheck(IDatabaseConnection connection, ChangeTrackingDataSource dataSource, Map<String, Integer> rowCounts,
+				String suffix) {
+			this.connection = connection;
+			this.dataSource = dataSource;
+			this.rowCounts = rowCounts;
+			this.suffix = suffix;
+		}
+
+		/**
+		 * Returns if the expected table is known to match the database. This is the case when the table has not been
+		 * written since the same expected table was verified and the row count is unchanged.
+		 * @param expectedTable the expected table
+		 * @return if the table is already verified
+		 * @throws Exception on error
+		 */
+		public boolean isVerified(ITable expectedTable) throws Exception {
+			String tableName = expectedTable.getTableMetaData().getTableName();
+			if (this.dataSource.isChanged(tableName)) {
+				return false;
+			}
+			Integer rowCount = this.rowCounts.get(getKey(expectedTable));
+			return (rowCount != null) && (rowCount == getRowCount(tableName));
+		}
+
+		/**
+		 * Record that the expected table matched the database. Nothing is recorded if the test wrote to the table.
+		 * @param expectedTable the expected table
+		 * @param rowCount the number of rows in the database table
+		 * @throws Exception on error
+		 */
+		public void verified(ITable expectedTable, int rowCount) throws Exception {
+			if (!this.dataSource.isChanged(expectedTable.getTableMetaData().getTableName())) {
+				this.rowCounts.put(getKey(expectedTable), rowCount);
+			}
+		}
+
+		/**
+		 * Returns the number of rows in the database table.
+		 * @param tableName the table name
+		 * @return the row count
+		 * @throws SQLException on SQL error
+		 */
+		public int getRowCount(String tableName) throws SQLException {
+			return this.connection.getRowCount(tableName);
+		}
+
+		private String getKey(ITable expectedTable) throws Exception {
+			StringBuilder content = new StringBuilder();
+			Column[] columns = expectedTable.getTableMetaData().getColumns();
+			for (Column column : columns) {
+				content.append(column.getColumnName()).append(",");
+			}
+			for (int row = 0; row < expectedTable.getRowCount(); row++) {
+				content.append("\n");
+				for (Column column : columns) {
+					Object value = expectedTable.getValue(row, column.getColumnName());
+					content.append(value == null ? "\\0" : String.valueOf(value).replace("\\", "\\\\")).append(",");
+				}
+			}
+			return expectedTable.getTableMetaData().getTableName() + ";" + this.suffix + ";"
+					+ DigestUtils.md5DigestAsHex(content.toString().getBytes("UTF-8"));
+		}
+
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dbunit.dataset.IDataSet;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.dataset.DataSetLoader;
+
+/**
+ * Loads datasets on a background thread ahead of the tests that need them. Each prefetched dataset is used once, any
+ * dataset that has not been used by the time of the next prefetch is discarded.
+ * <p>
+ * The next test is predicted on a best-effort basis from the public test methods of the class. Methods of a subclass
+ * come before those of its superclass, within a class they are sorted by name when the class is annotated with
+ * {@code @FixMethodOrder(NAME_ASCENDING)} and by the hash code of their name otherwise, which matches the default
+ * JUnit order. A wrong prediction only means that the next setup loads its datasets on the test thread.
+ *
+ * @see DbUnitConfiguration#prefetchDataSets()
+ */
+class DataSetPrefetcher {
+
+	private static final List<String> TEST_ANNOTATIONS = Arrays.asList("org.junit.Test",
+			"org.testng.annotations.Test");
+
+	private static final String FIX_METHOD_ORDER_ANNOTATION = "org.junit.FixMethodOrder";
+
+	private static ExecutorService executor;
+
+	private final Class<?> testClass;
+
+	private final List<Method> testMethods;
+
+	private final Map<String, LinkedList<Future<IDataSet>>> dataSets;
+
+	/**
+	 * Create a new {@link DataSetPrefetcher} for the specified test class.
+	 * @param testClass the test class
+	 */
+	public DataSetPrefetcher(Class<?> testClass) {
+		this.testClass = testClass;
+		this.testMethods = getTestMethods(testClass);
+		this.dataSets = new HashMap<String, LinkedList<Future<IDataSet>>>();
+	}
+
+	private List<Method> getTestMethods(Class<?> testClass) {
+		List<Method> testMethods = new ArrayList<Method>();
+		for (Method method : testClass.getMethods()) {
+			for (Annotation annotation : method.getAnnotations()) {
+				if (TEST_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+					testMethods.add(method);
+				}
+			}
+		}
+		Collections.sort(testMethods, new MethodOrder(testClass, isNameAscending(testClass)));
+		return testMethods;
+	}
+
+	private boolean isNameAscending(Class<?> testClass) {
+		for (Annotation annotation : testClass.getAnnotations()) {
+			if (FIX_METHOD_ORDER_ANNOTATION.equals(annotation.annotationType().getName())) {
+				Object value = AnnotationUtils.getValue(annotation);
+				return (value instanceof Enum) && "NAME_ASCENDING".equals(((Enum<?>) value).name());
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the test method that is expected to run after the specified method or {@code null}.
+	 * @param testMethod the current test method
+	 * @return the next test method or {@code null}
+	 */
+	public Method getNextTestMethod(Method testMethod) {
+		int index = this.testMethods.indexOf(testMethod);
+		return ((index == -1) || (index + 1 == this.testMethods.size()) ? null : this.testMethods.get(index + 1));
+	}
+
+	/**
+	 * Discard any unused datasets and start loading datasets from the specified locations in the background.
+	 * @param dataSetLoader the loader used to load the datasets
+	 * @param locations the dataset locations, in the order they are needed
+	 */
+	public synchronized void prefetch(final DataSetLoader dataSetLoader, Collection<String> locations) {
+		for (List<Future<IDataSet>> futures : this.dataSets.values()) {
+			for (Future<IDataSet> future : futures) {
+				future.cancel(false);
+			}
+		}
+		this.dataSets.clear();
+		for (final String location : locations) {
+			if (StringUtils.hasLength(location)) {
+				LinkedList<Future<IDataSet>> futures = this.dataSets.get(location);
+				if (futures == null) {
+					futures = new LinkedList<Future<IDataSet>>();
+					this.dataSets.put(location, futures);
+				}
+				futures.add(getExecutor().submit(new Callable<IDataSet>() {
+
+					public IDataSet call() throws Exception {
+						return dataSetLoader.loadDataSet(DataSetPrefetcher.this.testClass, location);
+					}
+
+				}));
+			}
+		}
+	}
+
+	/**
+	 * Load a dataset, using a prefetched copy if one is available.
+	 * @param dataSetLoader the loader used if the dataset has not been prefetched
+	 * @param location the dataset location
+	 * @return the dataset or {@code null}
+	 * @throws Exception if the dataset cannot be loaded
+	 */
+	public IDataSet load(DataSetLoader dataSetLoader, String location) throws Exception {
+		Future<IDataSet> future = null;
+		synchronized (this) {
+			LinkedList<Future<IDataSet>> futures = this.dataSets.get(location);
+			if ((futures != null) && !futures.isEmpty()) {
+				future = futures.removeFirst();
+			}
+		}
+		if (future == null) {
+			return dataSetLoader.loadDataSet(this.testClass, location);
+		}
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof Exception) {
+				throw (Exception) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dbunit-prefetch-");
+			threadFactory.setDaemon(true);
+			executor = Executors.newSingleThreadExecutor(threadFactory);
+		}
+		return executor;
+	}
+
+	/**
+	 * The predicted order of test methods.
+	 */
+	private static class MethodOrder implements Comparator<Method> {
+
+		private final Class<?> testClass;
+
+		private final boolean nameAscending;
+
+		public MethodOrder(Class<?> testClass, boolean nameAscending) {
+			this.testClass = testClass;
+			this.nameAscending = nameAscending;
+		}
+
+		public int compare(Method m1, Method m2) {
+			int depth1 = getDepth(m1.getDeclaringClass());
+			int depth2 = getDepth(m2.getDeclaringClass());
+			if (depth1 != depth2) {
+				return (depth1 < depth2 ? -1 : 1);
+			}
+			if (!this.nameAscending) {
+				int hash1 = m1.getName().hashCode();
+				int hash2 = m2.getName().hashCode();
+				if (hash1 != hash2) {
+					return (hash1 < hash2 ? -1 : 1);
+				}
+			}
+			int comparison = m1.getName().compareTo(m2.getName());
+			return (comparison != 0 ? comparison : m1.toString().compareTo(m2.toString()));
+		}
+
+		private int getDepth(Class<?> declaringClass) {
+			int depth = 0;
+			for (Class<?> type = this.testClass; (type != null) && (type != declaringClass); type = type
+					.getSuperclass()) {
+				depth++;
+			}
+			return depth;
+		}
+
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.dbunit.util.QualifiedTableName;
+
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * Compares an expected table with the content of the database without reading the actual rows. A single query returns
+ * the row count and an order independent checksum of the compared columns, which is then checked against the same
+ * checksum calculated from the expected table.
+ * <p>
+ * Each value is hashed to a number modulo a large prime, numbers from their exact value and strings from their length
+ * and characters. The hashes of a row are combined using random weights, and the sum of the row hashes and of their
+ * squares gives the checksum. Only integer, decimal and character columns are supported, and the number of hashed
+ * characters is limited to {@value #MAX_CHARACTERS} so that the query stays small. Equal checksums of different
+ * tables are possible, but very unlikely.
+ *
+ * @see DatabaseAssertionMode#DATABASE_COMPARE
+ */
+class DatabaseComparison {
+
+	private static final Log logger = LogFactory.getLog(DatabaseComparison.class);
+
+	/**
+	 * The maximum number of characters of the longest expected value of each string column, summed over all columns,
+	 * that are hashed.
+	 */
+	static final int MAX_CHARACTERS = 500;
+
+	private static final BigInteger PRIME = BigInteger.valueOf(999999999999989L);
+
+	private static final BigInteger NULL_HASH = BigInteger.valueOf(314159265358979L);
+
+	private static final BigInteger FRACTION_HASH = BigInteger.valueOf(271828182845904L);
+
+	private static final long SEED = 2016L;
+
+	/**
+	 * Returns if the database table contains exactly the rows of the expected table, ignoring row order and any
+	 * columns that are not specified in the expected table. A {@code false} result does not necessarily mean that the
+	 * tables differ, for example the database may not support the comparison.
+	 * @param connection the database connection
+	 * @param expectedTable the expected table
+	 * @param actualMetaData the metadata of the database table
+	 * @param columnFilters any column filters to apply
+	 * @return {@code true} if the tables are known to be equal
+	 * @throws DatabaseUnitException on DBUnit error
+	 * @throws SQLException on database error
+	 */
+	public static boolean isEqual(IDatabaseConnection connection, ITable expectedTable, ITableMetaData actualMetaData,
+			List<IColumnFilter> columnFilters) throws DatabaseUnitException, SQLException {
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		if ((dialect == null) || !dialect.supports(Feature.CHECKSUM)) {
+			return false;
+		}
+		List<HashedColumn> columns;
+		BigInteger[] checksum;
+		try {
+			columns = getHashedColumns(expectedTable, actualMetaData, columnFilters);
+			if (columns == null) {
+				return false;
+			}
+			checksum = getChecksum(expectedTable, columns);
+		} catch (TypeCastException ex) {
+			return false;
+		}
+		String tableName = getQualifiedName(connection, connection.getSchema(), actualMetaData.getTableName());
+		String sql = getChecksumSql(connection, tableName, columns);
+		Statement statement = connection.getConnection().createStatement();
+		try {
+			ResultSet resultSet = statement.executeQuery(sql);
+			try {
+				resultSet.next();
+				if (resultSet.getLong(1) != expectedTable.getRowCount()) {
+					return false;
+				}
+				return checksum[0].equals(getBigInteger(resultSet, 2))
+						&& checksum[1].equals(getBigInteger(resultSet, 3));
+			} finally {
+				resultSet.close();
+			}
+		} catch (SQLException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Unable to compare " + tableName + " in the database", ex);
+			}
+			return false;
+		} finally {
+			statement.close();
+		}
+	}
+
+	private static List<HashedColumn> getHashedColumns(ITable expectedTable, ITableMetaData actualMetaData,
+			List<IColumnFilter> columnFilters) throws DatabaseUnitException {
+		ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+		Random random = new Random(SEED);
+		List<HashedColumn> columns = new ArrayList<HashedColumn>();
+		int characters = 0;
+		for (Column expectedColumn : expectedMetaData.getColumns()) {
+			if (isAccepted(expectedMetaData.getTableName(), expectedColumn, columnFilters)) {
+				Column column = Columns.getColumn(expectedColumn.getColumnName(), actualMetaData.getColumns());
+				if ((column == null) || !isComparedAs(expectedColumn.getDataType(), column.getDataType())) {
+					return null;
+				}
+				HashedColumn hashedColumn = HashedColumn.get(column, expectedTable, random);
+				if (hashedColumn == null) {
+					return null;
+				}
+				characters += hashedColumn.getCharacterCount();
+				if (characters > MAX_CHARACTERS) {
+					return null;
+				}
+				columns.add(hashedColumn);
+			}
+		}
+		return (columns.isEmpty() ? null : columns);
+	}
+
+	private static boolean isComparedAs(DataType expectedDataType, DataType actualDataType) {
+		// Values are hashed using the actual type, which DBUnit only uses when the expected type is unknown
+		return (expectedDataType == DataType.UNKNOWN) || expectedDataType.getClass().isInstance(actualDataType);
+	}
+
+	private static boolean isAccepted(String tableName, Column column, List<IColumnFilter> columnFilters) {
+		for (IColumnFilter columnFilter : columnFilters) {
+			if (!columnFilter.accept(tableName, column)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String getChecksumSql(IDatabaseConnection connection, String tableName,
+			List<HashedColumn> columns) {
+		StringBuilder rowHash = new StringBuilder();
+		for (HashedColumn column : columns) {
+			String name = getQualifiedName(connection, null, column.getColumnName());
+			rowHash.append(rowHash.length() == 0 ? "" : " + ").append("MOD(CAST(")
+					.append(column.getHashSql(name)).append(" AS DECIMAL(31)) * ").append(column.getWeight())
+					.append(", ").append(PRIME).append(")");
+		}
+		return "SELECT COUNT(*), SUM(H), SUM(MOD(H * H, " + PRIME + ")) FROM (SELECT CAST(MOD(" + rowHash + ", "
+				+ PRIME + ") AS DECIMAL(31)) AS H FROM " + tableName + ") AS R";
+	}
+
+	private static BigInteger[] getChecksum(ITable expectedTable, List<HashedColumn> columns)
+			throws DatabaseUnitException {
+		BigInteger sum = BigInteger.ZERO;
+		BigInteger sumOfSquares = BigInteger.ZERO;
+		for (int row = 0; row < expectedTable.getRowCount(); row++) {
+			BigInteger rowHash = BigInteger.ZERO;
+			for (HashedColumn column : columns) {
+				BigInteger hash = column.getHash(expectedTable.getValue(row, column.getColumnName()));
+				rowHash = rowHash.add(hash.multiply(column.getWeight()).remainder(PRIME));
+			}
+			rowHash = rowHash.remainder(PRIME);
+			sum = sum.add(rowHash);
+			sumOfSquares = sumOfSquares.add(rowHash.multiply(rowHash).remainder(PRIME));
+		}
+		return new BigInteger[] { sum, sumOfSquares };
+	}
+
+	private static BigInteger getBigInteger(ResultSet resultSet, int column) throws SQLException {
+		BigDecimal value = resultSet.getBigDecimal(column);
+		if (value == null) {
+			return BigInteger.ZERO;
+		}
+		try {
+			return value.toBigIntegerExact();
+		} catch (ArithmeticException ex) {
+			// A sum with a fraction is never equal to the expected checksum
+			return null;
+		}
+	}
+
+	private static String getQualifiedName(IDatabaseConnection connection, String prefix, String name) {
+		String escapePattern = (String) connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+		return new QualifiedTableName(name, prefix, escapePattern).getQualifiedName();
+	}
+
+	private static BigInteger getRandomHash(Random random) {
+		return BigInteger.valueOf(random.nextLong() & Long.MAX_VALUE).remainder(PRIME);
+	}
+
+	/**
+	 * A compared column and the weights used to hash its values. The same hash is calculated by the database, using
+	 * {@link #getHashSql(String)}, and from the expected values, using {@link #getHash(Object)}.
+	 */
+	private static abstract class HashedColumn {
+
+		private final Column column;
+
+		private final BigInteger weight;
+
+		public HashedColumn(Column column, BigInteger weight) {
+			this.column = column;
+			this.weight = weight;
+		}
+
+		public String getColumnName() {
+			return this.column.getColumnName();
+		}
+
+		public BigInteger getWeight() {
+			return this.weight;
+		}
+
+		public int getCharacterCount() {
+			return 0;
+		}
+
+		public String getHashSql(String name) {
+			return "CASE WHEN " + name + " IS NULL THEN " + NULL_HASH + " ELSE " + getValueHashSql(name) + " END";
+		}
+
+		public BigInteger getHash(Object value) throws TypeCastException {
+			Object typedValue = this.column.getDataType().typeCast(value);
+			return (typedValue == null ? NULL_HASH : getValueHash(typedValue));
+		}
+
+		protected abstract String getValueHashSql(String name);
+
+		protected abstract BigInteger getValueHash(Object value) throws TypeCastException;
+
+		/**
+		 * Returns the {@link HashedColumn} for the specified database column.
+		 * @param column the database column
+		 * @param expectedTable the expected table
+		 * @param random the source of weights
+		 * @return the hashed column or {@code null} if the column type is not supported
+		 * @throws DatabaseUnitException on DBUnit error
+		 */
+		public static HashedColumn get(Column column, ITable expectedTable, Random random)
+				throws DatabaseUnitException {
+			switch (column.getDataType().getSqlType()) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				return new NumberColumn(column, getRandomHash(random), 0, false);
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return new NumberColumn(column, getRandomHash(random), getMaxScale(column, expectedTable), true);
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return new StringColumn(column, getRandomHash(random), getMaxLength(column, expectedTable), random);
+			default:
+				return null;
+			}
+		}
+
+		private static int getMaxScale(Column column, ITable expectedTable) throws DatabaseUnitException {
+			int scale = 0;
+			for (int row = 0; row < expectedTable.getRowCount(); row++) {
+				Object value = column.getDataType().typeCast(expectedTable.getValue(row, column.getColumnName()));
+				if (value != null) {
+					scale = Math.max(scale, new BigDecimal(value.toString()).stripTrailingZeros().scale());
+				}
+			}
+			return scale;
+		}
+
+		private static int getMaxLength(Column column, ITable expectedTable) throws DatabaseUnitException {
+			int length = 0;
+			for (int row = 0; row < expectedTable.getRowCount(); row++) {
+				Object value = column.getDataType().typeCast(expectedTable.getValue(row, column.getColumnName()));
+				if (value != null) {
+					length = Math.max(length, value.toString().length());
+				}
+			}
+			return length;
+		}
+
+	}
+
+	/**
+	 * Hashes integer and decimal columns. Decimal values are scaled by the largest scale of the expected values, any
+	 * other database value has a fraction and a hash that no expected value has.
+	 */
+	private static class NumberColumn extends HashedColumn {
+
+		private final int scale;
+
+		private final boolean fractional;
+
+		public NumberColumn(Column column, BigInteger weight, int scale, boolean fractional) {
+			super(column, weight);
+			this.scale = scale;
+			this.fractional = fractional;
+		}
+
+		@Override
+		protected String getValueHashSql(String name) {
+			String value = (this.scale == 0 ? name : name + " * " + BigInteger.TEN.pow(this.scale));
+			String hash = "MOD(" + value + ", " + PRIME + ")";
+			if (this.fractional) {
+				return "CASE WHEN " + value + " <> FLOOR(" + value + ") THEN " + FRACTION_HASH + " ELSE " + hash
+						+ " END";
+			}
+			return hash;
+		}
+
+		@Override
+		protected BigInteger getValueHash(Object value) {
+			return new BigDecimal(value.toString()).movePointRight(this.scale).toBigInteger().remainder(PRIME);
+		}
+
+	}
+
+	/**
+	 * Hashes character columns from their length and the characters up to the length of the longest expected value.
+	 * Longer database values have a length that no expected value has.
+	 */
+	private static class StringColumn extends HashedColumn {
+
+		private final BigInteger lengthWeight;
+
+		private final BigInteger[] characterWeights;
+
+		public StringColumn(Column column, BigInteger weight, int maxLength, Random random) {
+			super(column, weight);
+			this.lengthWeight = getRandomHash(random);
+			this.characterWeights = new BigInteger[maxLength];
+			for (int i = 0; i < maxLength; i++) {
+				this.characterWeights[i] = getRandomHash(random);
+			}
+		}
+
+		@Override
+		public int getCharacterCount() {
+			return this.characterWeights.length;
+		}
+
+		@Override
+		protected String getValueHashSql(String name) {
+			StringBuilder sql = new StringBuilder("MOD(CAST(CHAR_LENGTH(" + name + ") AS DECIMAL(31)) * "
+					+ this.lengthWeight);
+			for (int i = 0; i < this.characterWeights.length; i++) {
+				// Some databases fail to take a substring that starts after the end of the value
+				sql.append(" + CASE WHEN CHAR_LENGTH(").append(name).append(") > ").append(i)
+						.append(" THEN CAST(ASCII(SUBSTRING(").append(name).append(" FROM ").append(i + 1)
+						.append(" FOR 1)) AS DECIMAL(31)) * ").append(this.characterWeights[i]).append(" ELSE 0 END");
+			}
+			return sql.append(", ").append(PRIME).append(")").toString();
+		}
+
+		@Override
+		protected BigInteger getValueHash(Object value) {
+			String string = value.toString();
+			BigInteger hash = BigInteger.valueOf(string.length()).multiply(this.lengthWeight);
+			for (int i = 0; i < string.length(); i++) {
+				hash = hash.add(BigInteger.valueOf(string.charAt(i)).multiply(this.characterWeights[i]));
+			}
+			return hash.remainder(PRIME);
+		}
+
+	}
+
+}
@@ -17,6 +17,9 @@
 package com.github.springtestdbunit;
 
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.dbunit.database.IDatabaseConnection;
 import org.springframework.util.Assert;
@@ -48,12 +51,33 @@ public class DatabaseConnections {
 	}
 
 	public IDatabaseConnection get(String name) {
+		return this.connections[indexOf(name)];
+	}
+
+	/**
+	 * Returns the fully resolved name of the connection that will be returned from {@link #get(String)}.
+	 * @param name the connection name or an empty string for the default connection
+	 * @return the resolved connection name
+	 */
+	public String getName(String name) {
+		return this.names[indexOf(name)];
+	}
+
+	/**
+	 * Returns all connections.
+	 * @return the connections
+	 */
+	public List<IDatabaseConnection> getAll() {
+		return Collections.unmodifiableList(Arrays.asList(this.connections));
+	}
+
+	private int indexOf(String name) {
 		if (!StringUtils.hasLength(name)) {
-			return this.connections[0];
+			return 0;
 		}
 		for (int i = 0; i < this.names.length; i++) {
 			if (this.names[i].equals(name)) {
-				return this.connections[i];
+				return i;
 			}
 		}
 		throw new IllegalStateException("Unable to find connection named " + name);
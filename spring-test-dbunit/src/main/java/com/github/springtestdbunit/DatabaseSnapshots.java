@@ -0,0 +1,345 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.util.QualifiedTableName;
+
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * A bounded cache of database snapshots used to restore the result of a {@link DatabaseSetup &#064;DatabaseSetup}
+ * without reloading and replaying its datasets. Each snapshot copies the setup tables into shadow tables, restoring a
+ * snapshot deletes and re-inserts the table content using {@code INSERT ... SELECT} statements. Snapshots are dropped
+ * once the test class that captured them has finished. Snapshot tables left behind by an earlier run, for example
+ * when the JVM was killed, are dropped the first time snapshots are used with a database.
+ *
+ * @see DbUnitConfiguration#setupSnapshots()
+ */
+class DatabaseSnapshots {
+
+	private static final Log logger = LogFactory.getLog(DbUnitTestExecutionListener.class);
+
+	private static final int DEFAULT_MAX_SNAPSHOTS = 16;
+
+	private static final String SNAPSHOT_TABLE_PREFIX = "DBUNIT_SNAPSHOT_";
+
+	private static final Map<String, DatabaseSnapshots> databases = new HashMap<String, DatabaseSnapshots>();
+
+	private static final AtomicInteger snapshotIds = new AtomicInteger();
+
+	private final DatabaseDialect dialect;
+
+	private final int maxSnapshots;
+
+	private final Map<String, Snapshot> snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true);
+
+	DatabaseSnapshots(DatabaseDialect dialect, int maxSnapshots) {
+		this.dialect = dialect;
+		this.maxSnapshots = maxSnapshots;
+	}
+
+	/**
+	 * Restore the snapshot with the given key. If the snapshot cannot be restored it is discarded.
+	 * @param connection the connection to restore
+	 * @param key the snapshot key
+	 * @return {@code true} if the snapshot was restored or {@code false} if no usable snapshot is available
+	 */
+	public synchronized boolean restore(IDatabaseConnection connection, String key) {
+		Snapshot snapshot = this.snapshots.get(key);
+		if (snapshot == null) {
+			return false;
+		}
+		try {
+			snapshot.restore(connection);
+			return true;
+		} catch (SQLException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarding database snapshot " + key + " that could not be restored", ex);
+			}
+			this.snapshots.remove(key);
+			snapshot.drop(connection);
+			return false;
+		}
+	}
+
+	/**
+	 * Capture a snapshot of the tables contained in the specified dataset. Any problem capturing the snapshot is
+	 * logged and otherwise ignored.
+	 * @param connection the connection to capture
+	 * @param key the snapshot key
+	 * @param dataSet the dataset that has just been applied
+	 */
+	public synchronized void capture(IDatabaseConnection connection, String key, IDataSet dataSet) {
+		Snapshot snapshot = null;
+		try {
+			snapshot = new Snapshot(getTableNames(connection, dataSet), snapshotIds.incrementAndGet());
+			snapshot.create(connection);
+		} catch (Exception ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Unable to capture database snapshot " + key, ex);
+			}
+			if (snapshot != null) {
+				snapshot.drop(connection);
+			}
+			return;
+		}
+		Snapshot previous = this.snapshots.put(key, snapshot);
+		if (previous != null) {
+			previous.drop(connection);
+		}
+		Iterator<Snapshot> iterator = this.snapshots.values().iterator();
+		while (this.snapshots.size() > this.maxSnapshots) {
+			Snapshot eldest = iterator.next();
+			iterator.remove();
+			eldest.drop(connection);
+		}
+	}
+
+	private List<String> getTableNames(IDatabaseConnection connection, IDataSet dataSet)
+			throws SQLException, DatabaseUnitException {
+		IDataSet databaseDataSet = connection.createDataSet();
+		List<String> tableNames = new ArrayList<String>();
+		for (String tableName : dataSet.getTableNames()) {
+			tableNames.add(databaseDataSet.getTableMetaData(tableName).getTableName());
+		}
+		return tableNames;
+	}
+
+	private String getQualifiedName(IDatabaseConnection connection, String tableName) {
+		String escapePattern = (String) connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+		return new QualifiedTableName(tableName, connection.getSchema(), escapePattern).getQualifiedName();
+	}
+
+	private String escape(IDatabaseConnection connection, String columnName) {
+		String escapePattern = (String) connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+		return new QualifiedTableName(columnName, null, escapePattern).getQualifiedName();
+	}
+
+	/**
+	 * Drop all snapshots.
+	 * @param connection the connection used to drop the snapshot tables
+	 */
+	public synchronized void dropAll(IDatabaseConnection connection) {
+		for (Snapshot snapshot : this.snapshots.values()) {
+			snapshot.drop(connection);
+		}
+		this.snapshots.clear();
+	}
+
+	private void dropRemaining(IDatabaseConnection connection) throws SQLException {
+		List<String> tableNames = new ArrayList<String>();
+		ResultSet resultSet = connection.getConnection().getMetaData().getTables(null, connection.getSchema(),
+				SNAPSHOT_TABLE_PREFIX + "%", new String[] { "TABLE" });
+		try {
+			while (resultSet.next()) {
+				String tableName = resultSet.getString("TABLE_NAME");
+				if (tableName.startsWith(SNAPSHOT_TABLE_PREFIX)) {
+					tableNames.add(tableName);
+				}
+			}
+		} finally {
+			resultSet.close();
+		}
+		if (!tableNames.isEmpty()) {
+			new Snapshot(Collections.<String> emptyList(), tableNames).drop(connection);
+		}
+	}
+
+	/**
+	 * Removes any snapshot tables from a dataset obtained from the database.
+	 * @param dataSet the database dataset
+	 * @return a dataset that does not contain snapshot tables
+	 */
+	public static IDataSet exclude(IDataSet dataSet) {
+		return new FilteredDataSet(new ExcludeTableFilter(new String[] { "*" + SNAPSHOT_TABLE_PREFIX + "*" }),
+				dataSet);
+	}
+
+	/**
+	 * Returns the snapshots for the database behind the specified connection or {@code null} if the database does not
+	 * support snapshots.
+	 * @param connection the connection
+	 * @return the database snapshots or {@code null}
+	 * @throws SQLException on database error
+	 */
+	public static DatabaseSnapshots get(IDatabaseConnection connection) throws SQLException {
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		if ((dialect == null) || !dialect.supports(Feature.CREATE_TABLE_AS_SELECT)) {
+			return null;
+		}
+		DatabaseMetaData metaData = connection.getConnection().getMetaData();
+		String database = metaData.getURL() + ";" + metaData.getUserName() + ";" + connection.getSchema();
+		synchronized (databases) {
+			DatabaseSnapshots snapshots = databases.get(database);
+			if (snapshots == null) {
+				snapshots = new DatabaseSnapshots(dialect, DEFAULT_MAX_SNAPSHOTS);
+				snapshots.dropRemaining(connection);
+				databases.put(database, snapshots);
+			}
+			return snapshots;
+		}
+	}
+
+	/**
+	 * A single snapshot held in a set of shadow tables.
+	 */
+	private class Snapshot {
+
+		private final List<String> tableNames;
+
+		private final List<String> snapshotTableNames;
+
+		private final List<String> insertSql = new ArrayList<String>();
+
+		public Snapshot(List<String> tableNames, int id) {
+			this.tableNames = tableNames;
+			this.snapshotTableNames = new ArrayList<String>(tableNames.size());
+			for (int i = 0; i < tableNames.size(); i++) {
+				this.snapshotTableNames.add(SNAPSHOT_TABLE_PREFIX + id + "_" + i);
+			}
+		}
+
+		public Snapshot(List<String> tableNames, List<String> snapshotTableNames) {
+			this.tableNames = tableNames;
+			this.snapshotTableNames = snapshotTableNames;
+		}
+
+		public void create(IDatabaseConnection connection) throws SQLException {
+			Statement statement = connection.getConnection().createStatement();
+			try {
+				for (int i = 0; i < this.tableNames.size(); i++) {
+					String tableName = getQualifiedName(connection, this.tableNames.get(i));
+					String snapshotTableName = getQualifiedName(connection, this.snapshotTableNames.get(i));
+					String columns = getColumns(connection, this.tableNames.get(i));
+					statement.execute(DatabaseSnapshots.this.dialect.getDropTableIfExistsSql(snapshotTableName));
+					statement.execute(DatabaseSnapshots.this.dialect.getCreateTableAsSelectSql(snapshotTableName,
+							"SELECT " + columns + " FROM " + tableName));
+					this.insertSql.add(DatabaseSnapshots.this.dialect.getInsertSelectSql(tableName, columns,
+							hasIdentity(connection, this.tableNames.get(i)),
+							"SELECT " + columns + " FROM " + snapshotTableName));
+				}
+			} finally {
+				statement.close();
+			}
+		}
+
+		/**
+		 * Returns the escaped names of the columns that can be written, excluding generated columns.
+		 */
+		private String getColumns(IDatabaseConnection connection, String tableName) throws SQLException {
+			StringBuilder columns = new StringBuilder();
+			ResultSet resultSet = getColumnMetaData(connection, tableName);
+			try {
+				while (resultSet.next()) {
+					if (!"YES".equals(getString(resultSet, "IS_GENERATEDCOLUMN"))) {
+						columns.append(columns.length() == 0 ? "" : ", ");
+						columns.append(escape(connection, resultSet.getString("COLUMN_NAME")));
+					}
+				}
+			} finally {
+				resultSet.close();
+			}
+			return columns.toString();
+		}
+
+		private boolean hasIdentity(IDatabaseConnection connection, String tableName) throws SQLException {
+			ResultSet resultSet = getColumnMetaData(connection, tableName);
+			try {
+				while (resultSet.next()) {
+					if ("YES".equals(getString(resultSet, "IS_AUTOINCREMENT"))) {
+						return true;
+					}
+				}
+				return false;
+			} finally {
+				resultSet.close();
+			}
+		}
+
+		private ResultSet getColumnMetaData(IDatabaseConnection connection, String tableName) throws SQLException {
+			return connection.getConnection().getMetaData().getColumns(null, connection.getSchema(), tableName, "%");
+		}
+
+		private String getString(ResultSet resultSet, String columnName) {
+			try {
+				return resultSet.getString(columnName);
+			} catch (SQLException ex) {
+				// Column not provided by older JDBC drivers
+				return null;
+			}
+		}
+
+		public void restore(IDatabaseConnection connection) throws SQLException {
+			Statement statement = connection.getConnection().createStatement();
+			try {
+				for (int i = this.tableNames.size() - 1; i >= 0; i--) {
+					statement.addBatch("DELETE FROM " + getQualifiedName(connection, this.tableNames.get(i)));
+				}
+				for (String sql : this.insertSql) {
+					statement.addBatch(sql);
+				}
+				statement.executeBatch();
+			} finally {
+				statement.close();
+			}
+		}
+
+		public void drop(IDatabaseConnection connection) {
+			try {
+				Statement statement = connection.getConnection().createStatement();
+				try {
+					for (String snapshotTableName : this.snapshotTableNames) {
+						statement.execute(DatabaseSnapshots.this.dialect
+								.getDropTableIfExistsSql(getQualifiedName(connection, snapshotTableName)));
+					}
+				} finally {
+					statement.close();
+				}
+			} catch (SQLException ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Unable to drop database snapshot tables " + this.snapshotTableNames, ex);
+				}
+			}
+		}
+
+	}
+
+}
@@ -16,38 +16,59 @@
 
 package com.github.springtestdbunit;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.ForwardOnlyResultSetTable;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.CompositeDataSet;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.filter.IColumnFilter;
+import org.springframework.core.Conventions;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
+import com.github.springtestdbunit.ChangeTracking.TableCheck;
 import com.github.springtestdbunit.annotation.DatabaseOperation;
 import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DatabaseSetups;
 import com.github.springtestdbunit.annotation.DatabaseTearDown;
 import com.github.springtestdbunit.annotation.DatabaseTearDowns;
+import com.github.springtestdbunit.annotation.DatabaseUnchanged;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.annotation.ExecutionScope;
 import com.github.springtestdbunit.annotation.ExpectedDatabase;
 import com.github.springtestdbunit.annotation.ExpectedDatabases;
 import com.github.springtestdbunit.assertion.DatabaseAssertion;
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode.Fetch;
 import com.github.springtestdbunit.dataset.DataSetLoader;
 import com.github.springtestdbunit.dataset.DataSetModifier;
 
@@ -64,6 +85,83 @@ public class DbUnitRunner {
 
 	private static final Log logger = LogFactory.getLog(DbUnitTestExecutionListener.class);
 
+	private static final Set<DatabaseOperation> SNAPSHOT_OPERATIONS = EnumSet.of(DatabaseOperation.CLEAN_INSERT,
+			DatabaseOperation.DELETE_ALL, DatabaseOperation.TRUNCATE_TABLE);
+
+	private static final String SETUP_FINGERPRINTS_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "setupFingerprints");
+
+	private static final String SAVEPOINT_ISOLATION_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "savepointIsolation");
+
+	private static final String DATA_SET_PREFETCHER_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "dataSetPrefetcher");
+
+	private static final String CHANGE_TRACKING_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "changeTracking");
+
+	private static final String ASYNC_TEAR_DOWN_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "asyncTearDown");
+
+	private static final String SETUP_TABLE_NAMES_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitRunner.class, "setupTableNames");
+
+	private static final String COLUMN_FILTERS_ATTRIBUTE = Conventions.getQualifiedAttributeName(DbUnitRunner.class,
+			"columnFilters");
+
+	/**
+	 * Determine if {@link #beforeTestClass} and {@link #afterTestClass} need to be called for the test class.
+	 * @param testContext The test context
+	 * @return if class level processing is required
+	 */
+	public boolean isClassLevel(DbUnitTestContext testContext) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if ((configuration != null) && (configuration.savepointIsolation() || configuration.setupSnapshots())) {
+			return true;
+		}
+		Annotations<DatabaseSetup> setups = Annotations.get(testContext, DatabaseSetups.class, DatabaseSetup.class);
+		Annotations<DatabaseTearDown> teardowns = Annotations.get(testContext, DatabaseTearDowns.class,
+				DatabaseTearDown.class);
+		for (AnnotationAttributes annotation : AnnotationAttributes.get(setups.getClassAnnotations())) {
+			if (annotation.getScope() == ExecutionScope.CLASS) {
+				return true;
+			}
+		}
+		for (AnnotationAttributes annotation : AnnotationAttributes.get(teardowns.getClassAnnotations())) {
+			if (annotation.getScope() == ExecutionScope.CLASS) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Called before any test method of the test class is executed to perform class level database setup.
+	 * @param testContext The test context
+	 * @throws Exception
+	 */
+	public void beforeTestClass(DbUnitTestContext testContext) throws Exception {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		SavepointIsolation isolation = null;
+		if ((configuration != null) && configuration.savepointIsolation()) {
+			isolation = new SavepointIsolation(getTransactionManager(testContext));
+			setAttribute(testContext, SAVEPOINT_ISOLATION_ATTRIBUTE, isolation);
+		}
+		try {
+			Annotations<DatabaseSetup> annotations = Annotations.get(testContext, DatabaseSetups.class,
+					DatabaseSetup.class);
+			setup(testContext, getAnnotationAttributes(testContext, annotations, ExecutionScope.CLASS));
+		} catch (Exception ex) {
+			if (isolation != null) {
+				setAttribute(testContext, SAVEPOINT_ISOLATION_ATTRIBUTE, null);
+				isolation.end();
+			}
+			throw ex;
+		} finally {
+			testContext.getConnections().closeAll();
+		}
+	}
+
 	/**
 	 * Called before a test method is executed to perform any database setup.
 	 * @param testContext The test context
@@ -72,7 +170,148 @@ public class DbUnitRunner {
 	public void beforeTestMethod(DbUnitTestContext testContext) throws Exception {
 		Annotations<DatabaseSetup> annotations = Annotations.get(testContext, DatabaseSetups.class,
 				DatabaseSetup.class);
-		setupOrTeardown(testContext, true, AnnotationAttributes.get(annotations));
+		Collection<AnnotationAttributes> setups = getAnnotationAttributes(testContext, annotations,
+				ExecutionScope.METHOD);
+		SavepointIsolation isolation = getSavepointIsolation(testContext);
+		if (isolation != null) {
+			isolation.savepoint(testContext.getConnections());
+		}
+		ChangeTracking changeTracking = getChangeTracking(testContext);
+		if (changeTracking != null) {
+			changeTracking.startTest(testContext.getConnections().getAll());
+		}
+		setup(testContext, setups);
+		if (changeTracking != null) {
+			changeTracking.setupComplete(testContext.getConnections().getAll());
+		}
+		awaitTearDownsForTest(testContext, setups);
+		prefetch(testContext);
+	}
+
+	/**
+	 * Wait for the asynchronous teardowns that touch the tables of the test and throw the failure of any earlier
+	 * teardown, so that it is reported by the next test rather than after the last test of the class.
+	 */
+	private void awaitTearDownsForTest(DbUnitTestContext testContext, Collection<AnnotationAttributes> setups)
+			throws Exception {
+		AsyncTearDown asyncTearDown = (AsyncTearDown) getAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE);
+		if (asyncTearDown == null) {
+			return;
+		}
+		if (asyncTearDown.isPending()) {
+			Collection<String> tableNames = getTestTableNames(testContext, setups);
+			asyncTearDown.await((tableNames == null) || tableNames.isEmpty() ? null : tableNames);
+		}
+		asyncTearDown.throwFailure();
+	}
+
+	/**
+	 * Returns the tables of the setup and expected datasets of the test, which the test itself is assumed to only
+	 * touch, or {@code null} if any table may be touched. Setup tables are taken from the datasets loaded by earlier
+	 * setups, a setup that has not been loaded yet may touch any table.
+	 */
+	private Collection<String> getTestTableNames(DbUnitTestContext testContext,
+			Collection<AnnotationAttributes> setups) throws Exception {
+		Set<String> tableNames = new HashSet<String>();
+		Map<List<String>, Collection<String>> setupTableNames = getSetupTableNames(testContext);
+		for (AnnotationAttributes annotation : setups) {
+			Collection<String> annotationTableNames = setupTableNames.get(Arrays.asList(annotation.getValue()));
+			if (annotationTableNames == null) {
+				return null;
+			}
+			tableNames.addAll(annotationTableNames);
+		}
+		Annotations<ExpectedDatabase> annotations = Annotations.get(testContext, ExpectedDatabases.class,
+				ExpectedDatabase.class);
+		for (ExpectedDatabase annotation : getExpectedDatabases(annotations)) {
+			if (StringUtils.hasLength(annotation.query())) {
+				return null;
+			}
+			if (StringUtils.hasLength(annotation.table())) {
+				tableNames.add(annotation.table());
+			} else {
+				IDataSet expectedDataSet = loadDataset(testContext, annotation.value(), DataSetModifier.NONE);
+				if (expectedDataSet != null) {
+					tableNames.addAll(Arrays.asList(expectedDataSet.getTableNames()));
+				}
+			}
+		}
+		return tableNames;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<List<String>, Collection<String>> getSetupTableNames(DbUnitTestContext testContext) {
+		Map<List<String>, Collection<String>> setupTableNames = (Map<List<String>, Collection<String>>) getAttribute(
+				testContext, SETUP_TABLE_NAMES_ATTRIBUTE);
+		if (setupTableNames == null) {
+			setupTableNames = new HashMap<List<String>, Collection<String>>();
+			setAttribute(testContext, SETUP_TABLE_NAMES_ATTRIBUTE, setupTableNames);
+		}
+		return setupTableNames;
+	}
+
+	private void prefetch(DbUnitTestContext testContext) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if ((configuration == null) || !configuration.prefetchDataSets()) {
+			return;
+		}
+		DataSetPrefetcher prefetcher = getDataSetPrefetcher(testContext);
+		if (prefetcher == null) {
+			prefetcher = new DataSetPrefetcher(testContext.getTestClass());
+			setAttribute(testContext, DATA_SET_PREFETCHER_ATTRIBUTE, prefetcher);
+		}
+		List<String> locations = new ArrayList<String>();
+		Method testMethod = testContext.getTestMethod();
+		for (ExpectedDatabase annotation : new Annotations<ExpectedDatabase>(testContext.getTestClass(), testMethod,
+				ExpectedDatabases.class, ExpectedDatabase.class)) {
+			locations.add(annotation.value());
+		}
+		for (DatabaseTearDown annotation : new Annotations<DatabaseTearDown>(testContext.getTestClass(), testMethod,
+				DatabaseTearDowns.class, DatabaseTearDown.class)) {
+			locations.addAll(Arrays.asList(annotation.value()));
+		}
+		Method nextTestMethod = prefetcher.getNextTestMethod(testMethod);
+		if (nextTestMethod != null) {
+			for (DatabaseSetup annotation : new Annotations<DatabaseSetup>(testContext.getTestClass(), nextTestMethod,
+					DatabaseSetups.class, DatabaseSetup.class)) {
+				locations.addAll(Arrays.asList(annotation.value()));
+			}
+		}
+		prefetcher.prefetch(testContext.getDataSetLoader(), locations);
+	}
+
+	private DataSetPrefetcher getDataSetPrefetcher(DbUnitTestContext testContext) {
+		return (DataSetPrefetcher) getAttribute(testContext, DATA_SET_PREFETCHER_ATTRIBUTE);
+	}
+
+	private ChangeTracking getChangeTracking(DbUnitTestContext testContext) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if ((configuration == null) || !configuration.changeTracking()) {
+			return null;
+		}
+		ChangeTracking changeTracking = (ChangeTracking) getAttribute(testContext, CHANGE_TRACKING_ATTRIBUTE);
+		if (changeTracking == null) {
+			changeTracking = new ChangeTracking();
+			setAttribute(testContext, CHANGE_TRACKING_ATTRIBUTE, changeTracking);
+		}
+		return changeTracking;
+	}
+
+	/**
+	 * Returns the {@link TableCheck} used to skip expected tables that are unchanged since they were last verified,
+	 * or {@code null}. Tables are always fully verified when a transaction or savepoint may later roll back the
+	 * database state that they were verified against.
+	 */
+	private TableCheck getTableCheck(DbUnitTestContext testContext, ExpectedDatabase annotation) throws SQLException {
+		ChangeTracking changeTracking = getChangeTracking(testContext);
+		if ((changeTracking == null) || (getSavepointIsolation(testContext) != null)
+				|| TransactionSynchronizationManager.isActualTransactionActive()) {
+			return null;
+		}
+		DatabaseConnections connections = testContext.getConnections();
+		return changeTracking.getTableCheck(connections.getName(annotation.connection()),
+				connections.get(annotation.connection()),
+				annotation.assertionMode() + Arrays.toString(annotation.columnFilters()));
 	}
 
 	/**
@@ -81,6 +320,7 @@ public class DbUnitRunner {
 	 * @throws Exception
 	 */
 	public void afterTestMethod(DbUnitTestContext testContext) throws Exception {
+		boolean closeConnections = true;
 		try {
 			try {
 				verifyExpected(testContext,
@@ -88,8 +328,15 @@ public class DbUnitRunner {
 			} finally {
 				Annotations<DatabaseTearDown> annotations = Annotations.get(testContext, DatabaseTearDowns.class,
 						DatabaseTearDown.class);
+				Collection<AnnotationAttributes> teardowns = getAnnotationAttributes(testContext, annotations,
+						ExecutionScope.METHOD);
 				try {
-					setupOrTeardown(testContext, false, AnnotationAttributes.get(annotations));
+					if (isAsyncTearDown(testContext, teardowns)) {
+						tearDownAsync(testContext, teardowns);
+						closeConnections = false;
+					} else {
+						setupOrTeardown(testContext, false, teardowns);
+					}
 				} catch (RuntimeException ex) {
 					if (testContext.getTestException() == null) {
 						throw ex;
@@ -100,8 +347,120 @@ public class DbUnitRunner {
 				}
 			}
 		} finally {
-			testContext.getConnections().closeAll();
+			try {
+				if (!isDatabaseUnchanged(testContext)) {
+					getSetupFingerprints(testContext).changed();
+				}
+				SavepointIsolation isolation = getSavepointIsolation(testContext);
+				if (isolation != null) {
+					isolation.rollback();
+				}
+			} finally {
+				if (closeConnections) {
+					testContext.getConnections().closeAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called after all test methods of the test class have executed to wait for any asynchronous teardowns and throw
+	 * their failures.
+	 * @param testContext The test context
+	 * @throws Exception
+	 */
+	public void awaitAsyncTearDowns(DbUnitTestContext testContext) throws Exception {
+		AsyncTearDown asyncTearDown = (AsyncTearDown) getAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE);
+		if (asyncTearDown != null) {
+			setAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE, null);
+			asyncTearDown.close();
+		}
+	}
+
+	/**
+	 * Called after all test methods of the test class have executed to perform class level database teardown.
+	 * @param testContext The test context
+	 * @throws Exception
+	 */
+	public void afterTestClass(DbUnitTestContext testContext) throws Exception {
+		Annotations<DatabaseTearDown> annotations = Annotations.get(testContext, DatabaseTearDowns.class,
+				DatabaseTearDown.class);
+		Collection<AnnotationAttributes> teardowns = getAnnotationAttributes(testContext, annotations,
+				ExecutionScope.CLASS);
+		SavepointIsolation isolation = getSavepointIsolation(testContext);
+		try {
+			if (isolation != null) {
+				setAttribute(testContext, SAVEPOINT_ISOLATION_ATTRIBUTE, null);
+				isolation.end();
+			}
+			setupOrTeardown(testContext, false, teardowns);
+		} finally {
+			try {
+				dropSnapshots(testContext);
+			} finally {
+				testContext.getConnections().closeAll();
+			}
+		}
+	}
+
+	private void dropSnapshots(DbUnitTestContext testContext) throws SQLException {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if ((configuration != null) && configuration.setupSnapshots()) {
+			for (IDatabaseConnection connection : testContext.getConnections().getAll()) {
+				DatabaseSnapshots snapshots = DatabaseSnapshots.get(connection);
+				if (snapshots != null) {
+					snapshots.dropAll(connection);
+				}
+			}
+		}
+	}
+
+	private <T extends Annotation> Collection<AnnotationAttributes> getAnnotationAttributes(
+			DbUnitTestContext testContext, Annotations<T> annotations, ExecutionScope scope) {
+		for (AnnotationAttributes annotation : AnnotationAttributes.get(annotations.getMethodAnnotations())) {
+			Assert.state(annotation.getScope() == ExecutionScope.METHOD,
+					"ExecutionScope.CLASS can only be used with class level annotations");
+		}
+		if (getSavepointIsolation(testContext) != null) {
+			return AnnotationAttributes.get(scope == ExecutionScope.CLASS ? annotations.getClassAnnotations()
+					: annotations.getMethodAnnotations());
+		}
+		List<AnnotationAttributes> annotationAttributes = new ArrayList<AnnotationAttributes>();
+		for (AnnotationAttributes annotation : AnnotationAttributes.get(annotations)) {
+			if (annotation.getScope() == scope) {
+				annotationAttributes.add(annotation);
+			}
+		}
+		return annotationAttributes;
+	}
+
+	private PlatformTransactionManager getTransactionManager(DbUnitTestContext testContext) {
+		Assert.state(testContext instanceof StatefulDbUnitTestContext,
+				"Savepoint isolation requires a StatefulDbUnitTestContext");
+		return (PlatformTransactionManager) getAttribute(testContext,
+				DbUnitTestExecutionListener.TRANSACTION_MANAGER_ATTRIBUTE);
+	}
+
+	private Object getAttribute(DbUnitTestContext testContext, String name) {
+		if (testContext instanceof StatefulDbUnitTestContext) {
+			return ((StatefulDbUnitTestContext) testContext).getAttribute(name);
 		}
+		return null;
+	}
+
+	private void setAttribute(DbUnitTestContext testContext, String name, Object value) {
+		if (testContext instanceof StatefulDbUnitTestContext) {
+			((StatefulDbUnitTestContext) testContext).setAttribute(name, value);
+		}
+	}
+
+	private SavepointIsolation getSavepointIsolation(DbUnitTestContext testContext) {
+		return (SavepointIsolation) getAttribute(testContext, SAVEPOINT_ISOLATION_ATTRIBUTE);
+	}
+
+	private boolean isDatabaseUnchanged(DbUnitTestContext testContext) {
+		return (AnnotationUtils.findAnnotation(testContext.getTestMethod(), DatabaseUnchanged.class) != null)
+				|| (AnnotationUtils.findAnnotation(testContext.getTestClass(), DatabaseUnchanged.class) != null);
 	}
 
 	private void verifyExpected(DbUnitTestContext testContext, Annotations<ExpectedDatabase> annotations)
@@ -115,47 +474,203 @@ public class DbUnitRunner {
 		}
 		DatabaseConnections connections = testContext.getConnections();
 		DataSetModifier modifier = getModifier(testContext, annotations);
+		List<ExpectedDatabase> expected = getExpectedDatabases(annotations);
+		if (isParallelVerification(testContext)) {
+			verifyExpectedInParallel(testContext, connections, modifier, expected);
+			return;
+		}
+		for (ExpectedDatabase annotation : expected) {
+			IDataSet expectedDataSet = loadDataset(testContext, annotation.value(), modifier);
+			DatabaseAssertion assertion = getDatabaseAssertion(testContext, annotation.assertionMode());
+			verifyExpected(connections.get(annotation.connection()), annotation, expectedDataSet, assertion,
+					getColumnFilters(testContext, annotation), getTableCheck(testContext, annotation), null);
+		}
+	}
+
+	private List<ExpectedDatabase> getExpectedDatabases(Annotations<ExpectedDatabase> annotations) {
+		List<ExpectedDatabase> expected = new ArrayList<ExpectedDatabase>();
 		boolean override = false;
 		for (ExpectedDatabase annotation : annotations.getMethodAnnotations()) {
-			verifyExpected(testContext, connections, modifier, annotation);
+			expected.add(annotation);
 			override |= annotation.override();
 		}
 		if (!override) {
-			for (ExpectedDatabase annotation : annotations.getClassAnnotations()) {
-				verifyExpected(testContext, connections, modifier, annotation);
+			expected.addAll(annotations.getClassAnnotations());
+		}
+		return expected;
+	}
+
+	/**
+	 * Returns the {@link DatabaseAssertion} for the mode, reporting differences as configured by
+	 * {@link DbUnitConfiguration}.
+	 */
+	private DatabaseAssertion getDatabaseAssertion(DbUnitTestContext testContext, DatabaseAssertionMode mode) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if (configuration == null) {
+			return mode.getDatabaseAssertion();
+		}
+		String directory = configuration.differenceReportDirectory();
+		return mode.getDatabaseAssertion(configuration.maxReportedDifferences(),
+				StringUtils.hasLength(directory) ? new File(directory) : null);
+	}
+
+	private boolean isParallelVerification(DbUnitTestContext testContext) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		return (configuration != null) && configuration.parallelVerification()
+				&& (getSavepointIsolation(testContext) == null)
+				&& !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	/**
+	 * Verify expectations using a background thread for each connection. Expectations on the same connection are
+	 * still verified one at a time but the comparison of each table runs in parallel with fetching the next.
+	 */
+	private void verifyExpectedInParallel(final DbUnitTestContext testContext, final DatabaseConnections connections,
+			DataSetModifier modifier, List<ExpectedDatabase> expected) throws Exception {
+		final Map<ExpectedDatabase, IDataSet> expectedDataSets = new LinkedHashMap<ExpectedDatabase, IDataSet>();
+		Map<String, List<ExpectedDatabase>> expectedByConnection = new LinkedHashMap<String, List<ExpectedDatabase>>();
+		for (ExpectedDatabase annotation : expected) {
+			expectedDataSets.put(annotation, loadDataset(testContext, annotation.value(), modifier));
+			String connection = connections.getName(annotation.connection());
+			List<ExpectedDatabase> connectionExpected = expectedByConnection.get(connection);
+			if (connectionExpected == null) {
+				connectionExpected = new ArrayList<ExpectedDatabase>();
+				expectedByConnection.put(connection, connectionExpected);
 			}
+			connectionExpected.add(annotation);
+		}
+		final Map<ExpectedDatabase, List<IColumnFilter>> columnFilters = new HashMap<ExpectedDatabase,
+				List<IColumnFilter>>();
+		final Map<ExpectedDatabase, TableCheck> checks = new HashMap<ExpectedDatabase, TableCheck>();
+		for (ExpectedDatabase annotation : expected) {
+			columnFilters.put(annotation, getColumnFilters(testContext, annotation));
+			checks.put(annotation, getTableCheck(testContext, annotation));
 		}
+		final ParallelVerification verification = new ParallelVerification();
+		for (final List<ExpectedDatabase> connectionExpected : expectedByConnection.values()) {
+			verification.submit(new Callable<Void>() {
+
+				public Void call() throws Exception {
+					for (ExpectedDatabase annotation : connectionExpected) {
+						verifyExpected(connections.get(annotation.connection()), annotation,
+								expectedDataSets.get(annotation),
+								getDatabaseAssertion(testContext, annotation.assertionMode()),
+								columnFilters.get(annotation), checks.get(annotation), verification);
+					}
+					return null;
+				}
+
+			});
+		}
+		verification.await();
 	}
 
-	private void verifyExpected(DbUnitTestContext testContext, DatabaseConnections connections,
-			DataSetModifier modifier, ExpectedDatabase annotation)
+	private void verifyExpected(IDatabaseConnection connection, ExpectedDatabase annotation,
+			IDataSet expectedDataSet, DatabaseAssertion assertion, List<IColumnFilter> columnFilters, TableCheck check,
+			ParallelVerification verification)
 					throws Exception, DataSetException, SQLException, DatabaseUnitException {
 		String query = annotation.query();
 		String table = annotation.table();
-		IDataSet expectedDataSet = loadDataset(testContext, annotation.value(), modifier);
-		IDatabaseConnection connection = connections.get(annotation.connection());
 		if (expectedDataSet != null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Veriftying @DatabaseTest expectation using " + annotation.value());
 			}
-			DatabaseAssertion assertion = annotation.assertionMode().getDatabaseAssertion();
-			List<IColumnFilter> columnFilters = getColumnFilters(annotation);
+			Fetch fetch = annotation.assertionMode().getFetch();
 			if (StringUtils.hasLength(query)) {
 				Assert.hasLength(table, "The table name must be specified when using a SQL query");
+			}
+			if (StringUtils.hasLength(query) && (fetch != Fetch.FORWARD_ONLY)) {
 				ITable expectedTable = expectedDataSet.getTable(table);
 				ITable actualTable = connection.createQueryTable(table, query);
 				assertion.assertEquals(expectedTable, actualTable, columnFilters);
+			} else if (fetch != Fetch.DATA_SET) {
+				verifyExpectedTables(connection, fetch, assertion, expectedDataSet, table, query, columnFilters,
+						(StringUtils.hasLength(query) ? null : check), verification);
 			} else if (StringUtils.hasLength(table)) {
 				ITable actualTable = connection.createTable(table);
 				ITable expectedTable = expectedDataSet.getTable(table);
 				assertion.assertEquals(expectedTable, actualTable, columnFilters);
+			} else if (annotation.expectedTablesOnly()) {
+				IDataSet actualDataSet = new TargetedDataSet(connection, expectedDataSet.getTableNames());
+				assertion.assertEquals(expectedDataSet, actualDataSet, columnFilters);
 			} else {
-				IDataSet actualDataSet = connection.createDataSet();
+				IDataSet actualDataSet = DatabaseSnapshots.exclude(connection.createDataSet());
 				assertion.assertEquals(expectedDataSet, actualDataSet, columnFilters);
 			}
 		}
 	}
 
+	/**
+	 * Verify expected tables one at a time, reading them using the specified {@link Fetch} strategy. Only the compared
+	 * columns are read from the database and tables are compared in the calling thread, unless a
+	 * {@link ParallelVerification} is provided. At most {@link ParallelVerification#MAX_PENDING_TABLES} fetched tables
+	 * wait for a background comparison, so tables are not read faster than they are compared. Tables that the
+	 * {@link TableCheck} knows to be unchanged since an earlier verification are skipped.
+	 */
+	private void verifyExpectedTables(IDatabaseConnection connection, Fetch fetch,
+			final DatabaseAssertion assertion, IDataSet expectedDataSet, String table, String query,
+			final List<IColumnFilter> columnFilters, final TableCheck check, ParallelVerification verification)
+					throws Exception {
+		String[] tableNames = (StringUtils.hasLength(table) ? new String[] { table } : expectedDataSet.getTableNames());
+		IDataSet actualDataSet = new TargetedDataSet(connection, tableNames);
+		Semaphore pending = new Semaphore(ParallelVerification.MAX_PENDING_TABLES);
+		for (String tableName : tableNames) {
+			ITable expectedTable = expectedDataSet.getTable(tableName);
+			if ((check != null) && check.isVerified(expectedTable)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Skipping verification of unchanged table " + tableName);
+				}
+				continue;
+			}
+			ITableMetaData actualMetaData = actualDataSet.getTableMetaData(tableName);
+			if ((fetch == Fetch.DATABASE_COMPARE)
+					&& DatabaseComparison.isEqual(connection, expectedTable, actualMetaData, columnFilters)) {
+				if (check != null) {
+					check.verified(expectedTable, check.getRowCount(tableName));
+				}
+				continue;
+			}
+			String select = (StringUtils.hasLength(query) ? query
+					: ProjectedSelect.get(connection, expectedTable, actualMetaData, columnFilters));
+			if (fetch == Fetch.FORWARD_ONLY) {
+				ForwardOnlyResultSetTable actualTable = (select != null
+						? new ForwardOnlyResultSetTable(tableName, select, connection)
+						: new ForwardOnlyResultSetTable(actualMetaData, connection));
+				try {
+					assertion.assertEquals(expectedTable,
+							new PrimaryKeyTable(actualTable, actualMetaData.getPrimaryKeys()), columnFilters);
+				} finally {
+					actualTable.close();
+				}
+				if (check != null) {
+					check.verified(expectedTable, check.getRowCount(tableName));
+				}
+			} else {
+				final ITable actualTable = (select != null ? connection.createQueryTable(tableName, select)
+						: actualDataSet.getTable(tableName));
+				if (verification == null) {
+					assertion.assertEquals(expectedTable, actualTable, columnFilters);
+					if (check != null) {
+						check.verified(expectedTable, actualTable.getRowCount());
+					}
+				} else {
+					final ITable expected = expectedTable;
+					verification.submit(new Callable<Void>() {
+
+						public Void call() throws Exception {
+							assertion.assertEquals(expected, actualTable, columnFilters);
+							if (check != null) {
+								check.verified(expected, actualTable.getRowCount());
+							}
+							return null;
+						}
+
+					}, pending);
+				}
+			}
+		}
+	}
+
 	private DataSetModifier getModifier(DbUnitTestContext testContext, Annotations<ExpectedDatabase> annotations) {
 		DataSetModifiers modifiers = new DataSetModifiers();
 		for (ExpectedDatabase annotation : annotations) {
@@ -166,23 +681,242 @@ public class DbUnitRunner {
 		return modifiers;
 	}
 
+	private void setup(DbUnitTestContext testContext, Collection<AnnotationAttributes> annotations) throws Exception {
+		SetupFingerprints fingerprints = getSetupFingerprints(testContext);
+		ChangeTracking changeTracking = getChangeTracking(testContext);
+		Map<String, List<AnnotationAttributes>> annotationsByConnection = getAnnotationsByConnection(
+				testContext.getConnections(), annotations);
+		for (Map.Entry<String, List<AnnotationAttributes>> entry : annotationsByConnection.entrySet()) {
+			String connection = entry.getKey();
+			String fingerprint = getFingerprint(entry.getValue());
+			if ((changeTracking != null) && isRepeatable(entry.getValue())) {
+				changeTracking.setup(connection, getSnapshotKey(testContext, fingerprint, entry.getValue()));
+			}
+			if (fingerprints.isApplied(connection, fingerprint)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Skipping Setup of @DatabaseTest on " + connection
+							+ " since the database is unchanged");
+				}
+				continue;
+			}
+			fingerprints.changed(connection);
+			if (isSnapshotSetup(testContext, entry.getValue())) {
+				setupUsingSnapshot(testContext, connection, fingerprint, entry.getValue());
+			} else {
+				setupOrTeardown(testContext, true, entry.getValue());
+			}
+			if (isRepeatable(entry.getValue()) && !TransactionSynchronizationManager.isActualTransactionActive()) {
+				fingerprints.applied(connection, fingerprint);
+			}
+		}
+	}
+
+	private Map<String, List<AnnotationAttributes>> getAnnotationsByConnection(DatabaseConnections connections,
+			Collection<AnnotationAttributes> annotations) {
+		Map<String, List<AnnotationAttributes>> annotationsByConnection;
+		annotationsByConnection = new LinkedHashMap<String, List<AnnotationAttributes>>();
+		for (AnnotationAttributes annotation : annotations) {
+			String connection = connections.getName(annotation.getConnection());
+			List<AnnotationAttributes> connectionAnnotations = annotationsByConnection.get(connection);
+			if (connectionAnnotations == null) {
+				connectionAnnotations = new ArrayList<AnnotationAttributes>();
+				annotationsByConnection.put(connection, connectionAnnotations);
+			}
+			connectionAnnotations.add(annotation);
+		}
+		return annotationsByConnection;
+	}
+
+	private String getFingerprint(List<AnnotationAttributes> annotations) {
+		StringBuilder fingerprint = new StringBuilder();
+		for (AnnotationAttributes annotation : annotations) {
+			fingerprint.append(annotation.getType()).append(Arrays.asList(annotation.getValue())).append(";");
+		}
+		return fingerprint.toString();
+	}
+
+	private boolean isRepeatable(List<AnnotationAttributes> annotations) {
+		for (AnnotationAttributes annotation : annotations) {
+			if (annotation.getType() == DatabaseOperation.INSERT) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isSnapshotSetup(DbUnitTestContext testContext, List<AnnotationAttributes> annotations) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		if ((configuration == null) || !configuration.setupSnapshots()
+				|| TransactionSynchronizationManager.isActualTransactionActive()) {
+			return false;
+		}
+		for (AnnotationAttributes annotation : annotations) {
+			if (!SNAPSHOT_OPERATIONS.contains(annotation.getType()) || ObjectUtils.isEmpty(annotation.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void setupUsingSnapshot(DbUnitTestContext testContext, String connectionName, String fingerprint,
+			List<AnnotationAttributes> annotations) throws Exception {
+		IDatabaseConnection connection = testContext.getConnections().get(connectionName);
+		DatabaseSnapshots snapshots = DatabaseSnapshots.get(connection);
+		if (snapshots == null) {
+			setupOrTeardown(testContext, true, annotations);
+			return;
+		}
+		String key = getSnapshotKey(testContext, fingerprint, annotations);
+		awaitTearDowns(testContext, null);
+		if (snapshots.restore(connection, key)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Restored Setup of @DatabaseTest on " + connectionName + " from snapshot");
+			}
+			return;
+		}
+		List<IDataSet> datasets = new ArrayList<IDataSet>();
+		for (AnnotationAttributes annotation : annotations) {
+			List<IDataSet> annotationDatasets = loadDataSets(testContext, annotation);
+			setupOrTeardown(testContext, true, annotation, annotationDatasets);
+			datasets.addAll(annotationDatasets);
+		}
+		snapshots.capture(connection, key, new CompositeDataSet(datasets.toArray(new IDataSet[datasets.size()])));
+	}
+
+	private String getSnapshotKey(DbUnitTestContext testContext, String fingerprint,
+			List<AnnotationAttributes> annotations) {
+		StringBuilder key = new StringBuilder(testContext.getDataSetLoader().getClass().getName()).append(";");
+		for (AnnotationAttributes annotation : annotations) {
+			for (String location : annotation.getValue()) {
+				if (!location.startsWith("/") && !location.contains(":")) {
+					key.append(testContext.getTestClass().getName()).append(";");
+					return key.append(fingerprint).toString();
+				}
+			}
+		}
+		return key.append(fingerprint).toString();
+	}
+
+	private SetupFingerprints getSetupFingerprints(DbUnitTestContext testContext) {
+		SetupFingerprints fingerprints = (SetupFingerprints) getAttribute(testContext, SETUP_FINGERPRINTS_ATTRIBUTE);
+		if (fingerprints == null) {
+			fingerprints = new SetupFingerprints();
+			setAttribute(testContext, SETUP_FINGERPRINTS_ATTRIBUTE, fingerprints);
+		}
+		return fingerprints;
+	}
+
 	private void setupOrTeardown(DbUnitTestContext testContext, boolean isSetup,
 			Collection<AnnotationAttributes> annotations) throws Exception {
 		DatabaseConnections connections = testContext.getConnections();
-		for (AnnotationAttributes annotation : annotations) {
-			List<IDataSet> datasets = loadDataSets(testContext, annotation);
-			DatabaseOperation operation = annotation.getType();
-			org.dbunit.operation.DatabaseOperation dbUnitOperation = getDbUnitDatabaseOperation(testContext, operation);
-			if (!datasets.isEmpty()) {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Executing " + (isSetup ? "Setup" : "Teardown") + " of @DatabaseTest using "
-							+ operation + " on " + datasets.toString());
+		SetupTransaction transaction = (isSingleTransaction(testContext) ? new SetupTransaction() : null);
+		try {
+			for (AnnotationAttributes annotation : annotations) {
+				if (!isSetup) {
+					getSetupFingerprints(testContext).changed(connections.getName(annotation.getConnection()));
 				}
-				IDatabaseConnection connection = connections.get(annotation.getConnection());
-				IDataSet dataSet = new CompositeDataSet(datasets.toArray(new IDataSet[datasets.size()]));
-				dbUnitOperation.execute(connection, dataSet);
+				if (transaction != null) {
+					transaction.join(connections.get(annotation.getConnection()));
+				}
+				setupOrTeardown(testContext, isSetup, annotation, loadDataSets(testContext, annotation));
+			}
+			if (transaction != null) {
+				transaction.commit();
+			}
+		} finally {
+			if (transaction != null) {
+				transaction.end();
+			}
+		}
+	}
+
+	private boolean isSingleTransaction(DbUnitTestContext testContext) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		return (configuration != null) && configuration.singleTransaction()
+				&& (getSavepointIsolation(testContext) == null)
+				&& !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	private void setupOrTeardown(DbUnitTestContext testContext, boolean isSetup, AnnotationAttributes annotation,
+			List<IDataSet> datasets) throws Exception {
+		DatabaseOperation operation = annotation.getType();
+		org.dbunit.operation.DatabaseOperation dbUnitOperation = getDbUnitDatabaseOperation(testContext, operation);
+		if (!datasets.isEmpty()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing " + (isSetup ? "Setup" : "Teardown") + " of @DatabaseTest using " + operation
+						+ " on " + datasets.toString());
+			}
+			IDatabaseConnection connection = testContext.getConnections().get(annotation.getConnection());
+			IDataSet dataSet = new CompositeDataSet(datasets.toArray(new IDataSet[datasets.size()]));
+			Collection<String> tableNames = getTableNames(annotation, dataSet);
+			if (isSetup && (tableNames != null)) {
+				getSetupTableNames(testContext).put(Arrays.asList(annotation.getValue()), tableNames);
+			}
+			awaitTearDowns(testContext, tableNames);
+			dbUnitOperation.execute(connection, dataSet);
+		}
+	}
+
+	private void awaitTearDowns(DbUnitTestContext testContext, Collection<String> tableNames) throws Exception {
+		AsyncTearDown asyncTearDown = (AsyncTearDown) getAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE);
+		if (asyncTearDown != null) {
+			asyncTearDown.await(tableNames);
+		}
+	}
+
+	private boolean isAsyncTearDown(DbUnitTestContext testContext, Collection<AnnotationAttributes> teardowns) {
+		DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+		return (configuration != null) && configuration.asyncTearDown() && !teardowns.isEmpty()
+				&& (testContext instanceof StatefulDbUnitTestContext) && (getSavepointIsolation(testContext) == null)
+				&& !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	private void tearDownAsync(DbUnitTestContext testContext, Collection<AnnotationAttributes> teardowns)
+			throws Exception {
+		final DatabaseConnections connections = testContext.getConnections();
+		final List<org.dbunit.operation.DatabaseOperation> operations;
+		operations = new ArrayList<org.dbunit.operation.DatabaseOperation>();
+		final List<IDatabaseConnection> operationConnections = new ArrayList<IDatabaseConnection>();
+		final List<IDataSet> dataSets = new ArrayList<IDataSet>();
+		Set<String> tableNames = new HashSet<String>();
+		for (AnnotationAttributes annotation : teardowns) {
+			getSetupFingerprints(testContext).changed(connections.getName(annotation.getConnection()));
+			List<IDataSet> datasets = loadDataSets(testContext, annotation);
+			IDataSet dataSet = new CompositeDataSet(datasets.toArray(new IDataSet[datasets.size()]));
+			Collection<String> annotationTableNames = getTableNames(annotation, dataSet);
+			if ((tableNames != null) && (annotationTableNames != null)) {
+				tableNames.addAll(annotationTableNames);
+			} else {
+				tableNames = null;
 			}
+			operations.add(getDbUnitDatabaseOperation(testContext, annotation.getType()));
+			operationConnections.add(connections.get(annotation.getConnection()));
+			dataSets.add(dataSet);
+		}
+		AsyncTearDown asyncTearDown = (AsyncTearDown) getAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE);
+		if (asyncTearDown == null) {
+			asyncTearDown = new AsyncTearDown();
+			setAttribute(testContext, ASYNC_TEAR_DOWN_ATTRIBUTE, asyncTearDown);
 		}
+		String testName = testContext.getTestClass().getName() + "." + testContext.getTestMethod().getName();
+		asyncTearDown.submit(testName, testContext.getTestException() == null, tableNames, new Callable<Void>() {
+
+			public Void call() throws Exception {
+				try {
+					for (int i = 0; i < operations.size(); i++) {
+						operations.get(i).execute(operationConnections.get(i), dataSets.get(i));
+					}
+				} finally {
+					connections.closeAll();
+				}
+				return null;
+			}
+
+		});
+	}
+
+	private Collection<String> getTableNames(AnnotationAttributes annotation, IDataSet dataSet) throws Exception {
+		return (ObjectUtils.isEmpty(annotation.getValue()) ? null : Arrays.asList(dataSet.getTableNames()));
 	}
 
 	private List<IDataSet> loadDataSets(DbUnitTestContext testContext, AnnotationAttributes annotation)
@@ -199,14 +933,16 @@ public class DbUnitRunner {
 
 	private IDataSet getFullDatabaseDataSet(DbUnitTestContext testContext, String name) throws Exception {
 		IDatabaseConnection connection = testContext.getConnections().get(name);
-		return connection.createDataSet();
+		return DatabaseSnapshots.exclude(connection.createDataSet());
 	}
 
 	private IDataSet loadDataset(DbUnitTestContext testContext, String dataSetLocation, DataSetModifier modifier)
 			throws Exception {
 		DataSetLoader dataSetLoader = testContext.getDataSetLoader();
 		if (StringUtils.hasLength(dataSetLocation)) {
-			IDataSet dataSet = dataSetLoader.loadDataSet(testContext.getTestClass(), dataSetLocation);
+			DataSetPrefetcher prefetcher = getDataSetPrefetcher(testContext);
+			IDataSet dataSet = (prefetcher != null ? prefetcher.load(dataSetLoader, dataSetLocation)
+					: dataSetLoader.loadDataSet(testContext.getTestClass(), dataSetLocation));
 			dataSet = modifier.modify(dataSet);
 			Assert.notNull(dataSet,
 					"Unable to load dataset from \"" + dataSetLocation + "\" using " + dataSetLoader.getClass());
@@ -215,11 +951,37 @@ public class DbUnitRunner {
 		return null;
 	}
 
-	private List<IColumnFilter> getColumnFilters(ExpectedDatabase annotation) throws Exception {
-		Class<? extends IColumnFilter>[] columnFilterClasses = annotation.columnFilters();
-		List<IColumnFilter> columnFilters = new LinkedList<IColumnFilter>();
-		for (Class<? extends IColumnFilter> columnFilterClass : columnFilterClasses) {
-			columnFilters.add(columnFilterClass.newInstance());
+	/**
+	 * Returns instances of the column filters of the annotation. Instances are shared by the tests of a class.
+	 */
+	private List<IColumnFilter> getColumnFilters(DbUnitTestContext testContext, ExpectedDatabase annotation)
+			throws Exception {
+		List<Class<? extends IColumnFilter>> columnFilterClasses = Arrays.asList(annotation.columnFilters());
+		Map<List<?>, List<IColumnFilter>> columnFilters = getColumnFilters(testContext);
+		List<IColumnFilter> filters = (columnFilters == null ? null : columnFilters.get(columnFilterClasses));
+		if (filters == null) {
+			filters = new ArrayList<IColumnFilter>();
+			for (Class<? extends IColumnFilter> columnFilterClass : columnFilterClasses) {
+				filters.add(columnFilterClass.newInstance());
+			}
+			filters = Collections.unmodifiableList(filters);
+			if (columnFilters != null) {
+				columnFilters.put(columnFilterClasses, filters);
+			}
+		}
+		return filters;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<List<?>, List<IColumnFilter>> getColumnFilters(DbUnitTestContext testContext) {
+		if (!(testContext instanceof StatefulDbUnitTestContext)) {
+			return null;
+		}
+		Map<List<?>, List<IColumnFilter>> columnFilters = (Map<List<?>, List<IColumnFilter>>) getAttribute(
+				testContext, COLUMN_FILTERS_ATTRIBUTE);
+		if (columnFilters == null) {
+			columnFilters = new HashMap<List<?>, List<IColumnFilter>>();
+			setAttribute(testContext, COLUMN_FILTERS_ATTRIBUTE, columnFilters);
 		}
 		return columnFilters;
 	}
@@ -240,6 +1002,8 @@ public class DbUnitRunner {
 
 		private final String connection;
 
+		private final ExecutionScope scope;
+
 		public AnnotationAttributes(Annotation annotation) {
 			Assert.state((annotation instanceof DatabaseSetup) || (annotation instanceof DatabaseTearDown),
 					"Only DatabaseSetup and DatabaseTearDown annotations are supported");
@@ -247,6 +1011,7 @@ public class DbUnitRunner {
 			this.type = (DatabaseOperation) attributes.get("type");
 			this.value = (String[]) attributes.get("value");
 			this.connection = (String) attributes.get("connection");
+			this.scope = (ExecutionScope) attributes.get("scope");
 		}
 
 		public DatabaseOperation getType() {
@@ -261,7 +1026,11 @@ public class DbUnitRunner {
 			return this.connection;
 		}
 
-		public static <T extends Annotation> Collection<AnnotationAttributes> get(Annotations<T> annotations) {
+		public ExecutionScope getScope() {
+			return this.scope;
+		}
+
+		public static <T extends Annotation> Collection<AnnotationAttributes> get(Iterable<T> annotations) {
 			List<AnnotationAttributes> annotationAttributes = new ArrayList<AnnotationAttributes>();
 			for (T annotation : annotations) {
 				annotationAttributes.add(new AnnotationAttributes(annotation));
@@ -280,8 +1049,14 @@ public class DbUnitRunner {
 		private final List<T> allAnnotations;
 
 		public Annotations(DbUnitTestContext context, Class<? extends Annotation> container, Class<T> annotation) {
-			this.classAnnotations = getAnnotations(context.getTestClass(), container, annotation);
-			this.methodAnnotations = getAnnotations(context.getTestMethod(), container, annotation);
+			this(context.getTestClass(), context.getTestMethod(), container, annotation);
+		}
+
+		public Annotations(Class<?> testClass, Method testMethod, Class<? extends Annotation> container,
+				Class<T> annotation) {
+			this.classAnnotations = getAnnotations(testClass, container, annotation);
+			this.methodAnnotations = (testMethod == null ? Collections.<T> emptyList()
+					: getAnnotations(testMethod, container, annotation));
 			List<T> allAnnotations = new ArrayList<T>(this.classAnnotations.size() + this.methodAnnotations.size());
 			allAnnotations.addAll(this.classAnnotations);
 			allAnnotations.addAll(this.methodAnnotations);
@@ -18,17 +18,21 @@ package com.github.springtestdbunit;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbunit.database.IDatabaseConnection;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.Conventions;
 import org.springframework.test.context.TestContext;
 import org.springframework.test.context.support.AbstractTestExecutionListener;
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
@@ -71,6 +75,8 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 
 	private static final String DATA_SET_LOADER_BEAN_NAME = "dbUnitDataSetLoader";
 
+	private static final String TRANSACTION_MANAGER_BEAN_NAME = "transactionManager";
+
 	protected static final String CONNECTION_ATTRIBUTE = Conventions
 			.getQualifiedAttributeName(DbUnitTestExecutionListener.class, "connection");
 
@@ -80,6 +86,9 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 	protected static final String DATABASE_OPERATION_LOOKUP_ATTRIBUTE = Conventions
 			.getQualifiedAttributeName(DbUnitTestExecutionListener.class, "databseOperationLookup");
 
+	protected static final String TRANSACTION_MANAGER_ATTRIBUTE = Conventions
+			.getQualifiedAttributeName(DbUnitTestExecutionListener.class, "transactionManager");
+
 	private static DbUnitRunner runner = new DbUnitRunner();
 
 	@Override
@@ -124,7 +133,8 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 					+ "\", datasets will be loaded using " + (StringUtils.hasLength(dataSetLoaderBeanName)
 							? "'" + dataSetLoaderBeanName + "'" : dataSetLoaderClass));
 		}
-		prepareDatabaseConnection(testContext, databaseConnectionBeanNames);
+		prepareDatabaseConnection(testContext, databaseConnectionBeanNames,
+				(configuration != null) && configuration.asyncTearDown());
 		prepareDataSetLoader(testContext, dataSetLoaderBeanName, dataSetLoaderClass);
 		prepareDatabaseOperationLookup(testContext, databaseOperationLookupClass);
 	}
@@ -140,11 +150,12 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 						+ Arrays.asList(COMMON_DATABASE_CONNECTION_BEAN_NAMES));
 	}
 
-	private void prepareDatabaseConnection(DbUnitTestContextAdapter testContext, String[] connectionBeanNames)
-			throws Exception {
+	private void prepareDatabaseConnection(DbUnitTestContextAdapter testContext, String[] connectionBeanNames,
+			boolean newConnections) throws Exception {
 		IDatabaseConnection[] connections = new IDatabaseConnection[connectionBeanNames.length];
 		for (int i = 0; i < connectionBeanNames.length; i++) {
-			Object databaseConnection = testContext.getApplicationContext().getBean(connectionBeanNames[i]);
+			Object databaseConnection = (newConnections ? getNewDatabaseConnection(testContext, connectionBeanNames[i])
+					: testContext.getApplicationContext().getBean(connectionBeanNames[i]));
 			if (databaseConnection instanceof DataSource) {
 				databaseConnection = DatabaseDataSourceConnectionFactoryBean
 						.newConnection((DataSource) databaseConnection);
@@ -155,6 +166,20 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 		testContext.setAttribute(CONNECTION_ATTRIBUTE, new DatabaseConnections(connectionBeanNames, connections));
 	}
 
+	private Object getNewDatabaseConnection(DbUnitTestContextAdapter testContext, String beanName)
+			throws Exception {
+		ApplicationContext applicationContext = testContext.getApplicationContext();
+		String factoryBeanName = BeanFactory.FACTORY_BEAN_PREFIX + beanName;
+		if (applicationContext.containsBean(factoryBeanName)
+				&& (applicationContext.getBean(factoryBeanName) instanceof DatabaseDataSourceConnectionFactoryBean)) {
+			return ((DatabaseDataSourceConnectionFactoryBean) applicationContext.getBean(factoryBeanName)).getObject();
+		}
+		Object databaseConnection = applicationContext.getBean(beanName);
+		Assert.state(databaseConnection instanceof DataSource, "Asynchronous teardown requires the connection bean \""
+				+ beanName + "\" to be a DataSource or a DatabaseDataSourceConnectionFactoryBean");
+		return databaseConnection;
+	}
+
 	private void prepareDataSetLoader(DbUnitTestContextAdapter testContext, String beanName,
 			Class<? extends DataSetLoader> dataSetLoaderClass) {
 		if (StringUtils.hasLength(beanName)) {
@@ -180,6 +205,29 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 		}
 	}
 
+	private void prepareTransactionManager(DbUnitTestContextAdapter testContext) {
+		ApplicationContext applicationContext = testContext.getApplicationContext();
+		Map<String, PlatformTransactionManager> transactionManagers = BeanFactoryUtils
+				.beansOfTypeIncludingAncestors(applicationContext, PlatformTransactionManager.class);
+		PlatformTransactionManager transactionManager = (transactionManagers.size() == 1
+				? transactionManagers.values().iterator().next()
+				: applicationContext.getBean(TRANSACTION_MANAGER_BEAN_NAME, PlatformTransactionManager.class));
+		testContext.setAttribute(TRANSACTION_MANAGER_ATTRIBUTE, transactionManager);
+	}
+
+	@Override
+	public void beforeTestClass(TestContext testContext) throws Exception {
+		DbUnitTestContextAdapter dbUnitTestContext = new DbUnitTestContextAdapter(testContext);
+		if (runner.isClassLevel(dbUnitTestContext)) {
+			prepareTestInstance(dbUnitTestContext);
+			DbUnitConfiguration configuration = testContext.getTestClass().getAnnotation(DbUnitConfiguration.class);
+			if ((configuration != null) && configuration.savepointIsolation()) {
+				prepareTransactionManager(dbUnitTestContext);
+			}
+			runner.beforeTestClass(dbUnitTestContext);
+		}
+	}
+
 	@Override
 	public void beforeTestMethod(TestContext testContext) throws Exception {
 		runner.beforeTestMethod(new DbUnitTestContextAdapter(testContext));
@@ -190,11 +238,23 @@ public class DbUnitTestExecutionListener extends AbstractTestExecutionListener {
 		runner.afterTestMethod(new DbUnitTestContextAdapter(testContext));
 	}
 
+	@Override
+	public void afterTestClass(TestContext testContext) throws Exception {
+		DbUnitTestContextAdapter dbUnitTestContext = new DbUnitTestContextAdapter(testContext);
+		try {
+			runner.awaitAsyncTearDowns(dbUnitTestContext);
+		} finally {
+			if (runner.isClassLevel(dbUnitTestContext)) {
+				runner.afterTestClass(dbUnitTestContext);
+			}
+		}
+	}
+
 	/**
-	 * Adapter class to convert Spring's {@link TestContext} to a {@link DbUnitTestContext}. Since Spring 4.0 change the
-	 * TestContext class from a class to an interface this method uses reflection.
+	 * Adapter class to convert Spring's {@link TestContext} to a {@link StatefulDbUnitTestContext}. Since Spring 4.0
+	 * change the TestContext class from a class to an interface this method uses reflection.
 	 */
-	private static class DbUnitTestContextAdapter implements DbUnitTestContext {
+	private static class DbUnitTestContextAdapter implements StatefulDbUnitTestContext {
 
 		private static final Method GET_TEST_CLASS;
 		private static final Method GET_TEST_INSTANCE;
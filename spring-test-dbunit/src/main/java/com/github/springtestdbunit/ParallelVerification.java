@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+/**
+ * Runs {@link com.github.springtestdbunit.annotation.ExpectedDatabase &#064;ExpectedDatabase} verifications on a
+ * bounded number of background threads. Verifications may submit further work while they run, all of it is waited for
+ * by {@link #await()} and any failures are reported together. Work submitted with a {@link Semaphore} of pending
+ * permits runs in the calling thread when no permit is available, which limits the number of fetched tables waiting to
+ * be compared without any thread waiting for another.
+ *
+ * @see DbUnitConfiguration#parallelVerification()
+ */
+class ParallelVerification {
+
+	/**
+	 * The maximum number of fetched tables of a connection that wait for or run a background comparison.
+	 */
+	static final int MAX_PENDING_TABLES = 2;
+
+	private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static ExecutorService executor;
+
+	private final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+	/**
+	 * Submit a verification to run in the background.
+	 * @param verification the verification
+	 */
+	public void submit(Callable<Void> verification) {
+		add(getExecutor().submit(verification));
+	}
+
+	/**
+	 * Submit a verification to run in the background if a pending permit is available, otherwise run it in the
+	 * calling thread. The permit is released when the verification completes. Failures are reported by
+	 * {@link #await()} in either case.
+	 * @param verification the verification
+	 * @param pending the pending permits
+	 */
+	public void submit(final Callable<Void> verification, final Semaphore pending) {
+		if (!pending.tryAcquire()) {
+			FutureTask<Void> task = new FutureTask<Void>(verification);
+			task.run();
+			add(task);
+			return;
+		}
+		try {
+			submit(new Callable<Void>() {
+
+				public Void call() throws Exception {
+					try {
+						return verification.call();
+					} finally {
+						pending.release();
+					}
+				}
+
+			});
+		} catch (RuntimeException ex) {
+			pending.release();
+			throw ex;
+		}
+	}
+
+	private void add(Future<Void> future) {
+		synchronized (this.futures) {
+			this.futures.add(future);
+		}
+	}
+
+	/**
+	 * Wait for all submitted verifications, including those submitted while waiting. A single failure is thrown
+	 * unchanged, several failures are combined into one {@link AssertionError}.
+	 * @throws Exception if a verification failed
+	 */
+	public void await() throws Exception {
+		List<Throwable> failures = new ArrayList<Throwable>();
+		for (int i = 0; i < size(); i++) {
+			try {
+				get(i).get();
+			} catch (ExecutionException ex) {
+				failures.add(ex.getCause());
+			}
+		}
+		if (failures.size() == 1) {
+			throwFailure(failures.get(0));
+		}
+		if (failures.size() > 1) {
+			StringBuilder message = new StringBuilder();
+			message.append(failures.size()).append(" expected database verifications failed");
+			for (Throwable failure : failures) {
+				message.append("\n\t").append(failure);
+			}
+			AssertionError error = new AssertionError(message.toString());
+			error.initCause(failures.get(0));
+			throw error;
+		}
+	}
+
+	private int size() {
+		synchronized (this.futures) {
+			return this.futures.size();
+		}
+	}
+
+	private Future<Void> get(int index) {
+		synchronized (this.futures) {
+			return this.futures.get(index);
+		}
+	}
+
+	private void throwFailure(Throwable failure) throws Exception {
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw (Exception) failure;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dbunit-verification-");
+			threadFactory.setDaemon(true);
+			executor = Executors.newFixedThreadPool(THREADS, threadFactory);
+		}
+		return executor;
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Decorates a forward-only table so that it reports the primary keys of the database table, which are not known
+ * when the table is read using a query.
+ */
+class PrimaryKeyTable implements ITable {
+
+	private final ITable table;
+
+	private final ITableMetaData metaData;
+
+	public PrimaryKeyTable(ITable table, Column[] primaryKeys) throws DataSetException {
+		this.table = table;
+		this.metaData = new DefaultTableMetaData(table.getTableMetaData().getTableName(),
+				table.getTableMetaData().getColumns(), primaryKeys);
+	}
+
+	public ITableMetaData getTableMetaData() {
+		return this.metaData;
+	}
+
+	public int getRowCount() {
+		return this.table.getRowCount();
+	}
+
+	public Object getValue(int row, String column) throws DataSetException {
+		return this.table.getValue(row, column);
+	}
+
+}
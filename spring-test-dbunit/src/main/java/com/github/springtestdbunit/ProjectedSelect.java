@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.dbunit.util.QualifiedTableName;
+import org.springframework.util.StringUtils;
+
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+
+/**
+ * Builds the {@code SELECT} used to read an actual table for a non-strict {@link DatabaseAssertionMode}, fetching only
+ * the columns that will be compared. Rows are ordered by primary key, in the same way as tables that are read in full.
+ */
+class ProjectedSelect {
+
+	/**
+	 * Returns SQL that selects the columns of the expected table that are accepted by all of the column filters, and
+	 * the primary key columns, or {@code null} if the whole table should be read.
+	 * @param connection the database connection
+	 * @param expectedTable the expected table
+	 * @param actualMetaData the metadata of the actual table
+	 * @param columnFilters any column filters to apply
+	 * @return the SQL or {@code null}
+	 * @throws DatabaseUnitException on DBUnit error
+	 * @throws SQLException on SQL error
+	 */
+	public static String get(IDatabaseConnection connection, ITable expectedTable, ITableMetaData actualMetaData,
+			List<IColumnFilter> columnFilters) throws DatabaseUnitException, SQLException {
+		ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+		List<Column> columns = new ArrayList<Column>();
+		for (Column expectedColumn : expectedMetaData.getColumns()) {
+			Column column = Columns.getColumn(expectedColumn.getColumnName(), actualMetaData.getColumns());
+			if ((column != null) && isAccepted(expectedMetaData.getTableName(), expectedColumn, columnFilters)) {
+				columns.add(column);
+			}
+		}
+		if (columns.isEmpty()) {
+			return null;
+		}
+		// Primary keys are always read, they are used to order and match rows even when filtered from the comparison
+		Column[] primaryKeys = actualMetaData.getPrimaryKeys();
+		for (Column primaryKey : primaryKeys) {
+			if (Columns.getColumn(primaryKey.getColumnName(), columns.toArray(new Column[columns.size()])) == null) {
+				columns.add(primaryKey);
+			}
+		}
+		if (columns.size() == actualMetaData.getColumns().length) {
+			return null;
+		}
+		List<String> columnNames = new ArrayList<String>();
+		for (Column column : columns) {
+			columnNames.add(getQualifiedName(connection, null, column.getColumnName()));
+		}
+		StringBuilder sql = new StringBuilder("select ");
+		sql.append(StringUtils.collectionToDelimitedString(columnNames, ", "));
+		String schema = connection.getSchema();
+		sql.append(" from ").append(getQualifiedName(connection, schema, actualMetaData.getTableName()));
+		for (int i = 0; i < primaryKeys.length; i++) {
+			sql.append(i == 0 ? " order by " : ", ");
+			sql.append(getQualifiedName(connection, null, primaryKeys[i].getColumnName()));
+		}
+		return sql.toString();
+	}
+
+	private static boolean isAccepted(String tableName, Column column, List<IColumnFilter> columnFilters) {
+		for (IColumnFilter columnFilter : columnFilters) {
+			if (!columnFilter.accept(tableName, column)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String getQualifiedName(IDatabaseConnection connection, String prefix, String name) {
+		String escapePattern = (String) connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+		return new QualifiedTableName(name, prefix, escapePattern).getQualifiedName();
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.Assert;
+
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+/**
+ * Holds the long-lived transaction used to isolate test methods with JDBC savepoints.
+ *
+ * @see DbUnitConfiguration#savepointIsolation()
+ */
+class SavepointIsolation {
+
+	private final PlatformTransactionManager transactionManager;
+
+	private final TransactionStatus transaction;
+
+	private final List<Connection> connections = new ArrayList<Connection>();
+
+	private final List<Savepoint> savepoints = new ArrayList<Savepoint>();
+
+	/**
+	 * Create a new {@link SavepointIsolation} instance, starting a new transaction.
+	 * @param transactionManager the transaction manager
+	 */
+	public SavepointIsolation(PlatformTransactionManager transactionManager) {
+		this.transactionManager = transactionManager;
+		this.transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+	}
+
+	/**
+	 * Set a savepoint on each of the specified connections.
+	 * @param connections the connections
+	 * @throws SQLException on database error
+	 */
+	public void savepoint(DatabaseConnections connections) throws SQLException {
+		for (IDatabaseConnection connection : connections.getAll()) {
+			Connection jdbcConnection = connection.getConnection();
+			Assert.state(!jdbcConnection.getAutoCommit(),
+					"Unable to use savepoint isolation with a connection that does not participate in the transaction");
+			this.savepoints.add(jdbcConnection.setSavepoint());
+			this.connections.add(jdbcConnection);
+		}
+	}
+
+	/**
+	 * Rollback all connections to the last {@link #savepoint(DatabaseConnections) savepoint}.
+	 * @throws SQLException on database error
+	 */
+	public void rollback() throws SQLException {
+		try {
+			for (int i = this.connections.size() - 1; i >= 0; i--) {
+				this.connections.get(i).rollback(this.savepoints.get(i));
+			}
+		} finally {
+			this.connections.clear();
+			this.savepoints.clear();
+		}
+	}
+
+	/**
+	 * End the transaction, rolling back all changes.
+	 */
+	public void end() {
+		this.transactionManager.rollback(this.transaction);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseUnchanged;
+
+/**
+ * Records a fingerprint of the {@link DatabaseSetup &#064;DatabaseSetup} last applied to each connection, along with
+ * a signal indicating if the database has remained unchanged since.
+ *
+ * @see DatabaseUnchanged
+ */
+class SetupFingerprints {
+
+	private final Map<String, String> fingerprints = new HashMap<String, String>();
+
+	/**
+	 * Determine if the setup with the given fingerprint has been applied to the connection and the database has been
+	 * unchanged since.
+	 * @param connection the connection name
+	 * @param fingerprint the setup fingerprint
+	 * @return {@code true} if the setup is still applied
+	 */
+	public boolean isApplied(String connection, String fingerprint) {
+		return fingerprint.equals(this.fingerprints.get(connection));
+	}
+
+	/**
+	 * Record that the setup with the given fingerprint has been applied to the connection.
+	 * @param connection the connection name
+	 * @param fingerprint the setup fingerprint
+	 */
+	public void applied(String connection, String fingerprint) {
+		this.fingerprints.put(connection, fingerprint);
+	}
+
+	/**
+	 * Signal that the database behind the specified connection has changed.
+	 * @param connection the connection name
+	 */
+	public void changed(String connection) {
+		this.fingerprints.remove(connection);
+	}
+
+	/**
+	 * Signal that the databases behind all connections may have changed.
+	 */
+	public void changed() {
+		this.fingerprints.clear();
+	}
+
+}
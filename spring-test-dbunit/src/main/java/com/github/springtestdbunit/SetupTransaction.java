@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.database.IDatabaseConnection;
+
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+/**
+ * Applies all setup or teardown operations of a test in a single local transaction on each connection, committing
+ * once when every operation has succeeded.
+ *
+ * @see DbUnitConfiguration#singleTransaction()
+ */
+class SetupTransaction {
+
+	private static final Log logger = LogFactory.getLog(SetupTransaction.class);
+
+	private final List<Connection> connections = new ArrayList<Connection>();
+
+	private final List<Boolean> autoCommits = new ArrayList<Boolean>();
+
+	private boolean committed;
+
+	/**
+	 * Include the specified connection in the transaction, disabling auto-commit if necessary.
+	 * @param connection the connection
+	 * @throws SQLException on database error
+	 */
+	public void join(IDatabaseConnection connection) throws SQLException {
+		Connection jdbcConnection = connection.getConnection();
+		if (!this.connections.contains(jdbcConnection)) {
+			boolean autoCommit = jdbcConnection.getAutoCommit();
+			if (autoCommit) {
+				jdbcConnection.setAutoCommit(false);
+			}
+			this.connections.add(jdbcConnection);
+			this.autoCommits.add(autoCommit);
+		}
+	}
+
+	/**
+	 * Commit all connections.
+	 * @throws SQLException on database error
+	 */
+	public void commit() throws SQLException {
+		for (Connection connection : this.connections) {
+			connection.commit();
+		}
+		this.committed = true;
+	}
+
+	/**
+	 * End the transaction, rolling back all connections if it was not {@link #commit() committed} and restoring
+	 * their original auto-commit setting.
+	 * @throws SQLException on database error
+	 */
+	public void end() throws SQLException {
+		try {
+			if (!this.committed) {
+				rollback();
+			}
+		} finally {
+			for (int i = 0; i < this.connections.size(); i++) {
+				if (this.autoCommits.get(i)) {
+					this.connections.get(i).setAutoCommit(true);
+				}
+			}
+			this.connections.clear();
+			this.autoCommits.clear();
+		}
+	}
+
+	private void rollback() {
+		for (Connection connection : this.connections) {
+			try {
+				connection.rollback();
+			} catch (SQLException ex) {
+				logger.warn("Unable to rollback setup transaction", ex);
+			}
+		}
+	}
+
+}
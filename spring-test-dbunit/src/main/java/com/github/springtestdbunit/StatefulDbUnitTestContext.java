@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+/**
+ * A {@link DbUnitTestContext} that can retain state between the tests of a test class. Features that need to
+ * remember earlier tests, such as skipping unchanged setups or savepoint isolation, are only available when the
+ * {@link DbUnitRunner} is given a context that implements this interface.
+ */
+public interface StatefulDbUnitTestContext extends DbUnitTestContext {
+
+	/**
+	 * Returns the attribute with the specified name or <tt>null</tt> if no such attribute has been set. Attributes are
+	 * retained for all tests in the same test class.
+	 * @param name the attribute name
+	 * @return the attribute value or <tt>null</tt>
+	 */
+	Object getAttribute(String name);
+
+	/**
+	 * Sets the attribute with the specified name. Attributes are retained for all tests in the same test class.
+	 * @param name the attribute name
+	 * @param value the attribute value
+	 */
+	void setAttribute(String name, Object value);
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseTableIterator;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IMetadataHandler;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+
+/**
+ * An {@link org.dbunit.dataset.IDataSet} containing only the named database tables. Unlike the data set returned from
+ * {@link IDatabaseConnection#createDataSet()} the schema is never enumerated and metadata is only fetched when a table
+ * is first used.
+ */
+class TargetedDataSet extends AbstractDataSet {
+
+	private final IDatabaseConnection connection;
+
+	private final String[] tableNames;
+
+	private final Map<String, ITableMetaData> metaData = new TreeMap<String, ITableMetaData>(
+			String.CASE_INSENSITIVE_ORDER);
+
+	public TargetedDataSet(IDatabaseConnection connection, String[] tableNames) {
+		super(false);
+		this.connection = connection;
+		this.tableNames = tableNames;
+	}
+
+	@Override
+	protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+		String[] names = new String[this.tableNames.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = this.tableNames[reversed ? names.length - 1 - i : i];
+		}
+		return new DatabaseTableIterator(names, this);
+	}
+
+	@Override
+	public String[] getTableNames() throws DataSetException {
+		return this.tableNames.clone();
+	}
+
+	@Override
+	public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+		ITableMetaData tableMetaData = this.metaData.get(tableName);
+		if (tableMetaData == null) {
+			try {
+				tableMetaData = createTableMetaData(tableName);
+			} catch (SQLException ex) {
+				throw new DataSetException(ex);
+			}
+			this.metaData.put(tableName, tableMetaData);
+		}
+		return tableMetaData;
+	}
+
+	private ITableMetaData createTableMetaData(String tableName) throws DataSetException, SQLException {
+		if (!contains(tableName)) {
+			throw new NoSuchTableException(tableName);
+		}
+		DatabaseConfig config = this.connection.getConfig();
+		Connection jdbcConnection = this.connection.getConnection();
+		QualifiedTableName qualifiedTableName = new QualifiedTableName(
+				SQLHelper.correctCase(tableName, jdbcConnection), this.connection.getSchema(),
+				(String) config.getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN));
+		String schema = qualifiedTableName.getSchema();
+		String table = qualifiedTableName.getTable();
+		IMetadataHandler metadataHandler = (IMetadataHandler) config
+				.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
+		DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
+		if (!metadataHandler.tableExists(databaseMetaData, schema, table)) {
+			throw new NoSuchTableException(tableName);
+		}
+		String sql = "select * from " + qualifiedTableName.getQualifiedName() + " where 1 = 0";
+		Column[] columns = this.connection.createQueryTable(tableName, sql).getTableMetaData().getColumns();
+		IColumnFilter primaryKeyFilter = (IColumnFilter) config.getProperty(DatabaseConfig.PROPERTY_PRIMARY_KEY_FILTER);
+		if (primaryKeyFilter != null) {
+			return new DefaultTableMetaData(tableName, columns, Columns.getColumns(tableName, columns,
+					primaryKeyFilter));
+		}
+		SortedMap<Short, String> primaryKeys = new TreeMap<Short, String>();
+		ResultSet resultSet = metadataHandler.getPrimaryKeys(databaseMetaData, schema, table);
+		try {
+			while (resultSet.next()) {
+				primaryKeys.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+			}
+		} finally {
+			resultSet.close();
+		}
+		return new DefaultTableMetaData(tableName, columns,
+				primaryKeys.values().toArray(new String[primaryKeys.size()]));
+	}
+
+	private boolean contains(String tableName) {
+		for (String candidate : this.tableNames) {
+			if (candidate.equalsIgnoreCase(tableName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public ITable getTable(String tableName) throws DataSetException {
+		ITableMetaData tableMetaData = getTableMetaData(tableName);
+		IResultSetTableFactory factory = (IResultSetTableFactory) this.connection.getConfig()
+				.getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+		try {
+			return factory.createTable(tableMetaData, this.connection);
+		} catch (SQLException ex) {
+			throw new DataSetException(ex);
+		}
+	}
+
+}
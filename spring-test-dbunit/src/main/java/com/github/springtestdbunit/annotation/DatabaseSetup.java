@@ -30,7 +30,8 @@ import com.github.springtestdbunit.DbUnitTestExecutionListener;
 
 /**
  * Test annotation which indicates how to put a database into a know state before tests are run. This annotation can be
- * placed on a class or on methods. When placed on a class the setup is applied before each test methods is executed.
+ * placed on a class or on methods. When placed on a class the setup is applied before each test methods is executed,
+ * unless a {@link #scope() CLASS scope} is used.
  *
  * @see DatabaseTearDown
  * @see ExpectedDatabase
@@ -68,4 +69,11 @@ public @interface DatabaseSetup {
 	 */
 	String[] value() default {};
 
+	/**
+	 * Determines if a class level annotation is applied before each test method or only once for the test class.
+	 * Annotations on methods must use {@link ExecutionScope#METHOD}.
+	 * @return the execution scope
+	 */
+	ExecutionScope scope() default ExecutionScope.METHOD;
+
 }
@@ -28,7 +28,8 @@ import com.github.springtestdbunit.DbUnitTestExecutionListener;
 
 /**
  * Test annotation which indicates how to put a database into a know state after tests have run. This annotation can be
- * placed on a class or on methods. When placed on a class the setup is applied after each test methods is executed.
+ * placed on a class or on methods. When placed on a class the setup is applied after each test methods is executed,
+ * unless a {@link #scope() CLASS scope} is used.
  *
  * @see DatabaseSetup
  * @see ExpectedDatabase
@@ -65,4 +66,11 @@ public @interface DatabaseTearDown {
 	 */
 	String[] value() default {};
 
+	/**
+	 * Determines if a class level annotation is applied after each test method or only once for the test class.
+	 * Annotations on methods must use {@link ExecutionScope#METHOD}.
+	 * @return the execution scope
+	 */
+	ExecutionScope scope() default ExecutionScope.METHOD;
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+
+/**
+ * Test annotation which indicates that a test leaves the database unchanged, either because it is read-only or because
+ * any changes that it makes are rolled back before the test completes. This annotation can be placed on a class or on
+ * methods.
+ * <p>
+ * When a test is marked as unchanged an identical {@link DatabaseSetup &#064;DatabaseSetup} on the test that follows
+ * is skipped, since applying it again would not alter the database. Setups are only skipped when they were committed
+ * outside of a transaction and do not use {@link DatabaseOperation#INSERT INSERT} operations. Any
+ * {@link DatabaseTearDown &#064;DatabaseTearDown} will always cause the next setup to run.
+ *
+ * @see DatabaseSetup
+ * @see DbUnitTestExecutionListener
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface DatabaseUnchanged {
+
+}
@@ -29,6 +29,7 @@ import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.IDataSet;
 
 import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
 import com.github.springtestdbunit.dataset.DataSetLoader;
 import com.github.springtestdbunit.dataset.FlatXmlDataSetLoader;
 import com.github.springtestdbunit.operation.DatabaseOperationLookup;
@@ -75,4 +76,107 @@ public @interface DbUnitConfiguration {
 	 */
 	Class<? extends DatabaseOperationLookup> databaseOperationLookup() default DefaultDatabaseOperationLookup.class;
 
+	/**
+	 * Returns if database snapshots should be used to speed up {@link DatabaseSetup &#064;DatabaseSetup}. When enabled
+	 * the result of a setup is copied into shadow tables the first time it is applied and later tests with the same
+	 * setup restore the shadow tables rather than reloading the datasets. Snapshots are supported on databases whose
+	 * {@link com.github.springtestdbunit.dialect.DatabaseDialect dialect} can create a table from a query, HSQLDB and
+	 * H2, and are only used for setups performed outside of a transaction that use
+	 * {@link DatabaseOperation#CLEAN_INSERT CLEAN_INSERT}, {@link DatabaseOperation#DELETE_ALL DELETE_ALL} or
+	 * {@link DatabaseOperation#TRUNCATE_TABLE TRUNCATE_TABLE} with explicit datasets.
+	 * @return if setup snapshots are used
+	 */
+	boolean setupSnapshots() default false;
+
+	/**
+	 * Returns if test methods should be isolated using JDBC savepoints. When enabled a transaction is started before
+	 * the test class runs and class level {@link DatabaseSetup &#064;DatabaseSetup} annotations are applied only once.
+	 * Each test method then rolls back to a savepoint taken before it ran, rather than re-applying the setup. Class
+	 * level {@link DatabaseTearDown &#064;DatabaseTearDown} annotations run once the transaction has been rolled back
+	 * after the last test.
+	 * <p>
+	 * The transaction is obtained from the {@link org.springframework.transaction.PlatformTransactionManager
+	 * PlatformTransactionManager} in the application context and all database connections must participate in it.
+	 * Note that the rollback happens at the JDBC level so any ORM session state must be flushed or cleared by the
+	 * tests themselves.
+	 * @return if savepoint isolation is used
+	 */
+	boolean savepointIsolation() default false;
+
+	/**
+	 * Returns if method level {@link DatabaseTearDown &#064;DatabaseTearDown} annotations should run on a background
+	 * thread, overlapping with the next test. Later setups and teardowns wait for a pending teardown only when they
+	 * touch the same tables, the next test waits for the teardowns that touch the tables of its setup and expected
+	 * datasets. A teardown failure is thrown before the next test runs, or once the test class has finished, with a
+	 * message naming the test that caused it.
+	 * <p>
+	 * Asynchronous teardown requires each test to have its own connections, so connection beans must be a
+	 * {@link DataSource} or a {@link com.github.springtestdbunit.bean.DatabaseDataSourceConnectionFactoryBean}.
+	 * Teardowns that run inside a transaction or with {@link #savepointIsolation() savepoint isolation} are always
+	 * synchronous.
+	 * @return if teardown is asynchronous
+	 */
+	boolean asyncTearDown() default false;
+
+	/**
+	 * Returns if datasets should be loaded on a background thread ahead of the tests that need them. When enabled the
+	 * {@link ExpectedDatabase &#064;ExpectedDatabase} and {@link DatabaseTearDown &#064;DatabaseTearDown} datasets of
+	 * the current test and the {@link DatabaseSetup &#064;DatabaseSetup} datasets of the next test (in JUnit method
+	 * order) are loaded while the current test runs. Dataset modifiers are still applied on the test thread. The
+	 * {@link DataSetLoader} must be safe to call from another thread.
+	 * @return if datasets are prefetched
+	 */
+	boolean prefetchDataSets() default false;
+
+	/**
+	 * Returns if the {@link DatabaseSetup &#064;DatabaseSetup} or {@link DatabaseTearDown &#064;DatabaseTearDown}
+	 * operations of a test should run in a single transaction on each connection. When enabled auto-commit is turned
+	 * off while the operations run and each connection is committed once they have all succeeded, or rolled back if any
+	 * of them fails. Operations that run inside a Spring managed transaction or with {@link #savepointIsolation()
+	 * savepoint isolation} already share a transaction and are not affected.
+	 * @return if setup and teardown operations use a single transaction
+	 */
+	boolean singleTransaction() default false;
+
+	/**
+	 * Returns if {@link ExpectedDatabase &#064;ExpectedDatabase} verifications should run in parallel. When enabled the
+	 * expectations of each connection are verified on a separate thread and, for non-strict
+	 * {@link com.github.springtestdbunit.assertion.DatabaseAssertionMode assertion modes}, each table is compared on a
+	 * background thread while the next table is fetched. All failures are reported together once every verification
+	 * has finished. Verifications that run inside a transaction or with {@link #savepointIsolation() savepoint
+	 * isolation} are always sequential since other threads could not see uncommitted data.
+	 * @return if expectations are verified in parallel
+	 */
+	boolean parallelVerification() default false;
+
+	/**
+	 * Returns if non-strict {@link ExpectedDatabase &#064;ExpectedDatabase} verifications should skip tables that the
+	 * test did not write to. Connections must be obtained from a
+	 * {@link com.github.springtestdbunit.bean.ChangeTrackingDataSource ChangeTrackingDataSource}, which records the
+	 * tables written by each statement. A table that matched the same expected table after the same repeatable
+	 * {@link DatabaseSetup &#064;DatabaseSetup} and has not been written since is only checked by comparing its row
+	 * count. Writes that bypass the data source are only detected if they change the row count. Tables are always
+	 * fully verified inside a transaction or with {@link #savepointIsolation() savepoint isolation}.
+	 * @return if change tracking is used to skip unchanged tables
+	 */
+	boolean changeTracking() default false;
+
+	/**
+	 * Returns the maximum number of differences included in the failure message of an
+	 * {@link ExpectedDatabase &#064;ExpectedDatabase} verification. Every
+	 * {@link com.github.springtestdbunit.assertion.DatabaseAssertionMode assertion mode} collects all differences of
+	 * a table in a single run. When there are more differences than this, all of them are written to a report file in
+	 * the {@link #differenceReportDirectory() difference report directory} and the message names the file. Must not be
+	 * negative.
+	 * @return the maximum number of differences in a failure message
+	 */
+	int maxReportedDifferences() default DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES;
+
+	/**
+	 * Returns the directory that difference reports are written to. If not specified the temporary directory is used.
+	 * @return the difference report directory
+	 * @see #maxReportedDifferences()
+	 */
+	String differenceReportDirectory() default "";
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.annotation;
+
+/**
+ * Scopes that control how often a class level {@link DatabaseSetup &#064;DatabaseSetup} or {@link DatabaseTearDown
+ * &#064;DatabaseTearDown} is applied.
+ *
+ * @see DatabaseSetup#scope()
+ * @see DatabaseTearDown#scope()
+ */
+public enum ExecutionScope {
+
+	/**
+	 * Applied for each test method.
+	 */
+	METHOD,
+
+	/**
+	 * Applied once for the test class, before the first test method runs or after the last test method has run. Any
+	 * changes that a test method makes to the database are visible to the test methods that follow it, so this scope
+	 * is usually only appropriate for read-only tests. Can only be used on class level annotations.
+	 */
+	CLASS;
+
+}
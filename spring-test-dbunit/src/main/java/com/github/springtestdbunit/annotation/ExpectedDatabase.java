@@ -79,6 +79,15 @@ public @interface ExpectedDatabase {
 	 */
 	String query() default "";
 
+	/**
+	 * If the actual dataset should only contain the tables named in the expected dataset. When {@code true} a
+	 * {@link DatabaseAssertionMode#DEFAULT DEFAULT} comparison of the whole dataset ignores other tables and does not
+	 * read the metadata of the entire schema. Non-strict modes always read only the expected tables. Defaults to
+	 * {@code false}.
+	 * @return if only the expected tables are read
+	 */
+	boolean expectedTablesOnly() default false;
+
 	/**
 	 * If this expectation overrides any others that have been defined at a higher level. Defaults to {@code true}
 	 * @return if this annotation overrides any others
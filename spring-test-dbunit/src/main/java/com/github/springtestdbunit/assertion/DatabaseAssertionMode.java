@@ -16,6 +16,10 @@
 
 package com.github.springtestdbunit.assertion;
 
+import java.io.File;
+
+import org.springframework.util.Assert;
+
 import com.github.springtestdbunit.annotation.ExpectedDatabase;
 
 /**
@@ -29,7 +33,14 @@ public enum DatabaseAssertionMode {
 	/**
 	 * Will use default DbUnit data sets assertions.
 	 */
-	DEFAULT(new DefaultDatabaseAssertion()),
+	DEFAULT(Fetch.DATA_SET) {
+
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new DefaultDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	},
 
 	/**
 	 * Allows specifying only specific columns and tables in expected data set. Unspecified tables and columns are
@@ -43,7 +54,14 @@ public enum DatabaseAssertionMode {
 	 * rows.</li>
 	 * </ul>
 	 */
-	NON_STRICT(new NonStrictDatabaseAssertion()),
+	NON_STRICT(Fetch.PROJECTED) {
+
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new NonStrictDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	},
 
 	/**
 	 * Allows specifying only specific columns and tables in expected data set and ignoring row orders in expected and
@@ -58,16 +76,159 @@ public enum DatabaseAssertionMode {
 	 * rows.</li>
 	 * </ul>
 	 */
-	NON_STRICT_UNORDERED(new NonStrictUnorderedDatabaseAssertion());
+	NON_STRICT_UNORDERED(Fetch.PROJECTED) {
+
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new NonStrictUnorderedDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	},
+
+	/**
+	 * Allows specifying only specific columns and tables in expected data set, reading actual rows from the database
+	 * one at a time using a forward-only result set. Unspecified tables and columns are ignored. Use this mode to
+	 * verify very large tables without holding them in memory. All differing, missing and unexpected rows are
+	 * reported together.
+	 * <p>
+	 * <strong>Notes:</strong>
+	 * <ul>
+	 * <li>Actual rows are read in primary key order and compared by position with the expected rows, which are sorted
+	 * by primary key when they specify all of its columns. When a query is used it must return the rows in the same
+	 * order.</li>
+	 * <li>Specified columns must match in all rows.</li>
+	 * </ul>
+	 */
+	STREAMING(Fetch.FORWARD_ONLY) {
+
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new StreamingDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	},
+
+	/**
+	 * Allows specifying only specific columns and tables in expected data set, matching expected and actual rows by
+	 * primary key. Unspecified tables and columns are ignored. Actual rows are read one at a time in primary key order
+	 * and merged with the expected rows, so large tables are not held in memory. All missing, unexpected and changed
+	 * rows are reported together.
+	 * <p>
+	 * <strong>Notes:</strong>
+	 * <ul>
+	 * <li>Expected row order does not need to match order in actual data set.</li>
+	 * <li>The table must have a primary key and the expected data set must specify all of its columns.</li>
+	 * <li>Rows that are not returned in primary key order, for example because of a database collation, are matched
+	 * by searching the expected table.</li>
+	 * </ul>
+	 */
+	PRIMARY_KEY(Fetch.FORWARD_ONLY) {
+
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new PrimaryKeyDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	},
+
+	/**
+	 * Compares tables in the same way as {@link #NON_STRICT_UNORDERED}, but first checks the row count and a checksum
+	 * of the specified columns, calculated inside the database. The actual rows are only read when either differs, so a
+	 * passing verification needs a single small query. The database check is used with HSQLDB and H2, other databases
+	 * always read the actual rows.
+	 * <p>
+	 * <strong>Notes:</strong>
+	 * <ul>
+	 * <li>Only integer, decimal and character columns are checked in the database. Tables with other compared columns,
+	 * or with long expected strings, always read the actual rows.</li>
+	 * <li>A checksum matching a different table is possible, but very unlikely.</li>
+	 * <li>Query based expectations always read the actual rows.</li>
+	 * </ul>
+	 */
+	DATABASE_COMPARE(Fetch.DATABASE_COMPARE) {
 
-	private DatabaseAssertion databaseAssertion;
+		@Override
+		protected DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+			return new NonStrictUnorderedDatabaseAssertion(maxReportedDifferences, reportDirectory);
+		}
+
+	};
+
+	/**
+	 * The default maximum number of differences included in a failure message.
+	 */
+	public static final int DEFAULT_MAX_REPORTED_DIFFERENCES = 100;
 
-	private DatabaseAssertionMode(DatabaseAssertion databaseAssertion) {
-		this.databaseAssertion = databaseAssertion;
+	private final DatabaseAssertion databaseAssertion;
+
+	private final Fetch fetch;
+
+	private DatabaseAssertionMode(Fetch fetch) {
+		this.databaseAssertion = createDatabaseAssertion(DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+		this.fetch = fetch;
 	}
 
 	public DatabaseAssertion getDatabaseAssertion() {
 		return this.databaseAssertion;
 	}
 
+	/**
+	 * Returns how the actual tables are read from the database for this mode.
+	 * @return the fetch strategy
+	 */
+	public Fetch getFetch() {
+		return this.fetch;
+	}
+
+	/**
+	 * Returns the database assertion, including at most the specified number of differences in failure messages. Every
+	 * mode collects all differing values or rows of a table before failing and, when there are more than the maximum,
+	 * writes all of them to a report file in the specified directory.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message, must not be
+	 * negative
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 * @return the database assertion
+	 */
+	public DatabaseAssertion getDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		Assert.isTrue(maxReportedDifferences >= 0, "MaxReportedDifferences must not be negative");
+		return createDatabaseAssertion(maxReportedDifferences, reportDirectory);
+	}
+
+	/**
+	 * Create the database assertion used by this mode.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 * @return the database assertion
+	 */
+	protected abstract DatabaseAssertion createDatabaseAssertion(int maxReportedDifferences, File reportDirectory);
+
+	/**
+	 * Strategies used to read the actual tables that are compared by a {@link DatabaseAssertionMode}.
+	 */
+	public enum Fetch {
+
+		/**
+		 * Read the whole actual data set, or the specified table, including all columns.
+		 */
+		DATA_SET,
+
+		/**
+		 * Read each expected table separately, selecting only the compared columns.
+		 */
+		PROJECTED,
+
+		/**
+		 * Compare each expected table inside the database first, only reading it as {@link #PROJECTED} when the
+		 * database reports a difference.
+		 */
+		DATABASE_COMPARE,
+
+		/**
+		 * Read the compared columns of each expected table one row at a time in primary key order using a forward-only
+		 * result set. Queries are read in the same way.
+		 */
+		FORWARD_ONLY
+
+	}
+
 }
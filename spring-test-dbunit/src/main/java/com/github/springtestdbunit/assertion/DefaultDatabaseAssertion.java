@@ -16,6 +16,7 @@
 
 package com.github.springtestdbunit.assertion;
 
+import java.io.File;
 import java.util.List;
 
 import org.dbunit.Assertion;
@@ -25,21 +26,55 @@ import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.filter.IColumnFilter;
 
 /**
- * Default database assertion strategy which uses DbUnit {@link Assertion#assertEquals(IDataSet, IDataSet)}.
+ * Default database assertion strategy which uses DbUnit
+ * {@link Assertion#assertEquals(IDataSet, IDataSet, org.dbunit.assertion.FailureHandler)}. Every differing value is
+ * collected by a {@link ReportingFailureHandler}.
  *
  * @author Mario Zagar
  * @author Sunitha Rajarathnam
  */
 class DefaultDatabaseAssertion implements DatabaseAssertion {
 
+	private final int maxReportedDifferences;
+
+	private final File reportDirectory;
+
+	DefaultDatabaseAssertion() {
+		this(DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+	}
+
+	/**
+	 * Create a new {@link DefaultDatabaseAssertion} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	DefaultDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		this.maxReportedDifferences = maxReportedDifferences;
+		this.reportDirectory = reportDirectory;
+	}
+
 	public void assertEquals(IDataSet expectedDataSet, IDataSet actualDataSet, List<IColumnFilter> columnFilters)
 			throws DatabaseUnitException {
-		Assertion.assertEquals(expectedDataSet, actualDataSet);
+		ReportingFailureHandler failureHandler = new ReportingFailureHandler(this.maxReportedDifferences,
+				this.reportDirectory);
+		try {
+			Assertion.assertEquals(expectedDataSet, actualDataSet, failureHandler);
+			failureHandler.assertNoDifferences();
+		} finally {
+			failureHandler.close();
+		}
 	}
 
 	public void assertEquals(ITable expectedTable, ITable actualTable, List<IColumnFilter> columnFilters)
 			throws DatabaseUnitException {
-		Assertion.assertEquals(expectedTable, actualTable);
+		ReportingFailureHandler failureHandler = new ReportingFailureHandler(this.maxReportedDifferences,
+				this.reportDirectory);
+		try {
+			Assertion.assertEquals(expectedTable, actualTable, failureHandler);
+			failureHandler.assertNoDifferences();
+		} finally {
+			failureHandler.close();
+		}
 	}
 
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.assertion.FailureHandler;
+
+/**
+ * Collects every difference found when comparing a table. Only the first differences are held in memory and included
+ * in the failure message. Once more differences are found all of them are written to a report file, so the complete
+ * result of a large comparison is available after a single run without building a huge message.
+ */
+class DifferenceReport {
+
+	private static final Log logger = LogFactory.getLog(DifferenceReport.class);
+
+	private final String tableName;
+
+	private final int maxReportedDifferences;
+
+	private final File directory;
+
+	private final List<String> expected = new ArrayList<String>();
+
+	private final List<String> actual = new ArrayList<String>();
+
+	private int count;
+
+	private File file;
+
+	private Writer writer;
+
+	/**
+	 * Create a new {@link DifferenceReport} instance.
+	 * @param tableName the name of the compared table
+	 * @param maxReportedDifferences the maximum number of differences included in the failure message
+	 * @param directory the directory for report files or {@code null} to use the temporary directory
+	 */
+	public DifferenceReport(String tableName, int maxReportedDifferences, File directory) {
+		this.tableName = tableName;
+		this.maxReportedDifferences = maxReportedDifferences;
+		this.directory = directory;
+	}
+
+	/**
+	 * Add a difference.
+	 * @param expectedRow a description of the expected row
+	 * @param actualRow a description of the actual row
+	 */
+	public void add(String expectedRow, String actualRow) {
+		this.count++;
+		if (this.count <= this.maxReportedDifferences) {
+			this.expected.add(expectedRow);
+			this.actual.add(actualRow);
+			return;
+		}
+		if (this.count == this.maxReportedDifferences + 1) {
+			openFile();
+		}
+		write(expectedRow, actualRow);
+	}
+
+	/**
+	 * Returns the number of differences that have been added.
+	 * @return the number of differences
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the report file, or {@code null} if all differences are included in the failure message.
+	 * @return the report file or {@code null}
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Complete the report, throwing a failure that summarizes any differences.
+	 * @param failureHandler the failure handler used to create the failure
+	 * @param description a description of the differences, for example {@code "rows differ"}
+	 */
+	public void assertNoDifferences(FailureHandler failureHandler, String description) {
+		close();
+		if (this.count > 0) {
+			String message = this.count + " " + description + " (table=" + this.tableName + ")";
+			if (this.file != null) {
+				message += ", all differences written to " + this.file.getAbsolutePath();
+			}
+			throw failureHandler.createFailure(message, getSummary(this.expected), getSummary(this.actual));
+		}
+	}
+
+	/**
+	 * Close the report file, if one has been written.
+	 */
+	public void close() {
+		if (this.writer != null) {
+			try {
+				this.writer.close();
+			} catch (IOException ex) {
+				fileFailed(ex);
+			}
+			this.writer = null;
+		}
+	}
+
+	private String getSummary(List<String> rows) {
+		StringBuilder summary = new StringBuilder();
+		for (String row : rows) {
+			summary.append(row).append("\n");
+		}
+		int more = this.count - this.maxReportedDifferences;
+		return (more > 0 ? summary.append("... ").append(more).append(" more").toString() : summary.toString());
+	}
+
+	private void openFile() {
+		try {
+			if (this.directory != null) {
+				this.directory.mkdirs();
+			}
+			this.file = File.createTempFile("dbunit-" + this.tableName.replaceAll("\\W", "_") + "-", ".diff",
+					this.directory);
+			this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file), "UTF-8"));
+			for (int i = 0; i < this.expected.size(); i++) {
+				write(this.expected.get(i), this.actual.get(i));
+			}
+		} catch (IOException ex) {
+			fileFailed(ex);
+		}
+	}
+
+	private void write(String expectedRow, String actualRow) {
+		if (this.writer != null) {
+			try {
+				this.writer.write("- " + expectedRow + "\n+ " + actualRow + "\n");
+			} catch (IOException ex) {
+				fileFailed(ex);
+			}
+		}
+	}
+
+	private void fileFailed(IOException ex) {
+		if (logger.isWarnEnabled()) {
+			logger.warn("Unable to write differences of table " + this.tableName + " to " + this.file, ex);
+		}
+		if (this.writer != null) {
+			try {
+				this.writer.close();
+			} catch (IOException closeEx) {
+				// Ignore
+			}
+		}
+		this.writer = null;
+		this.file = null;
+	}
+
+}
@@ -16,9 +16,17 @@
 
 package com.github.springtestdbunit.assertion;
 
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dbunit.Assertion;
 import org.dbunit.DatabaseUnitException;
@@ -29,17 +37,43 @@ import org.dbunit.dataset.FilteredTableMetaData;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.UnknownDataType;
+import org.dbunit.dataset.filter.DefaultColumnFilter;
 import org.dbunit.dataset.filter.IColumnFilter;
 
 /**
  * Implements non-strict database assertion strategy : compares data sets ignoring all tables and columns which are not
- * specified in expected data set but possibly exist in actual data set.
+ * specified in expected data set but possibly exist in actual data set. Every differing value is collected by a
+ * {@link ReportingFailureHandler}.
  *
  * @author Mario Zagar
  * @author Sunitha Rajarathnam
  */
 class NonStrictDatabaseAssertion implements DatabaseAssertion {
 
+	private static final int MAX_CACHE_SIZE = 1024;
+
+	private static final Map<IgnoredColumnsKey, Set<String>> cache = new LeastRecentlyUsedCache(MAX_CACHE_SIZE);
+
+	private final int maxReportedDifferences;
+
+	private final File reportDirectory;
+
+	NonStrictDatabaseAssertion() {
+		this(DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+	}
+
+	/**
+	 * Create a new {@link NonStrictDatabaseAssertion} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	NonStrictDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		this.maxReportedDifferences = maxReportedDifferences;
+		this.reportDirectory = reportDirectory;
+	}
+
 	public void assertEquals(IDataSet expectedDataSet, IDataSet actualDataSet, List<IColumnFilter> columnFilters)
 			throws DatabaseUnitException {
 		for (String tableName : expectedDataSet.getTableNames()) {
@@ -53,11 +87,45 @@ class NonStrictDatabaseAssertion implements DatabaseAssertion {
 			throws DatabaseUnitException {
 		Set<String> ignoredColumns = getColumnsToIgnore(expectedTable.getTableMetaData(),
 				actualTable.getTableMetaData(), columnFilters);
-		Assertion.assertEqualsIgnoreCols(expectedTable, actualTable,
-				ignoredColumns.toArray(new String[ignoredColumns.size()]));
+		String[] ignoredColumnNames = ignoredColumns.toArray(new String[ignoredColumns.size()]);
+		ReportingFailureHandler failureHandler = new ReportingFailureHandler(this.maxReportedDifferences,
+				this.reportDirectory);
+		try {
+			Assertion.assertEquals(DefaultColumnFilter.excludedColumnsTable(expectedTable, ignoredColumnNames),
+					DefaultColumnFilter.excludedColumnsTable(actualTable, ignoredColumnNames), failureHandler);
+			failureHandler.assertNoDifferences();
+		} finally {
+			failureHandler.close();
+		}
+	}
+
+	/**
+	 * Create a {@link DifferenceReport} used to collect all differences of the specified table.
+	 * @param tableName the table name
+	 * @return the difference report
+	 */
+	protected DifferenceReport createDifferenceReport(String tableName) {
+		return new DifferenceReport(tableName, this.maxReportedDifferences, this.reportDirectory);
 	}
 
-	private Set<String> getColumnsToIgnore(ITableMetaData expectedMetaData, ITableMetaData actualMetaData,
+	protected Set<String> getColumnsToIgnore(ITableMetaData expectedMetaData, ITableMetaData actualMetaData,
+			List<IColumnFilter> columnFilters) throws DataSetException {
+		IgnoredColumnsKey key = new IgnoredColumnsKey(expectedMetaData, actualMetaData, columnFilters);
+		Set<String> ignoredColumns;
+		synchronized (cache) {
+			ignoredColumns = cache.get(key);
+		}
+		if (ignoredColumns == null) {
+			ignoredColumns = Collections.unmodifiableSet(
+					getColumnsToIgnoreUncached(expectedMetaData, actualMetaData, columnFilters));
+			synchronized (cache) {
+				cache.put(key, ignoredColumns);
+			}
+		}
+		return ignoredColumns;
+	}
+
+	private Set<String> getColumnsToIgnoreUncached(ITableMetaData expectedMetaData, ITableMetaData actualMetaData,
 			List<IColumnFilter> columnFilters) throws DataSetException {
 		if (columnFilters.size() == 0) {
 			return getColumnsToIgnore(expectedMetaData, actualMetaData);
@@ -66,6 +134,12 @@ class NonStrictDatabaseAssertion implements DatabaseAssertion {
 		for (IColumnFilter filter : columnFilters) {
 			FilteredTableMetaData filteredExpectedMetaData = new FilteredTableMetaData(expectedMetaData, filter);
 			ignoredColumns.addAll(getColumnsToIgnore(filteredExpectedMetaData, actualMetaData));
+			// Filtered columns may also be missing from an actual table that was projected to the expected columns
+			for (Column column : expectedMetaData.getColumns()) {
+				if (!filter.accept(expectedMetaData.getTableName(), column)) {
+					ignoredColumns.add(column.getColumnName());
+				}
+			}
 		}
 		return ignoredColumns;
 	}
@@ -80,4 +154,122 @@ class NonStrictDatabaseAssertion implements DatabaseAssertion {
 		return result;
 	}
 
+	/**
+	 * Returns the {@link DataType} used to compare two columns, following the same rules as DBUnit.
+	 * @param expectedColumn the expected column
+	 * @param actualColumn the actual column
+	 * @return the data type or {@code null} if the column types are incompatible
+	 */
+	protected DataType getComparisonDataType(Column expectedColumn, Column actualColumn) {
+		DataType expectedDataType = expectedColumn.getDataType();
+		DataType actualDataType = actualColumn.getDataType();
+		if (expectedDataType.getClass().isInstance(actualDataType)) {
+			return expectedDataType;
+		}
+		if (expectedDataType instanceof UnknownDataType) {
+			return actualDataType;
+		}
+		if (actualDataType instanceof UnknownDataType) {
+			return expectedDataType;
+		}
+		return null;
+	}
+
+	/**
+	 * Key used to cache the ignored columns of a table. Column filters without any state are compared by class, so
+	 * the key matches new instances of the same filters. Other filters are compared using {@code equals}. Whether a
+	 * filter class has state is only checked once.
+	 */
+	private static class IgnoredColumnsKey {
+
+		private static final Map<Class<?>, Boolean> stateful = new ConcurrentHashMap<Class<?>, Boolean>();
+
+		private final List<Object> columnFilters = new ArrayList<Object>();
+
+		private final String tableName;
+
+		private final List<String> expectedColumns = new ArrayList<String>();
+
+		private final List<String> actualColumns = new ArrayList<String>();
+
+		public IgnoredColumnsKey(ITableMetaData expectedMetaData, ITableMetaData actualMetaData,
+				List<IColumnFilter> columnFilters) throws DataSetException {
+			for (IColumnFilter columnFilter : columnFilters) {
+				this.columnFilters.add(hasState(columnFilter.getClass()) ? columnFilter : columnFilter.getClass());
+			}
+			this.tableName = expectedMetaData.getTableName();
+			for (Column column : expectedMetaData.getColumns()) {
+				this.expectedColumns.add(column.getColumnName() + ":" + column.getDataType());
+			}
+			for (Column column : actualMetaData.getColumns()) {
+				this.actualColumns.add(column.getColumnName());
+			}
+		}
+
+		private boolean hasState(Class<?> type) {
+			Boolean hasState = stateful.get(type);
+			if (hasState == null) {
+				hasState = Boolean.valueOf(hasInstanceFields(type));
+				stateful.put(type, hasState);
+			}
+			return hasState.booleanValue();
+		}
+
+		private boolean hasInstanceFields(Class<?> type) {
+			for (Class<?> candidate = type; candidate != Object.class; candidate = candidate.getSuperclass()) {
+				for (Field field : candidate.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = this.columnFilters.hashCode();
+			result = 31 * result + this.tableName.hashCode();
+			result = 31 * result + this.expectedColumns.hashCode();
+			result = 31 * result + this.actualColumns.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			IgnoredColumnsKey other = (IgnoredColumnsKey) obj;
+			return this.columnFilters.equals(other.columnFilters) && this.tableName.equals(other.tableName)
+					&& this.expectedColumns.equals(other.expectedColumns)
+					&& this.actualColumns.equals(other.actualColumns);
+		}
+
+	}
+
+	/**
+	 * Cache that removes the least recently used entry when full. Access must be synchronized.
+	 */
+	private static class LeastRecentlyUsedCache extends LinkedHashMap<IgnoredColumnsKey, Set<String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+
+		public LeastRecentlyUsedCache(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IgnoredColumnsKey, Set<String>> eldest) {
+			return size() > this.maxSize;
+		}
+
+	}
+
 }
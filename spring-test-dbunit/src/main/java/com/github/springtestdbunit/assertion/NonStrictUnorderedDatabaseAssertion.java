@@ -16,18 +16,33 @@
 
 package com.github.springtestdbunit.assertion;
 
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.SortedTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.datatype.UnknownDataType;
 import org.dbunit.dataset.filter.IColumnFilter;
 
 /**
  * Implements non-strict unordered database assertion strategy : compares data sets ignoring all tables and columns
  * which are not specified in expected data set but possibly exist in actual data set and sorting rows in expected and
  * actual data sets with column order in expected data set to ignore row orders in expected and actual data sets.
+ * <p>
+ * Tables are first compared by counting their normalized rows in a hash multiset, which needs a single pass over
+ * each table. Rows are only sorted to produce a detailed failure when the counts differ.
  *
  * @author Mario Zagar
  * @author Sunitha Rajarathnam
@@ -35,13 +50,111 @@ import org.dbunit.dataset.filter.IColumnFilter;
  */
 class NonStrictUnorderedDatabaseAssertion extends NonStrictDatabaseAssertion {
 
+	NonStrictUnorderedDatabaseAssertion() {
+		this(DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+	}
+
+	/**
+	 * Create a new {@link NonStrictUnorderedDatabaseAssertion} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	NonStrictUnorderedDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		super(maxReportedDifferences, reportDirectory);
+	}
+
 	@Override
 	public void assertEquals(ITable expectedSortedTable, ITable actualSortedTable, List<IColumnFilter> columnFilters)
 			throws DatabaseUnitException {
+		if (hasEqualRows(expectedSortedTable, actualSortedTable, columnFilters)) {
+			return;
+		}
 		Column[] expectedColumns = expectedSortedTable.getTableMetaData().getColumns();
 		expectedSortedTable = new SortedTable(expectedSortedTable, expectedColumns);
 		actualSortedTable = new SortedTable(actualSortedTable, expectedColumns);
 		super.assertEquals(expectedSortedTable, actualSortedTable, columnFilters);
 	}
 
+	private boolean hasEqualRows(ITable expectedTable, ITable actualTable, List<IColumnFilter> columnFilters)
+			throws DataSetException {
+		if (expectedTable.getRowCount() != actualTable.getRowCount()) {
+			return false;
+		}
+		Set<String> ignoredColumns = getColumnsToIgnore(expectedTable.getTableMetaData(),
+				actualTable.getTableMetaData(), columnFilters);
+		List<String> columnNames = new ArrayList<String>();
+		List<DataType> dataTypes = new ArrayList<DataType>();
+		Column[] actualColumns = actualTable.getTableMetaData().getColumns();
+		for (Column expectedColumn : expectedTable.getTableMetaData().getColumns()) {
+			if (!containsIgnoreCase(ignoredColumns, expectedColumn.getColumnName())) {
+				Column actualColumn = Columns.getColumn(expectedColumn.getColumnName(), actualColumns);
+				DataType dataType = (actualColumn == null ? null : getComparisonDataType(expectedColumn, actualColumn));
+				if (dataType == null) {
+					return false;
+				}
+				columnNames.add(expectedColumn.getColumnName());
+				dataTypes.add(dataType);
+			}
+		}
+		try {
+			Map<List<Object>, Integer> counts = new HashMap<List<Object>, Integer>();
+			for (int row = 0; row < expectedTable.getRowCount(); row++) {
+				List<Object> key = getRow(expectedTable, row, columnNames, dataTypes);
+				Integer count = counts.get(key);
+				counts.put(key, count == null ? 1 : count + 1);
+			}
+			for (int row = 0; row < actualTable.getRowCount(); row++) {
+				List<Object> key = getRow(actualTable, row, columnNames, dataTypes);
+				Integer count = counts.get(key);
+				if (count == null) {
+					return false;
+				}
+				if (count == 1) {
+					counts.remove(key);
+				} else {
+					counts.put(key, count - 1);
+				}
+			}
+			return counts.isEmpty();
+		} catch (TypeCastException ex) {
+			return false;
+		}
+	}
+
+	private boolean containsIgnoreCase(Set<String> names, String name) {
+		for (String candidate : names) {
+			if (candidate.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<Object> getRow(ITable table, int row, List<String> columnNames, List<DataType> dataTypes)
+			throws DataSetException {
+		List<Object> values = new ArrayList<Object>(columnNames.size());
+		for (int i = 0; i < columnNames.size(); i++) {
+			values.add(normalize(dataTypes.get(i), table.getValue(row, columnNames.get(i))));
+		}
+		return values;
+	}
+
+	/**
+	 * Normalize a value so that values that DBUnit considers equal also have equal hash keys.
+	 */
+	private Object normalize(DataType dataType, Object value) throws TypeCastException {
+		if (dataType instanceof UnknownDataType) {
+			return DataType.asString(value);
+		}
+		value = dataType.typeCast(value);
+		if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			return (decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros());
+		}
+		if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		}
+		return value;
+	}
+
 }
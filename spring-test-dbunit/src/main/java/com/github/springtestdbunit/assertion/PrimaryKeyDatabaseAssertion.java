@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import java.io.File;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.assertion.DefaultFailureHandler;
+import org.dbunit.assertion.FailureHandler;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+
+/**
+ * Implements primary key database assertion strategy : compares data sets ignoring all tables and columns which are
+ * not specified in expected data set, matching rows by primary key. The expected table is sorted by primary key and
+ * merged with the actual rows, which are expected in primary key order. If the actual keys are not in the order used
+ * by DBUnit, for example because of a database collation, the remaining actual rows are matched using a binary search
+ * of the expected table instead. Each actual row is read once, so the actual table can be read using a forward-only
+ * result set. Missing, extra and changed rows are all reported together.
+ */
+class PrimaryKeyDatabaseAssertion extends StreamingDatabaseAssertion {
+
+	PrimaryKeyDatabaseAssertion() {
+		this(DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+	}
+
+	/**
+	 * Create a new {@link PrimaryKeyDatabaseAssertion} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	PrimaryKeyDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		super(maxReportedDifferences, reportDirectory);
+	}
+
+	@Override
+	public void assertEquals(ITable expectedTable, ITable actualTable, List<IColumnFilter> columnFilters)
+			throws DatabaseUnitException {
+		FailureHandler failureHandler = new DefaultFailureHandler();
+		String tableName = expectedTable.getTableMetaData().getTableName();
+		Column[] columns = getComparisonColumns(expectedTable, actualTable, columnFilters, failureHandler);
+		DataType[] dataTypes = getComparisonDataTypes(columns, expectedTable, actualTable, failureHandler);
+		Column[] keys = getKeys(expectedTable, actualTable, failureHandler);
+		DataType[] keyDataTypes = getComparisonDataTypes(keys, expectedTable, actualTable, failureHandler);
+		ITable sortedExpectedTable = sort(expectedTable, keys, keyDataTypes);
+		DifferenceReport report = createDifferenceReport(tableName);
+		try {
+			int rowCount = expectedTable.getRowCount();
+			boolean[] matched = new boolean[rowCount];
+			boolean ordered = true;
+			String firstColumn = actualTable.getTableMetaData().getColumns()[0].getColumnName();
+			int expectedRow = 0;
+			Object[] previousKey = null;
+			for (int actualRow = 0; hasRow(actualTable, actualRow, firstColumn); actualRow++) {
+				Object[] key = getKey(actualTable, actualRow, keys);
+				if (ordered && (previousKey != null) && (compare(previousKey, key, keyDataTypes) >= 0)) {
+					// The database orders keys differently to DBUnit, for example because of a collation
+					ordered = false;
+				}
+				int match;
+				if (ordered) {
+					while ((expectedRow < rowCount)
+							&& (compare(getKey(sortedExpectedTable, expectedRow, keys), key, keyDataTypes) < 0)) {
+						expectedRow++;
+					}
+					match = (expectedRow < rowCount
+							&& compare(getKey(sortedExpectedTable, expectedRow, keys), key, keyDataTypes) == 0
+									? expectedRow : -1);
+				} else {
+					match = find(sortedExpectedTable, key, keys, keyDataTypes);
+				}
+				if ((match == -1) || matched[match]) {
+					report.add("<unexpected>", getRow(actualTable, actualRow, keys, columns));
+				} else {
+					matched[match] = true;
+					for (int i = 0; i < columns.length; i++) {
+						Object expectedValue = sortedExpectedTable.getValue(match, columns[i].getColumnName());
+						Object actualValue = actualTable.getValue(actualRow, columns[i].getColumnName());
+						if (dataTypes[i].compare(expectedValue, actualValue) != 0) {
+							report.add(getRow(sortedExpectedTable, match, keys, columns),
+									getRow(actualTable, actualRow, keys, columns));
+							break;
+						}
+					}
+				}
+				previousKey = key;
+			}
+			for (int row = 0; row < rowCount; row++) {
+				if (!matched[row]) {
+					report.add(getRow(sortedExpectedTable, row, keys, columns), "<missing>");
+				}
+			}
+			report.assertNoDifferences(failureHandler, "rows differ by primary key");
+		} finally {
+			report.close();
+		}
+	}
+
+	private Column[] getKeys(ITable expectedTable, ITable actualTable, FailureHandler failureHandler)
+			throws DatabaseUnitException {
+		String tableName = expectedTable.getTableMetaData().getTableName();
+		Column[] keys = actualTable.getTableMetaData().getPrimaryKeys();
+		if (keys.length == 0) {
+			throw failureHandler.createFailure("primary key (table=" + tableName + ")", "primary key columns",
+					"none");
+		}
+		Column[] expectedColumns = expectedTable.getTableMetaData().getColumns();
+		for (Column key : keys) {
+			if (Columns.getColumn(key.getColumnName(), expectedColumns) == null) {
+				throw failureHandler.createFailure("primary key column mismatch (table=" + tableName + ")",
+						key.getColumnName(), Columns.getColumnNamesAsString(expectedColumns));
+			}
+		}
+		return keys;
+	}
+
+	private Object[] getKey(ITable table, int row, Column[] keys) throws DatabaseUnitException {
+		Object[] key = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			key[i] = table.getValue(row, keys[i].getColumnName());
+		}
+		return key;
+	}
+
+	private int compare(Object[] key1, Object[] key2, DataType[] keyDataTypes) throws DatabaseUnitException {
+		for (int i = 0; i < key1.length; i++) {
+			int compare = keyDataTypes[i].compare(key1[i], key2[i]);
+			if (compare != 0) {
+				return compare;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Binary search the sorted table for the row with the specified key.
+	 */
+	private int find(ITable sortedTable, Object[] key, Column[] keys, DataType[] keyDataTypes)
+			throws DatabaseUnitException {
+		int low = 0;
+		int high = sortedTable.getRowCount() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int compare = compare(getKey(sortedTable, middle, keys), key, keyDataTypes);
+			if (compare == 0) {
+				return middle;
+			}
+			if (compare < 0) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return -1;
+	}
+
+	private String getRow(ITable table, int row, Column[] keys, Column[] columns) throws DatabaseUnitException {
+		StringBuilder result = new StringBuilder();
+		for (Column key : keys) {
+			result.append(result.length() == 0 ? "[" : ", ");
+			result.append(key.getColumnName()).append("=").append(table.getValue(row, key.getColumnName()));
+		}
+		result.append("]");
+		for (Column column : columns) {
+			if (Columns.getColumn(column.getColumnName(), keys) == null) {
+				result.append(" ").append(column.getColumnName()).append("=");
+				result.append(table.getValue(row, column.getColumnName()));
+			}
+		}
+		return result.toString();
+	}
+
+}
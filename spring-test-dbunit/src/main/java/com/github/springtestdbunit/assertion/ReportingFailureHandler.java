@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dbunit.assertion.DefaultFailureHandler;
+import org.dbunit.assertion.Difference;
+
+/**
+ * DBUnit failure handler that collects every differing value in a {@link DifferenceReport} for each table rather than
+ * failing on the first one. Differences in the row count or columns of a table still fail immediately.
+ */
+class ReportingFailureHandler extends DefaultFailureHandler {
+
+	private final int maxReportedDifferences;
+
+	private final File reportDirectory;
+
+	private final Map<String, DifferenceReport> reports = new LinkedHashMap<String, DifferenceReport>();
+
+	/**
+	 * Create a new {@link ReportingFailureHandler} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	public ReportingFailureHandler(int maxReportedDifferences, File reportDirectory) {
+		this.maxReportedDifferences = maxReportedDifferences;
+		this.reportDirectory = reportDirectory;
+	}
+
+	@Override
+	public void handle(Difference diff) {
+		String tableName = diff.getExpectedTable().getTableMetaData().getTableName();
+		DifferenceReport report = this.reports.get(tableName);
+		if (report == null) {
+			report = new DifferenceReport(tableName, this.maxReportedDifferences, this.reportDirectory);
+			this.reports.put(tableName, report);
+		}
+		String cell = "[row=" + diff.getRowIndex() + "] " + diff.getColumnName() + "=";
+		report.add(cell + diff.getExpectedValue(), cell + diff.getActualValue());
+	}
+
+	/**
+	 * Complete all reports, throwing a failure that summarizes the differences of the first table that has any.
+	 */
+	public void assertNoDifferences() {
+		close();
+		for (DifferenceReport report : this.reports.values()) {
+			report.assertNoDifferences(this, "values differ");
+		}
+	}
+
+	/**
+	 * Close the files of all reports, for example when the comparison failed before it completed.
+	 */
+	public void close() {
+		for (DifferenceReport report : this.reports.values()) {
+			report.close();
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.assertion.DefaultFailureHandler;
+import org.dbunit.assertion.FailureHandler;
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+
+/**
+ * Implements streaming database assertion strategy : compares data sets ignoring all tables and columns which are not
+ * specified in expected data set, reading each actual row only once and in order. Unlike the other strategies the
+ * actual table does not need to be held in memory, so it can be read using a forward-only result set. Actual rows
+ * are compared by position with the expected rows, which are sorted in memory by primary key when the actual table
+ * has a primary key that the expected table specifies. Every differing, missing and unexpected row is collected in a
+ * {@link DifferenceReport}.
+ */
+class StreamingDatabaseAssertion extends NonStrictDatabaseAssertion {
+
+	StreamingDatabaseAssertion() {
+		this(DatabaseAssertionMode.DEFAULT_MAX_REPORTED_DIFFERENCES, null);
+	}
+
+	/**
+	 * Create a new {@link StreamingDatabaseAssertion} instance.
+	 * @param maxReportedDifferences the maximum number of differences included in a failure message
+	 * @param reportDirectory the directory used for difference reports or {@code null} to use the temporary directory
+	 */
+	StreamingDatabaseAssertion(int maxReportedDifferences, File reportDirectory) {
+		super(maxReportedDifferences, reportDirectory);
+	}
+
+	@Override
+	public void assertEquals(ITable expectedTable, ITable actualTable, List<IColumnFilter> columnFilters)
+			throws DatabaseUnitException {
+		FailureHandler failureHandler = new DefaultFailureHandler();
+		String tableName = expectedTable.getTableMetaData().getTableName();
+		Column[] columns = getComparisonColumns(expectedTable, actualTable, columnFilters, failureHandler);
+		DataType[] dataTypes = getComparisonDataTypes(columns, expectedTable, actualTable, failureHandler);
+		expectedTable = sortByPrimaryKey(expectedTable, actualTable, failureHandler);
+		DifferenceReport report = createDifferenceReport(tableName);
+		try {
+			int rowCount = expectedTable.getRowCount();
+			String firstColumn = actualTable.getTableMetaData().getColumns()[0].getColumnName();
+			int row = 0;
+			while ((row < rowCount) && hasRow(actualTable, row, firstColumn)) {
+				for (int i = 0; i < columns.length; i++) {
+					String columnName = columns[i].getColumnName();
+					if (dataTypes[i].compare(expectedTable.getValue(row, columnName),
+							actualTable.getValue(row, columnName)) != 0) {
+						report.add(getRow(expectedTable, row, columns), getRow(actualTable, row, columns));
+						break;
+					}
+				}
+				row++;
+			}
+			for (int missingRow = row; missingRow < rowCount; missingRow++) {
+				report.add(getRow(expectedTable, missingRow, columns), "<missing>");
+			}
+			if (row == rowCount) {
+				for (int unexpectedRow = row; hasRow(actualTable, unexpectedRow, firstColumn); unexpectedRow++) {
+					report.add("<unexpected>", getRow(actualTable, unexpectedRow, columns));
+				}
+			}
+			report.assertNoDifferences(failureHandler, "rows differ");
+		} finally {
+			report.close();
+		}
+	}
+
+	/**
+	 * Returns the expected table sorted by the primary key of the actual table, or the expected table in its original
+	 * order if the actual primary key is unknown or not specified by the expected table.
+	 */
+	private ITable sortByPrimaryKey(ITable expectedTable, ITable actualTable, FailureHandler failureHandler)
+			throws DatabaseUnitException {
+		Column[] keys = actualTable.getTableMetaData().getPrimaryKeys();
+		if (keys.length == 0) {
+			return expectedTable;
+		}
+		Column[] expectedColumns = expectedTable.getTableMetaData().getColumns();
+		for (Column key : keys) {
+			if (Columns.getColumn(key.getColumnName(), expectedColumns) == null) {
+				return expectedTable;
+			}
+		}
+		return sort(expectedTable, keys, getComparisonDataTypes(keys, expectedTable, actualTable, failureHandler));
+	}
+
+	private String getRow(ITable table, int row, Column[] columns) throws DatabaseUnitException {
+		StringBuilder result = new StringBuilder("[row=").append(row).append("]");
+		for (Column column : columns) {
+			result.append(" ").append(column.getColumnName()).append("=");
+			result.append(table.getValue(row, column.getColumnName()));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the data type used to compare each of the specified columns.
+	 * @param columns the columns to compare
+	 * @param expectedTable the expected table
+	 * @param actualTable the actual table
+	 * @param failureHandler the failure handler used to report incompatible types
+	 * @return the data types
+	 * @throws DatabaseUnitException on DBUnit error
+	 */
+	protected DataType[] getComparisonDataTypes(Column[] columns, ITable expectedTable, ITable actualTable,
+			FailureHandler failureHandler) throws DatabaseUnitException {
+		String tableName = expectedTable.getTableMetaData().getTableName();
+		DataType[] dataTypes = new DataType[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			Column actualColumn = Columns.getColumn(columns[i].getColumnName(),
+					actualTable.getTableMetaData().getColumns());
+			dataTypes[i] = getComparisonDataType(columns[i], actualColumn);
+			if (dataTypes[i] == null) {
+				throw failureHandler.createFailure("Incompatible data types: (table=" + tableName + ", col="
+						+ columns[i].getColumnName() + ")", String.valueOf(columns[i].getDataType()),
+						String.valueOf(actualColumn.getDataType()));
+			}
+		}
+		return dataTypes;
+	}
+
+	/**
+	 * Returns the expected columns that should be compared, failing if any are missing from the actual table.
+	 * @param expectedTable the expected table
+	 * @param actualTable the actual table
+	 * @param columnFilters the column filters
+	 * @param failureHandler the failure handler used to report missing columns
+	 * @return the columns to compare
+	 * @throws DatabaseUnitException on DBUnit error
+	 */
+	protected Column[] getComparisonColumns(ITable expectedTable, ITable actualTable, List<IColumnFilter> columnFilters,
+			FailureHandler failureHandler) throws DatabaseUnitException {
+		String tableName = expectedTable.getTableMetaData().getTableName();
+		Set<String> ignoredColumns = new HashSet<String>();
+		for (String ignoredColumn : getColumnsToIgnore(expectedTable.getTableMetaData(),
+				actualTable.getTableMetaData(), columnFilters)) {
+			ignoredColumns.add(ignoredColumn.toUpperCase());
+		}
+		Column[] actualColumns = actualTable.getTableMetaData().getColumns();
+		List<Column> columns = new ArrayList<Column>();
+		for (Column column : expectedTable.getTableMetaData().getColumns()) {
+			if (!ignoredColumns.contains(column.getColumnName().toUpperCase())) {
+				if (Columns.getColumn(column.getColumnName(), actualColumns) == null) {
+					throw failureHandler.createFailure("column mismatch (table=" + tableName + ")",
+							column.getColumnName(), Columns.getColumnNamesAsString(actualColumns));
+				}
+				columns.add(column);
+			}
+		}
+		return columns.toArray(new Column[columns.size()]);
+	}
+
+	/**
+	 * Returns if the table has the specified row, without needing to know the row count.
+	 * @param table the table
+	 * @param row the row index
+	 * @param columnName the name of any column of the table
+	 * @return if the row exists
+	 * @throws DatabaseUnitException on DBUnit error
+	 */
+	protected boolean hasRow(ITable table, int row, String columnName) throws DatabaseUnitException {
+		try {
+			table.getValue(row, columnName);
+			return true;
+		} catch (RowOutOfBoundsException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the table sorted using the specified keys.
+	 * @param table the table to sort
+	 * @param keys the key columns
+	 * @param keyDataTypes the data types used to compare the keys
+	 * @return the sorted table
+	 * @throws DatabaseUnitException on DBUnit error
+	 */
+	protected ITable sort(final ITable table, final Column[] keys, final DataType[] keyDataTypes)
+			throws DatabaseUnitException {
+		Integer[] rows = new Integer[table.getRowCount()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = i;
+		}
+		try {
+			Arrays.sort(rows, new Comparator<Integer>() {
+
+				public int compare(Integer row1, Integer row2) {
+					try {
+						return StreamingDatabaseAssertion.this.compare(table, row1, table, row2, keys, keyDataTypes);
+					} catch (DatabaseUnitException ex) {
+						throw new IllegalStateException(ex);
+					}
+				}
+
+			});
+		} catch (IllegalStateException ex) {
+			if (ex.getCause() instanceof DatabaseUnitException) {
+				throw (DatabaseUnitException) ex.getCause();
+			}
+			throw ex;
+		}
+		return new RowMappedTable(table, rows);
+	}
+
+	private int compare(ITable table1, int row1, ITable table2, int row2, Column[] keys, DataType[] keyDataTypes)
+			throws DatabaseUnitException {
+		for (int i = 0; i < keys.length; i++) {
+			String columnName = keys[i].getColumnName();
+			int compare = keyDataTypes[i].compare(table1.getValue(row1, columnName), table2.getValue(row2, columnName));
+			if (compare != 0) {
+				return compare;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * An {@link ITable} that presents the rows of another table in a different order.
+	 */
+	private static class RowMappedTable extends AbstractTable {
+
+		private final ITable table;
+
+		private final Integer[] rows;
+
+		public RowMappedTable(ITable table, Integer[] rows) {
+			this.table = table;
+			this.rows = rows;
+		}
+
+		public ITableMetaData getTableMetaData() {
+			return this.table.getTableMetaData();
+		}
+
+		public int getRowCount() {
+			return this.rows.length;
+		}
+
+		public Object getValue(int row, String columnName) throws DataSetException {
+			assertValidRowIndex(row);
+			return this.table.getValue(this.rows[row], columnName);
+		}
+
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.bean;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A {@link DataSource} proxy that records the tables written by the SQL statements that pass through it. Statements
+ * that insert, update, delete, merge or truncate a single table are recorded against that table, other statements
+ * that may write to the database (such as DDL or procedure calls) are treated as changing every table. Statements are
+ * recorded when they are executed. Writes made by triggers are not recorded.
+ * <p>
+ * The proxy can be used as the data source of the application under test to allow
+ * {@link com.github.springtestdbunit.annotation.DbUnitConfiguration#changeTracking() change tracking}. The data source
+ * can be obtained from any of its connections using {@link Connection#unwrap(Class)}.
+ */
+public class ChangeTrackingDataSource extends DelegatingDataSource {
+
+	private static final Pattern COMMENT = Pattern.compile("^(\\s*(/\\*.*?\\*/|--[^\\n]*\\n))*\\s*", Pattern.DOTALL);
+
+	private static final Pattern READ = Pattern.compile("^(select|values|explain|show|set|commit|rollback|"
+			+ "savepoint|release)\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern WRITE = Pattern.compile("^(insert\\s+into|insert|update|delete\\s+from|delete|"
+			+ "merge\\s+into|merge|truncate\\s+table|truncate|replace\\s+into)\\s+([^\\s(,;]+).*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private final Set<String> changedTables = new HashSet<String>();
+
+	private boolean allChanged;
+
+	public ChangeTrackingDataSource() {
+		super();
+	}
+
+	public ChangeTrackingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return track(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return track(super.getConnection(username, password));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return (iface.isInstance(this) ? (T) this : super.unwrap(iface));
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || super.isWrapperFor(iface);
+	}
+
+	/**
+	 * Returns if the specified table may have been written since the last {@link #reset()}.
+	 * @param tableName the table name, optionally qualified with a schema
+	 * @return if the table may have changed
+	 */
+	public synchronized boolean isChanged(String tableName) {
+		return this.allChanged || this.changedTables.contains(getUnqualifiedName(tableName));
+	}
+
+	/**
+	 * Returns the names of the tables that have been written since the last {@link #reset()}, in upper case.
+	 * @return the changed table names
+	 */
+	public synchronized Set<String> getChangedTables() {
+		return Collections.unmodifiableSet(new HashSet<String>(this.changedTables));
+	}
+
+	/**
+	 * Returns if a statement that may have written to any table has been executed since the last {@link #reset()}.
+	 * @return if all tables may have changed
+	 */
+	public synchronized boolean isAllChanged() {
+		return this.allChanged;
+	}
+
+	/**
+	 * Forget all changes recorded so far.
+	 */
+	public synchronized void reset() {
+		this.changedTables.clear();
+		this.allChanged = false;
+	}
+
+	/**
+	 * Record tables with a foreign key to a changed table as changed, since they may have been written by a cascading
+	 * delete or update. Foreign keys are followed transitively.
+	 * @param connection the connection used to read the foreign keys
+	 * @param schema the schema of the tables or {@code null}
+	 * @throws SQLException on SQL error
+	 */
+	public void addReferencingTables(Connection connection, String schema) throws SQLException {
+		Set<String> tables;
+		synchronized (this) {
+			if (this.allChanged) {
+				return;
+			}
+			tables = new HashSet<String>(this.changedTables);
+		}
+		DatabaseMetaData metaData = connection.getMetaData();
+		LinkedList<String> pending = new LinkedList<String>(tables);
+		while (!pending.isEmpty()) {
+			String tableName = pending.removeFirst();
+			ResultSet resultSet = metaData.getExportedKeys(null, schema,
+					metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase() : tableName);
+			try {
+				while (resultSet.next()) {
+					String referencingTable = getUnqualifiedName(resultSet.getString("FKTABLE_NAME"));
+					if (tables.add(referencingTable)) {
+						pending.add(referencingTable);
+					}
+				}
+			} finally {
+				resultSet.close();
+			}
+		}
+		synchronized (this) {
+			this.changedTables.addAll(tables);
+		}
+	}
+
+	/**
+	 * Record the tables that the specified SQL may write to.
+	 * @param sql the SQL
+	 */
+	protected synchronized void record(String sql) {
+		String statement = COMMENT.matcher(sql).replaceFirst("");
+		if (READ.matcher(statement).matches()) {
+			return;
+		}
+		Matcher matcher = WRITE.matcher(statement);
+		if (matcher.matches()) {
+			this.changedTables.add(getUnqualifiedName(matcher.group(2)));
+		} else {
+			this.allChanged = true;
+		}
+	}
+
+	private String getUnqualifiedName(String tableName) {
+		String name = tableName.substring(tableName.lastIndexOf('.') + 1);
+		return name.replaceAll("[\"`\\[\\]]", "").toUpperCase();
+	}
+
+	private Connection track(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(ChangeTrackingDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new TrackingInvocationHandler(connection, null, null));
+	}
+
+	/**
+	 * {@link InvocationHandler} for tracked {@link Connection Connections} and {@link Statement Statements}. SQL is
+	 * recorded when a statement is executed, so statements prepared before a {@link #reset()} are still tracked.
+	 */
+	private class TrackingInvocationHandler implements InvocationHandler {
+
+		private final Object target;
+
+		private final Connection connection;
+
+		private final String sql;
+
+		private final List<String> batch = new ArrayList<String>();
+
+		/**
+		 * Create a new {@link TrackingInvocationHandler}.
+		 * @param target the connection or statement
+		 * @param connection the tracked connection of a statement or {@code null} for a connection
+		 * @param sql the SQL of a prepared statement or {@code null}
+		 */
+		public TrackingInvocationHandler(Object target, Connection connection, String sql) {
+			this.target = target;
+			this.connection = connection;
+			this.sql = sql;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return (proxy == args[0]);
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (this.connection == null) {
+				if ((name.equals("unwrap") || name.equals("isWrapperFor"))
+						&& ((Class<?>) args[0]).isInstance(ChangeTrackingDataSource.this)) {
+					return (name.equals("unwrap") ? ChangeTrackingDataSource.this : Boolean.TRUE);
+				}
+			} else if (name.equals("getConnection")) {
+				return this.connection;
+			} else {
+				recordExecution(name, args);
+			}
+			Object result;
+			try {
+				result = method.invoke(this.target, args);
+			} catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+			if ((this.connection == null) && (result instanceof Statement)) {
+				return trackStatement((Connection) proxy, name, args, (Statement) result);
+			}
+			return result;
+		}
+
+		private void recordExecution(String name, Object[] args) {
+			String sql = ((args != null) && (args.length > 0) && (args[0] instanceof String) ? (String) args[0]
+					: this.sql);
+			if (name.equals("addBatch")) {
+				this.batch.add(sql);
+			} else if (name.equals("clearBatch")) {
+				this.batch.clear();
+			} else if (name.startsWith("execute") && name.endsWith("Batch")) {
+				for (String batchSql : this.batch) {
+					record(batchSql);
+				}
+				this.batch.clear();
+			} else if (name.startsWith("execute") && (sql != null)) {
+				record(sql);
+			}
+		}
+
+		private Object trackStatement(Connection connection, String name, Object[] args, Statement statement) {
+			Class<?> type = (statement instanceof CallableStatement ? CallableStatement.class
+					: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class);
+			String sql = (name.startsWith("prepare") ? (String) args[0] : null);
+			return Proxy.newProxyInstance(ChangeTrackingDataSource.class.getClassLoader(), new Class<?>[] { type },
+					new TrackingInvocationHandler(statement, connection, sql));
+		}
+
+	}
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.dialect;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.springframework.util.StringUtils;
+
+/**
+ * Vendor specific SQL used to speed up database setup and verification. The dialect of a connection is
+ * {@link #get(IDatabaseConnection) detected} from its {@link java.sql.DatabaseMetaData database meta-data}.
+ * <p>
+ * Only the HSQLDB dialect is covered by the test suite. The SQL of the H2 and Derby dialects follows the documentation
+ * of those databases but has never been run against them, so they are provided on a best-effort basis.
+ */
+public enum DatabaseDialect {
+
+	/**
+	 * HyperSQL Database.
+	 */
+	HSQLDB("HSQL Database Engine", EnumSet.allOf(Feature.class)) {
+
+		@Override
+		public String getCreateTableAsSelectSql(String tableName, String select) {
+			return "CREATE TABLE " + tableName + " AS (" + select + ") WITH DATA";
+		}
+
+		@Override
+		public String getDropTableIfExistsSql(String tableName) {
+			return "DROP TABLE " + tableName + " IF EXISTS";
+		}
+
+		@Override
+		public String getColumnSequencesSql() {
+			return "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, SEQUENCE_SCHEMA, SEQUENCE_NAME "
+					+ "FROM INFORMATION_SCHEMA.SYSTEM_COLUMN_SEQUENCE_USAGE";
+		}
+
+		@Override
+		public String getSequenceNextValueSql() {
+			return "SELECT NEXT_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+					+ "WHERE SEQUENCE_SCHEMA = ? AND SEQUENCE_NAME = ?";
+		}
+
+		@Override
+		public String getInsertSelectSql(String tableName, String columns, boolean identity, String select) {
+			// Values of GENERATED ALWAYS identity columns can only be inserted when overriding the system value
+			return "INSERT INTO " + tableName + " (" + columns + ") " + (identity ? "OVERRIDING SYSTEM VALUE " : "")
+					+ select;
+		}
+
+		@Override
+		public String getReferentialIntegritySql(boolean enabled) {
+			return "SET DATABASE REFERENTIAL INTEGRITY " + (enabled ? "TRUE" : "FALSE");
+		}
+
+		@Override
+		public String getCleanTableSql(String tableName) {
+			// HSQLDB checks foreign keys on truncate even when referential integrity is disabled
+			return "DELETE FROM " + tableName;
+		}
+
+		@Override
+		public String getMergeSql(String tableName, String[] columns, String[] keyColumns, String values) {
+			List<String> keys = Arrays.asList(keyColumns);
+			StringBuilder on = new StringBuilder();
+			StringBuilder update = new StringBuilder();
+			String[] sourceColumns = new String[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				sourceColumns[i] = "S." + columns[i];
+				if (keys.contains(columns[i])) {
+					on.append(on.length() == 0 ? "" : " AND ");
+					on.append("T.").append(columns[i]).append(" = ").append(sourceColumns[i]);
+				} else {
+					update.append(update.length() == 0 ? "" : ", ");
+					update.append(columns[i]).append(" = ").append(sourceColumns[i]);
+				}
+			}
+			String columnList = StringUtils.arrayToDelimitedString(columns, ", ");
+			return "MERGE INTO " + tableName + " AS T USING (VALUES " + values + ") AS S (" + columnList + ") ON "
+					+ on + (update.length() == 0 ? "" : " WHEN MATCHED THEN UPDATE SET " + update)
+					+ " WHEN NOT MATCHED THEN INSERT (" + columnList + ") VALUES ("
+					+ StringUtils.arrayToDelimitedString(sourceColumns, ", ") + ")";
+		}
+
+	},
+
+	/**
+	 * H2 Database. Not covered by the test suite.
+	 */
+	H2("H2", EnumSet.of(Feature.CREATE_TABLE_AS_SELECT, Feature.DISABLING_REFERENTIAL_INTEGRITY, Feature.MERGE,
+			Feature.ROW_VALUE_IN_LIST, Feature.CHECKSUM, Feature.RESTART_SEQUENCE)) {
+
+		@Override
+		public String getCreateTableAsSelectSql(String tableName, String select) {
+			return "CREATE TABLE " + tableName + " AS " + select;
+		}
+
+		@Override
+		public String getDropTableIfExistsSql(String tableName) {
+			return "DROP TABLE IF EXISTS " + tableName;
+		}
+
+		@Override
+		public String getReferentialIntegritySql(boolean enabled) {
+			return "SET REFERENTIAL_INTEGRITY " + (enabled ? "TRUE" : "FALSE");
+		}
+
+		@Override
+		public String getMergeSql(String tableName, String[] columns, String[] keyColumns, String values) {
+			return "MERGE INTO " + tableName + " (" + StringUtils.arrayToDelimitedString(columns, ", ") + ") KEY ("
+					+ StringUtils.arrayToDelimitedString(keyColumns, ", ") + ") VALUES " + values;
+		}
+
+	},
+
+	/**
+	 * Apache Derby. Not covered by the test suite.
+	 */
+	DERBY("Apache Derby", EnumSet.noneOf(Feature.class));
+
+	private static final Map<IDatabaseConnection, DatabaseDialect> dialects = Collections
+			.synchronizedMap(new WeakHashMap<IDatabaseConnection, DatabaseDialect>());
+
+	private final String productName;
+
+	private final Set<Feature> features;
+
+	private DatabaseDialect(String productName, Set<Feature> features) {
+		this.productName = productName;
+		this.features = features;
+	}
+
+	/**
+	 * Returns if the specified feature is supported.
+	 * @param feature the feature
+	 * @return if the feature is supported
+	 */
+	public boolean supports(Feature feature) {
+		return this.features.contains(feature);
+	}
+
+	/**
+	 * Returns SQL that creates a new table containing the results of the specified select.
+	 * @param tableName the name of the table to create
+	 * @param select the select used to populate the table
+	 * @return the SQL or {@code null} if not supported
+	 * @see Feature#CREATE_TABLE_AS_SELECT
+	 */
+	public String getCreateTableAsSelectSql(String tableName, String select) {
+		return null;
+	}
+
+	/**
+	 * Returns SQL that inserts the results of the specified select into a table.
+	 * @param tableName the name of the table
+	 * @param columns the comma separated names of the columns to insert
+	 * @param identity if the columns include an identity column whose values must be kept
+	 * @param select the select that provides the rows
+	 * @return the SQL
+	 */
+	public String getInsertSelectSql(String tableName, String columns, boolean identity, String select) {
+		return "INSERT INTO " + tableName + " (" + columns + ") " + select;
+	}
+
+	/**
+	 * Returns SQL that drops the specified table, if it exists.
+	 * @param tableName the name of the table to drop
+	 * @return the SQL or {@code null} if not supported
+	 * @see Feature#CREATE_TABLE_AS_SELECT
+	 */
+	public String getDropTableIfExistsSql(String tableName) {
+		return null;
+	}
+
+	/**
+	 * Returns SQL that enables or disables referential integrity checks for the whole database.
+	 * @param enabled if referential integrity should be enabled
+	 * @return the SQL or {@code null} if not supported
+	 * @see Feature#DISABLING_REFERENTIAL_INTEGRITY
+	 */
+	public String getReferentialIntegritySql(boolean enabled) {
+		return null;
+	}
+
+	/**
+	 * Returns SQL that inserts the specified rows or updates them if a row with the same key already exists.
+	 * @param tableName the name of the table
+	 * @param columns the names of the columns being written
+	 * @param keyColumns the names of the primary key columns, each also included in {@code columns}
+	 * @param values comma separated groups of values, one for each row, in the form {@code (?, ?), (?, ?)}
+	 * @return the SQL or {@code null} if not supported
+	 * @see Feature#MERGE
+	 */
+	public String getMergeSql(String tableName, String[] columns, String[] keyColumns, String values) {
+		return null;
+	}
+
+	/**
+	 * Returns SQL that restarts the identity column of the specified table so that the next generated value is
+	 * {@code value}.
+	 * @param tableName the name of the table
+	 * @param columnName the name of the identity column
+	 * @param value the next value to generate
+	 * @return the SQL
+	 */
+	public String getRestartIdentitySql(String tableName, String columnName, long value) {
+		return "ALTER TABLE " + tableName + " ALTER COLUMN " + columnName + " RESTART WITH " + value;
+	}
+
+	/**
+	 * Returns SQL that restarts the specified sequence so that the next generated value is {@code value}.
+	 * @param sequenceName the name of the sequence
+	 * @param value the next value to generate
+	 * @return the SQL or {@code null} if not supported
+	 * @see Feature#RESTART_SEQUENCE
+	 */
+	public String getRestartSequenceSql(String sequenceName, long value) {
+		if (!supports(Feature.RESTART_SEQUENCE)) {
+			return null;
+		}
+		return "ALTER SEQUENCE " + sequenceName + " RESTART WITH " + value;
+	}
+
+	/**
+	 * Returns a query listing every column whose values are generated by a named sequence. The query returns the
+	 * {@code TABLE_SCHEMA}, {@code TABLE_NAME}, {@code COLUMN_NAME}, {@code SEQUENCE_SCHEMA} and {@code SEQUENCE_NAME}
+	 * of each column.
+	 * @return the SQL or {@code null} if sequences are only detected from column defaults
+	 */
+	public String getColumnSequencesSql() {
+		return null;
+	}
+
+	/**
+	 * Returns a query for the next value that the specified sequence will generate, without generating it. The query
+	 * takes the schema and name of the sequence as parameters.
+	 * @return the SQL or {@code null} if not supported
+	 */
+	public String getSequenceNextValueSql() {
+		return null;
+	}
+
+	/**
+	 * Returns SQL that drops the specified index.
+	 * @param tableName the name of the table that the index belongs to
+	 * @param indexName the name of the index
+	 * @return the SQL
+	 */
+	public String getDropIndexSql(String tableName, String indexName) {
+		return "DROP INDEX " + indexName;
+	}
+
+	/**
+	 * Returns SQL that creates a non-unique index.
+	 * @param tableName the name of the table
+	 * @param indexName the name of the index
+	 * @param columns the indexed columns, each optionally followed by {@code DESC}
+	 * @return the SQL
+	 */
+	public String getCreateIndexSql(String tableName, String indexName, String[] columns) {
+		String columnList = StringUtils.arrayToDelimitedString(columns, ", ");
+		return "CREATE INDEX " + indexName + " ON " + tableName + " (" + columnList + ")";
+	}
+
+	/**
+	 * Returns SQL that removes all rows from the specified table as quickly as possible while referential integrity is
+	 * {@link #getReferentialIntegritySql(boolean) disabled}.
+	 * @param tableName the name of the table to clean
+	 * @return the SQL
+	 */
+	public String getCleanTableSql(String tableName) {
+		return "TRUNCATE TABLE " + tableName;
+	}
+
+	/**
+	 * Returns the dialect of the specified connection or {@code null} if the database is not supported. Database
+	 * meta-data is only inspected once per connection.
+	 * @param connection the connection
+	 * @return the dialect or {@code null}
+	 * @throws SQLException on database error
+	 */
+	public static DatabaseDialect get(IDatabaseConnection connection) throws SQLException {
+		if (dialects.containsKey(connection)) {
+			return dialects.get(connection);
+		}
+		DatabaseDialect dialect = get(connection.getConnection().getMetaData().getDatabaseProductName());
+		dialects.put(connection, dialect);
+		return dialect;
+	}
+
+	/**
+	 * Returns the dialect for the specified {@link java.sql.DatabaseMetaData#getDatabaseProductName() product name}
+	 * or {@code null} if the database is not supported.
+	 * @param productName the database product name
+	 * @return the dialect or {@code null}
+	 */
+	public static DatabaseDialect get(String productName) {
+		for (DatabaseDialect dialect : values()) {
+			if (dialect.productName.equals(productName)) {
+				return dialect;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Optional features of a dialect.
+	 */
+	public enum Feature {
+
+		/**
+		 * Tables can be copied using {@link DatabaseDialect#getCreateTableAsSelectSql(String, String)} and dropped
+		 * using {@link DatabaseDialect#getDropTableIfExistsSql(String)}.
+		 */
+		CREATE_TABLE_AS_SELECT,
+
+		/**
+		 * Referential integrity can be disabled using {@link DatabaseDialect#getReferentialIntegritySql(boolean)}.
+		 */
+		DISABLING_REFERENTIAL_INTEGRITY,
+
+		/**
+		 * Rows can be inserted or updated using
+		 * {@link DatabaseDialect#getMergeSql(String, String[], String[], String)}.
+		 */
+		MERGE,
+
+		/**
+		 * Row value expressions can be used with an in-list, for example {@code (A, B) IN ((?, ?), (?, ?))}.
+		 */
+		ROW_VALUE_IN_LIST,
+
+		/**
+		 * Checksums of numbers and strings can be calculated using {@code MOD}, {@code FLOOR}, {@code CHAR_LENGTH},
+		 * {@code ASCII} and {@code SUBSTRING} on {@code DECIMAL} values.
+		 */
+		CHECKSUM,
+
+		/**
+		 * Sequences can be restarted using {@link DatabaseDialect#getRestartSequenceSql(String, long)}.
+		 */
+		RESTART_SEQUENCE
+
+	}
+
+}
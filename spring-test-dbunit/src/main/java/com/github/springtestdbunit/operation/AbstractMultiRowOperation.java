@@ -0,0 +1,230 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * Base class for DBUnit {@link DatabaseOperation operations} that write several rows with each statement. Rows that
+ * leave different columns {@link ITable#NO_VALUE unspecified} are written using separate statements.
+ *
+ * @see MultiRowInsertOperation
+ * @see MergeRefreshOperation
+ * @see InListDeleteOperation
+ */
+public abstract class AbstractMultiRowOperation extends AbstractOperation {
+
+	private static final int MAX_ROWS_PER_STATEMENT = 100;
+
+	private static final int MAX_PARAMETERS_PER_STATEMENT = 1000;
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		IDataSet databaseDataSet = connection.createDataSet();
+		ITableIterator iterator = getTableIterator(dataSet);
+		while (iterator.next()) {
+			execute(connection, databaseDataSet, iterator.getTable());
+		}
+	}
+
+	private void execute(IDatabaseConnection connection, IDataSet databaseDataSet, ITable table)
+			throws DatabaseUnitException, SQLException {
+		ITableMetaData databaseMetaData = databaseDataSet.getTableMetaData(table.getTableMetaData().getTableName());
+		Column[] columns = getColumns(table, databaseMetaData);
+		if (columns.length == 0) {
+			return;
+		}
+		Column[] databaseColumns = new Column[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			databaseColumns[i] = databaseMetaData.getColumns()[databaseMetaData.getColumnIndex(columns[i]
+					.getColumnName())];
+		}
+		List<Object[]> rows = new ArrayList<Object[]>();
+		boolean[] specified = null;
+		for (int row = 0;; row++) {
+			Object[] values = new Object[columns.length];
+			try {
+				for (int i = 0; i < columns.length; i++) {
+					values[i] = table.getValue(row, columns[i].getColumnName());
+				}
+			} catch (RowOutOfBoundsException ex) {
+				break;
+			}
+			boolean[] rowSpecified = getSpecified(values);
+			if ((specified != null) && !Arrays.equals(specified, rowSpecified)) {
+				execute(connection, databaseMetaData, databaseColumns, specified, rows);
+				rows.clear();
+			}
+			specified = rowSpecified;
+			rows.add(values);
+		}
+		if (!rows.isEmpty()) {
+			execute(connection, databaseMetaData, databaseColumns, specified, rows);
+		}
+	}
+
+	/**
+	 * Returns the iterator used to access the tables to write. By default tables are written in dataset order.
+	 * @param dataSet the dataset being written
+	 * @return the table iterator
+	 * @throws DatabaseUnitException on error
+	 */
+	protected ITableIterator getTableIterator(IDataSet dataSet) throws DatabaseUnitException {
+		return dataSet.iterator();
+	}
+
+	/**
+	 * Returns the columns of the table that should be written. By default all columns of the dataset table are used.
+	 * @param table the dataset table
+	 * @param databaseMetaData the database meta-data of the table
+	 * @return the columns
+	 * @throws DatabaseUnitException on error
+	 */
+	protected Column[] getColumns(ITable table, ITableMetaData databaseMetaData) throws DatabaseUnitException {
+		return table.getTableMetaData().getColumns();
+	}
+
+	private boolean[] getSpecified(Object[] values) {
+		boolean[] specified = new boolean[values.length];
+		for (int i = 0; i < values.length; i++) {
+			specified[i] = (values[i] != ITable.NO_VALUE);
+		}
+		return specified;
+	}
+
+	private void execute(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns,
+			boolean[] specified, List<Object[]> rows) throws DatabaseUnitException, SQLException {
+		List<Integer> indexes = new ArrayList<Integer>();
+		for (int i = 0; i < columns.length; i++) {
+			if (specified[i]) {
+				indexes.add(i);
+			}
+		}
+		if (indexes.isEmpty()) {
+			return;
+		}
+		Column[] statementColumns = new Column[indexes.size()];
+		for (int i = 0; i < statementColumns.length; i++) {
+			statementColumns[i] = columns[indexes.get(i)];
+		}
+		int rowsPerStatement = Math.max(1,
+				Math.min(MAX_ROWS_PER_STATEMENT, MAX_PARAMETERS_PER_STATEMENT / indexes.size()));
+		IStatementFactory statementFactory = (IStatementFactory) connection.getConfig()
+				.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+		IPreparedBatchStatement statement = null;
+		int statementRows = 0;
+		try {
+			for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+				int count = Math.min(rowsPerStatement, rows.size() - start);
+				if (count != statementRows) {
+					if (statement != null) {
+						statement.executeBatch();
+						statement.close();
+					}
+					statement = statementFactory.createPreparedBatchStatement(
+							getSql(connection, metaData, statementColumns, count), connection);
+					statementRows = count;
+				}
+				for (int row = start; row < start + count; row++) {
+					for (int index : indexes) {
+						statement.addValue(rows.get(row)[index], columns[index].getDataType());
+					}
+				}
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		} finally {
+			if (statement != null) {
+				statement.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the SQL used to write the specified number of rows. The statement must take one parameter for each
+	 * column of each row, in order.
+	 * @param connection the database connection
+	 * @param metaData the database meta-data of the table being written
+	 * @param columns the columns that are written
+	 * @param rows the number of rows written by the statement
+	 * @return the SQL
+	 * @throws DatabaseUnitException if the SQL cannot be created
+	 * @throws SQLException on database error
+	 */
+	protected abstract String getSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns,
+			int rows) throws DatabaseUnitException, SQLException;
+
+	/**
+	 * Returns the qualified names of the specified columns.
+	 * @param connection the database connection
+	 * @param columns the columns
+	 * @return the qualified column names
+	 */
+	protected String[] getColumnNames(IDatabaseConnection connection, Column[] columns) {
+		String[] names = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			names[i] = getQualifiedName(null, columns[i].getColumnName(), connection);
+		}
+		return names;
+	}
+
+	/**
+	 * Returns {@code rows} comma separated groups of parameter markers, one for each column.
+	 * @param columns the columns
+	 * @param rows the number of rows
+	 * @return the parameter markers
+	 */
+	protected String getParameterRows(Column[] columns, int rows) {
+		String row = getInList(columns.length);
+		StringBuilder parameters = new StringBuilder();
+		for (int i = 0; i < rows; i++) {
+			parameters.append(i == 0 ? "" : ", ").append(row);
+		}
+		return parameters.toString();
+	}
+
+	/**
+	 * Returns a parenthesized list of {@code size} parameter markers, for example {@code (?, ?, ?)}.
+	 * @param size the number of parameter markers
+	 * @return the parameter markers
+	 */
+	protected String getInList(int size) {
+		StringBuilder inList = new StringBuilder("(");
+		for (int i = 0; i < size; i++) {
+			inList.append(i == 0 ? "?" : ", ?");
+		}
+		return inList.append(")").toString();
+	}
+
+}
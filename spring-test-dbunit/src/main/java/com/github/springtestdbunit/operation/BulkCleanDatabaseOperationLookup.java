@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+
+/**
+ * {@link DatabaseOperationLookup} that uses {@link BulkCleanOperation bulk clean} operations for
+ * {@link DatabaseOperation#TRUNCATE_TABLE} and {@link DatabaseOperation#CLEAN_INSERT}. Supports the databases whose
+ * {@link com.github.springtestdbunit.dialect.DatabaseDialect dialect} can disable referential integrity, HSQLDB and H2
+ * (which truncates the tables rather than deleting their rows). Other databases use the
+ * {@link DefaultDatabaseOperationLookup default} operations.
+ */
+public class BulkCleanDatabaseOperationLookup extends DefaultDatabaseOperationLookup {
+
+	private static Map<DatabaseOperation, org.dbunit.operation.DatabaseOperation> BULK_CLEAN_LOOKUP;
+
+	static {
+		BULK_CLEAN_LOOKUP = new HashMap<DatabaseOperation, org.dbunit.operation.DatabaseOperation>();
+		BULK_CLEAN_LOOKUP.put(DatabaseOperation.TRUNCATE_TABLE, BulkCleanOperation.TRUNCATE_TABLE);
+		BULK_CLEAN_LOOKUP.put(DatabaseOperation.CLEAN_INSERT, BulkCleanOperation.CLEAN_INSERT);
+	}
+
+	@Override
+	public org.dbunit.operation.DatabaseOperation get(DatabaseOperation operation) {
+		if (BULK_CLEAN_LOOKUP.containsKey(operation)) {
+			return BULK_CLEAN_LOOKUP.get(operation);
+		}
+		return super.get(operation);
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that cleans all dataset tables using a single batch of {@code TRUNCATE}
+ * statements (or {@code DELETE} statements on HSQLDB). Referential integrity is disabled once before the tables are
+ * cleaned and loaded and enabled again afterwards, so tables can be cleaned and loaded regardless of their foreign keys
+ * or the order in which they appear.
+ * <p>
+ * Truncating tables and changing the referential integrity setting commits any open transaction, so the standard
+ * DBUnit operation is used instead when the connection is not in auto-commit mode. The standard operation is also
+ * used for databases where referential integrity cannot be {@link DatabaseDialect disabled}. Referential integrity is
+ * a database wide setting and is not checked for the rows that are loaded while it is disabled.
+ *
+ * @see BulkCleanDatabaseOperationLookup
+ */
+public class BulkCleanOperation extends AbstractOperation {
+
+	/**
+	 * Bulk equivalent of {@link DatabaseOperation#TRUNCATE_TABLE}.
+	 */
+	public static final DatabaseOperation TRUNCATE_TABLE = new BulkCleanOperation(DatabaseOperation.TRUNCATE_TABLE,
+			DatabaseOperation.NONE);
+
+	/**
+	 * Bulk equivalent of {@link DatabaseOperation#CLEAN_INSERT}.
+	 */
+	public static final DatabaseOperation CLEAN_INSERT = new BulkCleanOperation(DatabaseOperation.CLEAN_INSERT,
+			DatabaseOperation.INSERT);
+
+	private final DatabaseOperation fallback;
+
+	private final DatabaseOperation load;
+
+	/**
+	 * Create a new {@link BulkCleanOperation} instance.
+	 * @param fallback the operation used when bulk cleaning is not possible
+	 * @param load the operation used to load tables once they have been truncated
+	 */
+	public BulkCleanOperation(DatabaseOperation fallback, DatabaseOperation load) {
+		this.fallback = fallback;
+		this.load = load;
+	}
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		Connection jdbcConnection = connection.getConnection();
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		if ((dialect == null) || !dialect.supports(Feature.DISABLING_REFERENTIAL_INTEGRITY)
+				|| !jdbcConnection.getAutoCommit()) {
+			this.fallback.execute(connection, dataSet);
+			return;
+		}
+		Set<String> tableNames = getTableNames(connection, dataSet);
+		Statement statement = jdbcConnection.createStatement();
+		try {
+			statement.execute(dialect.getReferentialIntegritySql(false));
+			try {
+				for (String tableName : tableNames) {
+					statement.addBatch(dialect.getCleanTableSql(tableName));
+				}
+				statement.executeBatch();
+				this.load.execute(connection, dataSet);
+			} finally {
+				statement.execute(dialect.getReferentialIntegritySql(true));
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	private Set<String> getTableNames(IDatabaseConnection connection, IDataSet dataSet)
+			throws DatabaseUnitException, SQLException {
+		IDataSet databaseDataSet = connection.createDataSet();
+		Set<String> tableNames = new LinkedHashSet<String>();
+		ITableIterator iterator = dataSet.iterator();
+		while (iterator.next()) {
+			String tableName = iterator.getTableMetaData().getTableName();
+			tableName = databaseDataSet.getTableMetaData(tableName).getTableName();
+			tableNames.add(getQualifiedName(connection.getSchema(), tableName, connection));
+		}
+		return tableNames;
+	}
+
+}
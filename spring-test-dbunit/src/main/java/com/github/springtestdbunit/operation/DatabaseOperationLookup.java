@@ -25,6 +25,8 @@ import com.github.springtestdbunit.annotation.DatabaseOperation;
  * @author Phillip Webb
  * @see DefaultDatabaseOperationLookup
  * @see MicrosoftSqlDatabaseOperationLookup
+ * @see BulkCleanDatabaseOperationLookup
+ * @see DialectDatabaseOperationLookup
  */
 public interface DatabaseOperationLookup {
 
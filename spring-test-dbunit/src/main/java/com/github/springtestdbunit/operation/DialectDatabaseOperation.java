@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+import org.springframework.util.Assert;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that delegates to a specific operation depending on the {@link DatabaseDialect
+ * dialect} of the connection.
+ *
+ * @see DialectDatabaseOperationLookup
+ */
+public class DialectDatabaseOperation extends DatabaseOperation {
+
+	private final DatabaseOperation defaultOperation;
+
+	private final Map<DatabaseDialect, DatabaseOperation> operations = new EnumMap<DatabaseDialect, DatabaseOperation>(
+			DatabaseDialect.class);
+
+	/**
+	 * Create a new {@link DialectDatabaseOperation} instance.
+	 * @param defaultOperation the operation to use when no dialect specific operation has been registered
+	 */
+	public DialectDatabaseOperation(DatabaseOperation defaultOperation) {
+		Assert.notNull(defaultOperation, "DefaultOperation must not be null");
+		this.defaultOperation = defaultOperation;
+	}
+
+	/**
+	 * Register the operation to use with the specified dialect.
+	 * @param dialect the dialect
+	 * @param operation the operation
+	 * @return this instance
+	 */
+	public DialectDatabaseOperation with(DatabaseDialect dialect, DatabaseOperation operation) {
+		this.operations.put(dialect, operation);
+		return this;
+	}
+
+	/**
+	 * Returns the operation that will be used for the specified dialect.
+	 * @param dialect the dialect (may be {@code null})
+	 * @return the operation
+	 */
+	public DatabaseOperation get(DatabaseDialect dialect) {
+		DatabaseOperation operation = (dialect == null ? null : this.operations.get(dialect));
+		return (operation == null ? this.defaultOperation : operation);
+	}
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		get(DatabaseDialect.get(connection)).execute(connection, dataSet);
+	}
+
+}
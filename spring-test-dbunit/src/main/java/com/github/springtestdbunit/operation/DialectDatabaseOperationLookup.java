@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+
+/**
+ * {@link DatabaseOperationLookup} that detects the {@link DatabaseDialect dialect} of each connection and uses the
+ * fastest operations that it supports. HSQLDB uses {@link MultiRowInsertOperation multi-row inserts},
+ * {@link InListDeleteOperation in-list deletes}, {@link BulkCleanOperation bulk clean} operations and
+ * {@link MergeRefreshOperation merge} to refresh. The H2 and Derby dialects use the subset of these that they support
+ * but are not covered by the test suite. Other databases use the {@link DefaultDatabaseOperationLookup default}
+ * operations.
+ */
+public class DialectDatabaseOperationLookup extends DefaultDatabaseOperationLookup {
+
+	private static Map<DatabaseOperation, org.dbunit.operation.DatabaseOperation> DIALECT_LOOKUP;
+
+	static {
+		org.dbunit.operation.DatabaseOperation bulkCleanInsert = new BulkCleanOperation(
+				MultiRowInsertOperation.CLEAN_INSERT, MultiRowInsertOperation.INSERT);
+		DIALECT_LOOKUP = new HashMap<DatabaseOperation, org.dbunit.operation.DatabaseOperation>();
+		DIALECT_LOOKUP.put(DatabaseOperation.INSERT,
+				new DialectDatabaseOperation(org.dbunit.operation.DatabaseOperation.INSERT)
+						.with(DatabaseDialect.HSQLDB, MultiRowInsertOperation.INSERT)
+						.with(DatabaseDialect.H2, MultiRowInsertOperation.INSERT)
+						.with(DatabaseDialect.DERBY, MultiRowInsertOperation.INSERT));
+		DIALECT_LOOKUP.put(DatabaseOperation.DELETE,
+				new DialectDatabaseOperation(org.dbunit.operation.DatabaseOperation.DELETE)
+						.with(DatabaseDialect.HSQLDB, InListDeleteOperation.DELETE)
+						.with(DatabaseDialect.H2, InListDeleteOperation.DELETE)
+						.with(DatabaseDialect.DERBY, InListDeleteOperation.DELETE));
+		DIALECT_LOOKUP.put(DatabaseOperation.REFRESH,
+				new DialectDatabaseOperation(org.dbunit.operation.DatabaseOperation.REFRESH)
+						.with(DatabaseDialect.HSQLDB, MergeRefreshOperation.REFRESH)
+						.with(DatabaseDialect.H2, MergeRefreshOperation.REFRESH));
+		DIALECT_LOOKUP.put(DatabaseOperation.TRUNCATE_TABLE,
+				new DialectDatabaseOperation(org.dbunit.operation.DatabaseOperation.TRUNCATE_TABLE)
+						.with(DatabaseDialect.HSQLDB, BulkCleanOperation.TRUNCATE_TABLE)
+						.with(DatabaseDialect.H2, BulkCleanOperation.TRUNCATE_TABLE));
+		DIALECT_LOOKUP.put(DatabaseOperation.CLEAN_INSERT,
+				new DialectDatabaseOperation(org.dbunit.operation.DatabaseOperation.CLEAN_INSERT)
+						.with(DatabaseDialect.HSQLDB, bulkCleanInsert)
+						.with(DatabaseDialect.H2, bulkCleanInsert)
+						.with(DatabaseDialect.DERBY, MultiRowInsertOperation.CLEAN_INSERT));
+	}
+
+	@Override
+	public org.dbunit.operation.DatabaseOperation get(DatabaseOperation operation) {
+		if (DIALECT_LOOKUP.containsKey(operation)) {
+			return DIALECT_LOOKUP.get(operation);
+		}
+		return super.get(operation);
+	}
+
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+import org.dbunit.util.SQLHelper;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that loads a dataset and then restarts the identity columns and sequences of the
+ * dataset tables so that the next generated value follows the rows that were loaded. Identity columns are detected
+ * from the database meta-data and sequences from column defaults of the form {@code NEXT VALUE FOR SEQ} or, where the
+ * {@link DatabaseDialect dialect} supports it, from the columns that the database reports as using a sequence. After a
+ * {@link DatabaseOperation#CLEAN_INSERT} the highest value of each column is taken from the dataset rather than queried
+ * from the database. Other operations leave existing rows in place, so the highest value in the table is also queried
+ * to make sure that restarts never move backwards. All restarts are executed in a single batch using the dialect of
+ * the connection.
+ * <p>
+ * A sequence shared by several columns is restarted once, after the highest value of all of them. When the database
+ * reports the columns using a sequence, columns of tables outside the dataset are also queried, and a sequence is never
+ * restarted below the next value it would generate.
+ * <p>
+ * Columns that have no value in the dataset are left unchanged. Restarting identities and sequences is DDL, so on
+ * most databases it commits any open transaction.
+ *
+ * @see IdentityResetDatabaseOperationLookup
+ */
+public class IdentityResetOperation extends AbstractOperation {
+
+	private static final Pattern SEQUENCE_DEFAULT = Pattern.compile("^\\(?\\s*NEXT\\s+VALUE\\s+FOR\\s+([^\\s\\)]+)",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Restarts identities and sequences without loading any data.
+	 */
+	public static final DatabaseOperation RESET = new IdentityResetOperation(DatabaseOperation.NONE);
+
+	/**
+	 * {@link DatabaseOperation#INSERT} followed by an identity and sequence reset.
+	 */
+	public static final DatabaseOperation INSERT = new IdentityResetOperation(DatabaseOperation.INSERT);
+
+	/**
+	 * {@link DatabaseOperation#REFRESH} followed by an identity and sequence reset.
+	 */
+	public static final DatabaseOperation REFRESH = new IdentityResetOperation(DatabaseOperation.REFRESH);
+
+	/**
+	 * {@link DatabaseOperation#CLEAN_INSERT} followed by an identity and sequence reset.
+	 */
+	public static final DatabaseOperation CLEAN_INSERT = new IdentityResetOperation(DatabaseOperation.CLEAN_INSERT);
+
+	private final DatabaseOperation load;
+
+	/**
+	 * Create a new {@link IdentityResetOperation} instance.
+	 * @param load the operation used to load the dataset before identities and sequences are reset
+	 */
+	public IdentityResetOperation(DatabaseOperation load) {
+		this.load = load;
+	}
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		this.load.execute(connection, dataSet);
+		List<String> sql = getResetSql(connection, dataSet);
+		if (sql.isEmpty()) {
+			return;
+		}
+		Statement statement = connection.getConnection().createStatement();
+		try {
+			for (String reset : sql) {
+				statement.addBatch(reset);
+			}
+			statement.executeBatch();
+		} finally {
+			statement.close();
+		}
+	}
+
+	private List<String> getResetSql(IDatabaseConnection connection, IDataSet dataSet)
+			throws DatabaseUnitException, SQLException {
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		Map<List<String>, Sequence> columnSequences = getColumnSequences(connection, dialect);
+		Map<String, Sequence> sequences = new LinkedHashMap<String, Sequence>();
+		Set<String> tableNames = new HashSet<String>();
+		List<String> sql = new ArrayList<String>();
+		ITableIterator iterator = dataSet.iterator();
+		while (iterator.next()) {
+			ITable table = iterator.getTable();
+			ITableMetaData metaData = getTableMetaData(connection, table.getTableMetaData().getTableName());
+			tableNames.add(metaData.getTableName().toUpperCase());
+			String tableName = getQualifiedName(connection.getSchema(), metaData.getTableName(), connection);
+			for (Column column : metaData.getColumns()) {
+				Sequence sequence = columnSequences.get(getColumnKey(metaData.getTableName(), column.getColumnName()));
+				String sequenceName = (sequence != null ? sequence.getName() : getSequenceName(column));
+				if ((column.getAutoIncrement() == Column.AutoIncrement.YES) || (sequenceName != null)) {
+					BigDecimal max = getMaxValue(table, column.getColumnName());
+					if (max != null) {
+						if (dialect == null) {
+							throw new DatabaseUnitException("Unable to reset '" + metaData.getTableName() + "."
+									+ column.getColumnName() + "', the database is not supported");
+						}
+						String columnName = getQualifiedName(null, column.getColumnName(), connection);
+						if (this.load != DatabaseOperation.CLEAN_INSERT) {
+							max = getDatabaseMaxValue(connection, tableName, columnName, max);
+						}
+						if (sequenceName != null) {
+							String key = sequenceName.toUpperCase();
+							if (!sequences.containsKey(key)) {
+								sequences.put(key, (sequence != null ? sequence : new Sequence(null, sequenceName)));
+							}
+							sequences.get(key).addMaxValue(max);
+						} else {
+							sql.add(dialect.getRestartIdentitySql(tableName, columnName, max.longValue() + 1));
+						}
+					}
+				}
+			}
+		}
+		for (Sequence sequence : sequences.values()) {
+			String reset = getRestartSequenceSql(connection, dialect, sequence, columnSequences, tableNames);
+			if (reset != null) {
+				sql.add(reset);
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * Returns the SQL that restarts a sequence after the highest value of every column that uses it, or {@code null}
+	 * if the sequence will already generate a higher value.
+	 */
+	private String getRestartSequenceSql(IDatabaseConnection connection, DatabaseDialect dialect, Sequence sequence,
+			Map<List<String>, Sequence> columnSequences, Set<String> tableNames)
+			throws DatabaseUnitException, SQLException {
+		BigDecimal max = sequence.getMaxValue();
+		for (Map.Entry<List<String>, Sequence> entry : columnSequences.entrySet()) {
+			String tableName = entry.getKey().get(0);
+			if (entry.getValue().getName().equalsIgnoreCase(sequence.getName()) && !tableNames.contains(tableName)) {
+				max = getDatabaseMaxValue(connection, getQualifiedName(connection.getSchema(), tableName, connection),
+						getQualifiedName(null, entry.getKey().get(1), connection), max);
+			}
+		}
+		long value = max.longValue() + 1;
+		BigDecimal nextValue = getSequenceNextValue(connection, dialect, sequence);
+		if ((nextValue != null) && (nextValue.longValue() >= value)) {
+			return null;
+		}
+		String reset = dialect.getRestartSequenceSql(sequence.getName(), value);
+		if (reset == null) {
+			throw new DatabaseUnitException("Unable to reset sequence '" + sequence.getName()
+					+ "', restarting sequences is not supported by " + dialect);
+		}
+		return reset;
+	}
+
+	/**
+	 * Returns the sequences used by columns of the connection schema, keyed by the upper case table and column names.
+	 */
+	private Map<List<String>, Sequence> getColumnSequences(IDatabaseConnection connection, DatabaseDialect dialect)
+			throws SQLException {
+		Map<List<String>, Sequence> columnSequences = new HashMap<List<String>, Sequence>();
+		String sql = (dialect != null ? dialect.getColumnSequencesSql() : null);
+		if (sql == null) {
+			return columnSequences;
+		}
+		String schema = connection.getSchema();
+		Statement statement = connection.getConnection().createStatement();
+		try {
+			ResultSet resultSet = statement.executeQuery(sql);
+			try {
+				while (resultSet.next()) {
+					if ((schema == null) || schema.equalsIgnoreCase(resultSet.getString("TABLE_SCHEMA"))) {
+						columnSequences.put(
+								getColumnKey(resultSet.getString("TABLE_NAME"), resultSet.getString("COLUMN_NAME")),
+								new Sequence(resultSet.getString("SEQUENCE_SCHEMA"),
+										resultSet.getString("SEQUENCE_NAME")));
+					}
+				}
+			} finally {
+				resultSet.close();
+			}
+		} finally {
+			statement.close();
+		}
+		return columnSequences;
+	}
+
+	private List<String> getColumnKey(String tableName, String columnName) {
+		return Arrays.asList(tableName.toUpperCase(), columnName.toUpperCase());
+	}
+
+	private BigDecimal getSequenceNextValue(IDatabaseConnection connection, DatabaseDialect dialect,
+			Sequence sequence) throws SQLException {
+		String sql = dialect.getSequenceNextValueSql();
+		if ((sql == null) || (sequence.getSchema() == null)) {
+			return null;
+		}
+		PreparedStatement statement = connection.getConnection().prepareStatement(sql);
+		try {
+			statement.setString(1, sequence.getSchema());
+			statement.setString(2, sequence.getSequenceName());
+			ResultSet resultSet = statement.executeQuery();
+			try {
+				return (resultSet.next() ? resultSet.getBigDecimal(1) : null);
+			} finally {
+				resultSet.close();
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Returns the metadata of a single table, including identity columns and column defaults, without enumerating the
+	 * tables of the schema.
+	 */
+	private ITableMetaData getTableMetaData(IDatabaseConnection connection, String tableName)
+			throws DatabaseUnitException, SQLException {
+		String qualifiedName = getQualifiedName(connection.getSchema(),
+				SQLHelper.correctCase(tableName, connection.getConnection()), connection);
+		return connection.createQueryTable(tableName, "select * from " + qualifiedName + " where 1 = 0")
+				.getTableMetaData();
+	}
+
+	private String getSequenceName(Column column) {
+		String defaultValue = column.getDefaultValue();
+		if (defaultValue == null) {
+			return null;
+		}
+		Matcher matcher = SEQUENCE_DEFAULT.matcher(defaultValue.trim());
+		return (matcher.find() ? matcher.group(1) : null);
+	}
+
+	private BigDecimal getDatabaseMaxValue(IDatabaseConnection connection, String tableName, String columnName,
+			BigDecimal max) throws SQLException {
+		Statement statement = connection.getConnection().createStatement();
+		try {
+			ResultSet resultSet = statement.executeQuery("select max(" + columnName + ") from " + tableName);
+			try {
+				BigDecimal databaseMax = (resultSet.next() ? resultSet.getBigDecimal(1) : null);
+				return ((databaseMax != null) && (databaseMax.compareTo(max) > 0) ? databaseMax : max);
+			} finally {
+				resultSet.close();
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	private BigDecimal getMaxValue(ITable table, String columnName) throws DatabaseUnitException {
+		Column column = Columns.getColumn(columnName, table.getTableMetaData().getColumns());
+		if (column == null) {
+			return null;
+		}
+		BigDecimal max = null;
+		for (int row = 0; row < table.getRowCount(); row++) {
+			Object value = table.getValue(row, column.getColumnName());
+			if ((value != null) && (value != ITable.NO_VALUE)) {
+				BigDecimal number = (BigDecimal) DataType.NUMERIC.typeCast(value);
+				max = ((max == null) || (number.compareTo(max) > 0) ? number : max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * A sequence that generates the values of one or more columns.
+	 */
+	private static class Sequence {
+
+		private final String schema;
+
+		private final String sequenceName;
+
+		private BigDecimal maxValue;
+
+		public Sequence(String schema, String sequenceName) {
+			this.schema = schema;
+			this.sequenceName = sequenceName;
+		}
+
+		public String getSchema() {
+			return this.schema;
+		}
+
+		public String getSequenceName() {
+			return this.sequenceName;
+		}
+
+		public String getName() {
+			return (this.schema != null ? this.schema + "." + this.sequenceName : this.sequenceName);
+		}
+
+		public BigDecimal getMaxValue() {
+			return this.maxValue;
+		}
+
+		public void addMaxValue(BigDecimal value) {
+			this.maxValue = ((this.maxValue == null) || (value.compareTo(this.maxValue) > 0) ? value : this.maxValue);
+		}
+
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.operation.DatabaseOperation;
+import org.springframework.util.StringUtils;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that deletes several rows with each statement by grouping their primary keys
+ * into a {@code DELETE ... WHERE ID IN (...)}. Composite keys use a {@link Feature#ROW_VALUE_IN_LIST
+ * row value} in-list where the database supports it, or are combined using {@code OR} otherwise.
+ *
+ * @see DialectDatabaseOperationLookup
+ */
+public class InListDeleteOperation extends AbstractMultiRowOperation {
+
+	/**
+	 * In-list equivalent of {@link DatabaseOperation#DELETE}.
+	 */
+	public static final DatabaseOperation DELETE = new InListDeleteOperation();
+
+	@Override
+	protected ITableIterator getTableIterator(IDataSet dataSet) throws DatabaseUnitException {
+		return dataSet.reverseIterator();
+	}
+
+	@Override
+	protected Column[] getColumns(ITable table, ITableMetaData databaseMetaData) throws DatabaseUnitException {
+		Column[] primaryKeys = databaseMetaData.getPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new NoPrimaryKeyException(databaseMetaData.getTableName());
+		}
+		return primaryKeys;
+	}
+
+	@Override
+	protected String getSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns, int rows)
+			throws DatabaseUnitException, SQLException {
+		if (columns.length != metaData.getPrimaryKeys().length) {
+			throw new DatabaseUnitException("Unable to delete from table '" + metaData.getTableName()
+					+ "' without a value for each primary key column");
+		}
+		String tableName = getQualifiedName(connection.getSchema(), metaData.getTableName(), connection);
+		String[] columnNames = getColumnNames(connection, columns);
+		return "delete from " + tableName + " where " + getCondition(connection, columns, columnNames, rows);
+	}
+
+	private String getCondition(IDatabaseConnection connection, Column[] columns, String[] columnNames, int rows)
+			throws SQLException {
+		if (columnNames.length == 1) {
+			return columnNames[0] + " in " + getInList(rows);
+		}
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		if ((dialect != null) && dialect.supports(Feature.ROW_VALUE_IN_LIST)) {
+			return "(" + StringUtils.arrayToDelimitedString(columnNames, ", ") + ") in ("
+					+ getParameterRows(columns, rows) + ")";
+		}
+		String row = "(" + StringUtils.arrayToDelimitedString(columnNames, " = ? and ") + " = ?)";
+		StringBuilder condition = new StringBuilder();
+		for (int i = 0; i < rows; i++) {
+			condition.append(i == 0 ? "" : " or ").append(row);
+		}
+		return condition.toString();
+	}
+
+}
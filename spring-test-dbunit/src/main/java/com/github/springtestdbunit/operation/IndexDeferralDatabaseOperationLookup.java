@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+
+/**
+ * {@link DatabaseOperationLookup} that {@link IndexDeferralOperation defers} the secondary indexes of large tables
+ * during {@link DatabaseOperation#INSERT} and {@link DatabaseOperation#CLEAN_INSERT}. Tested with HSQLDB, other
+ * databases defer indexes on a best-effort basis.
+ */
+public class IndexDeferralDatabaseOperationLookup extends DefaultDatabaseOperationLookup {
+
+	private static Map<DatabaseOperation, org.dbunit.operation.DatabaseOperation> INDEX_DEFERRAL_LOOKUP;
+
+	static {
+		INDEX_DEFERRAL_LOOKUP = new HashMap<DatabaseOperation, org.dbunit.operation.DatabaseOperation>();
+		INDEX_DEFERRAL_LOOKUP.put(DatabaseOperation.INSERT, IndexDeferralOperation.INSERT);
+		INDEX_DEFERRAL_LOOKUP.put(DatabaseOperation.CLEAN_INSERT, IndexDeferralOperation.CLEAN_INSERT);
+	}
+
+	@Override
+	public org.dbunit.operation.DatabaseOperation get(DatabaseOperation operation) {
+		if (INDEX_DEFERRAL_LOOKUP.containsKey(operation)) {
+			return INDEX_DEFERRAL_LOOKUP.get(operation);
+		}
+		return super.get(operation);
+	}
+
+}
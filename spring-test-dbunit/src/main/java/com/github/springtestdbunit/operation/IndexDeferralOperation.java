@@ -0,0 +1,272 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+import org.dbunit.util.SQLHelper;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that drops the non-unique secondary indexes of large tables before loading a
+ * dataset and recreates them afterwards, so that each index is built once rather than maintained for every inserted
+ * row. Indexes are only deferred for tables where the dataset contains at least the {@link #getRowThreshold() row
+ * threshold} number of rows. Index definitions are read from {@link DatabaseMetaData#getIndexInfo database
+ * meta-data} and cached. Indexes that cover the same columns as a foreign key are left in place, since they are
+ * usually maintained by the database itself, as are indexes on expressions, which cannot be recreated from the
+ * meta-data.
+ * <p>
+ * Dropping and creating indexes is DDL, which commits any open transaction on most databases, so indexes are only
+ * deferred when the connection is in auto-commit mode. Indexes are recreated even if loading the dataset fails.
+ * Databases without a {@link DatabaseDialect dialect} are loaded without deferring indexes.
+ *
+ * @see IndexDeferralDatabaseOperationLookup
+ */
+public class IndexDeferralOperation extends AbstractOperation {
+
+	/**
+	 * The default number of rows that a table must contain before its indexes are deferred.
+	 */
+	public static final int DEFAULT_ROW_THRESHOLD = 10000;
+
+	/**
+	 * Index deferring equivalent of {@link DatabaseOperation#INSERT}.
+	 */
+	public static final DatabaseOperation INSERT = new IndexDeferralOperation(DatabaseOperation.INSERT,
+			DEFAULT_ROW_THRESHOLD);
+
+	/**
+	 * Index deferring equivalent of {@link DatabaseOperation#CLEAN_INSERT}.
+	 */
+	public static final DatabaseOperation CLEAN_INSERT = new IndexDeferralOperation(DatabaseOperation.CLEAN_INSERT,
+			DEFAULT_ROW_THRESHOLD);
+
+	private static final Log logger = LogFactory.getLog(IndexDeferralOperation.class);
+
+	private final DatabaseOperation load;
+
+	private final int rowThreshold;
+
+	private final Map<String, List<Index>> indexes = new ConcurrentHashMap<String, List<Index>>();
+
+	/**
+	 * Create a new {@link IndexDeferralOperation} instance.
+	 * @param load the operation used to load the dataset
+	 * @param rowThreshold the number of rows that a table must contain before its indexes are deferred
+	 */
+	public IndexDeferralOperation(DatabaseOperation load, int rowThreshold) {
+		this.load = load;
+		this.rowThreshold = rowThreshold;
+	}
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		boolean deferrable = (dialect != null) && connection.getConnection().getAutoCommit();
+		Map<String, List<Index>> deferred = (deferrable ? getDeferredIndexes(connection, dataSet)
+				: Collections.<String, List<Index>> emptyMap());
+		if (deferred.isEmpty()) {
+			this.load.execute(connection, dataSet);
+			return;
+		}
+		Statement statement = connection.getConnection().createStatement();
+		try {
+			for (Map.Entry<String, List<Index>> entry : deferred.entrySet()) {
+				for (Index index : entry.getValue()) {
+					statement.addBatch(dialect.getDropIndexSql(entry.getKey(), index.getName()));
+				}
+			}
+			statement.executeBatch();
+			boolean loaded = false;
+			try {
+				this.load.execute(connection, dataSet);
+				loaded = true;
+			} finally {
+				try {
+					for (Map.Entry<String, List<Index>> entry : deferred.entrySet()) {
+						for (Index index : entry.getValue()) {
+							statement.addBatch(
+									dialect.getCreateIndexSql(entry.getKey(), index.getName(), index.getColumns()));
+						}
+					}
+					statement.executeBatch();
+				} catch (SQLException ex) {
+					if (loaded) {
+						throw ex;
+					}
+					// Don't hide the original failure
+					logger.error("Unable to recreate deferred indexes after load failure", ex);
+				}
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	private Map<String, List<Index>> getDeferredIndexes(IDatabaseConnection connection, IDataSet dataSet)
+			throws DatabaseUnitException, SQLException {
+		Map<String, List<Index>> deferred = new LinkedHashMap<String, List<Index>>();
+		ITableIterator iterator = dataSet.iterator();
+		while (iterator.next()) {
+			ITable table = iterator.getTable();
+			if (getRowCount(table) >= this.rowThreshold) {
+				String tableName = table.getTableMetaData().getTableName();
+				tableName = SQLHelper.correctCase(tableName, connection.getConnection());
+				List<Index> indexes = getIndexes(connection, tableName);
+				if (!indexes.isEmpty()) {
+					deferred.put(getQualifiedName(connection.getSchema(), tableName, connection), indexes);
+				}
+			}
+		}
+		return deferred;
+	}
+
+	private int getRowCount(ITable table) {
+		try {
+			return table.getRowCount();
+		} catch (UnsupportedOperationException ex) {
+			// Streamed tables cannot be counted before they are loaded
+			return 0;
+		}
+	}
+
+	private List<Index> getIndexes(IDatabaseConnection connection, String tableName) throws SQLException {
+		DatabaseMetaData metaData = connection.getConnection().getMetaData();
+		String key = metaData.getURL() + "/" + connection.getSchema() + "/" + tableName;
+		List<Index> indexes = this.indexes.get(key);
+		if (indexes == null) {
+			indexes = readIndexes(connection, metaData, tableName);
+			this.indexes.put(key, indexes);
+		}
+		return indexes;
+	}
+
+	private List<Index> readIndexes(IDatabaseConnection connection, DatabaseMetaData metaData, String tableName)
+			throws SQLException {
+		String schema = connection.getSchema();
+		Set<List<String>> foreignKeys = getForeignKeyColumns(metaData, schema, tableName);
+		Map<String, List<String>> columnsByIndex = new LinkedHashMap<String, List<String>>();
+		Map<String, List<String>> namesByIndex = new LinkedHashMap<String, List<String>>();
+		Set<String> expressionIndexes = new HashSet<String>();
+		ResultSet resultSet = metaData.getIndexInfo(null, schema, tableName, false, true);
+		try {
+			while (resultSet.next()) {
+				String indexName = resultSet.getString("INDEX_NAME");
+				String columnName = resultSet.getString("COLUMN_NAME");
+				if (resultSet.getBoolean("NON_UNIQUE") && (indexName != null)) {
+					if (columnName == null) {
+						// Expressions cannot be recreated from the meta-data, so the index is not deferred
+						expressionIndexes.add(indexName);
+						continue;
+					}
+					if (!columnsByIndex.containsKey(indexName)) {
+						columnsByIndex.put(indexName, new ArrayList<String>());
+						namesByIndex.put(indexName, new ArrayList<String>());
+					}
+					String column = getQualifiedName(null, columnName, connection);
+					columnsByIndex.get(indexName).add("D".equals(resultSet.getString("ASC_OR_DESC"))
+							? column + " DESC" : column);
+					namesByIndex.get(indexName).add(columnName);
+				}
+			}
+		} finally {
+			resultSet.close();
+		}
+		List<Index> indexes = new ArrayList<Index>();
+		for (Map.Entry<String, List<String>> entry : columnsByIndex.entrySet()) {
+			if (!foreignKeys.contains(namesByIndex.get(entry.getKey()))
+					&& !expressionIndexes.contains(entry.getKey())) {
+				List<String> columns = entry.getValue();
+				indexes.add(new Index(getQualifiedName(schema, entry.getKey(), connection),
+						columns.toArray(new String[columns.size()])));
+			}
+		}
+		return Collections.unmodifiableList(indexes);
+	}
+
+	private Set<List<String>> getForeignKeyColumns(DatabaseMetaData metaData, String schema, String tableName)
+			throws SQLException {
+		Map<String, List<String>> columnsByKey = new LinkedHashMap<String, List<String>>();
+		ResultSet resultSet = metaData.getImportedKeys(null, schema, tableName);
+		try {
+			while (resultSet.next()) {
+				String keyName = resultSet.getString("PKTABLE_NAME") + "." + resultSet.getString("FK_NAME");
+				if (!columnsByKey.containsKey(keyName)) {
+					columnsByKey.put(keyName, new ArrayList<String>());
+				}
+				columnsByKey.get(keyName).add(resultSet.getString("FKCOLUMN_NAME"));
+			}
+		} finally {
+			resultSet.close();
+		}
+		return new HashSet<List<String>>(columnsByKey.values());
+	}
+
+	/**
+	 * Returns the number of rows that a table must contain before its indexes are deferred.
+	 * @return the row threshold
+	 */
+	public int getRowThreshold() {
+		return this.rowThreshold;
+	}
+
+	/**
+	 * The definition of a deferred index.
+	 */
+	private static class Index {
+
+		private final String name;
+
+		private final String[] columns;
+
+		public Index(String name, String[] columns) {
+			this.name = name;
+			this.columns = columns;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public String[] getColumns() {
+			return this.columns;
+		}
+
+	}
+
+}
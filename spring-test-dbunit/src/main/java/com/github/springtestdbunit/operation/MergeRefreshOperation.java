@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.operation.DatabaseOperation;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that refreshes several rows with each statement using a
+ * {@link DatabaseDialect#getMergeSql(String, String[], String[], String) MERGE}, rather than trying an update and then
+ * an insert for each row. Falls back to {@link DatabaseOperation#REFRESH} when the database does not support merge.
+ *
+ * @see DialectDatabaseOperationLookup
+ */
+public class MergeRefreshOperation extends AbstractMultiRowOperation {
+
+	/**
+	 * Merge based equivalent of {@link DatabaseOperation#REFRESH}.
+	 */
+	public static final DatabaseOperation REFRESH = new MergeRefreshOperation();
+
+	@Override
+	public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+		DatabaseDialect dialect = DatabaseDialect.get(connection);
+		if ((dialect == null) || !dialect.supports(Feature.MERGE)) {
+			DatabaseOperation.REFRESH.execute(connection, dataSet);
+			return;
+		}
+		super.execute(connection, dataSet);
+	}
+
+	@Override
+	protected String getSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns, int rows)
+			throws DatabaseUnitException, SQLException {
+		Column[] primaryKeys = metaData.getPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new NoPrimaryKeyException(metaData.getTableName());
+		}
+		String[] keyColumns = new String[primaryKeys.length];
+		for (int i = 0; i < primaryKeys.length; i++) {
+			if (!contains(columns, primaryKeys[i])) {
+				throw new DatabaseUnitException("Unable to refresh table '" + metaData.getTableName()
+						+ "' without a value for primary key column '" + primaryKeys[i].getColumnName() + "'");
+			}
+			keyColumns[i] = getQualifiedName(null, primaryKeys[i].getColumnName(), connection);
+		}
+		String tableName = getQualifiedName(connection.getSchema(), metaData.getTableName(), connection);
+		return DatabaseDialect.get(connection).getMergeSql(tableName, getColumnNames(connection, columns),
+				keyColumns, getParameterRows(columns, rows));
+	}
+
+	private boolean contains(Column[] columns, Column column) {
+		for (Column candidate : columns) {
+			if (candidate.getColumnName().equalsIgnoreCase(column.getColumnName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.operation.CompositeOperation;
+import org.dbunit.operation.DatabaseOperation;
+import org.springframework.util.StringUtils;
+
+/**
+ * A DBUnit {@link DatabaseOperation} that inserts several rows with each statement using a multi-row
+ * {@code INSERT INTO ... VALUES (...), (...)}. Rows that leave different columns {@link ITable#NO_VALUE unspecified}
+ * are inserted using separate statements.
+ *
+ * @see DialectDatabaseOperationLookup
+ */
+public class MultiRowInsertOperation extends AbstractMultiRowOperation {
+
+	/**
+	 * Multi-row equivalent of {@link DatabaseOperation#INSERT}.
+	 */
+	public static final DatabaseOperation INSERT = new MultiRowInsertOperation();
+
+	/**
+	 * Multi-row equivalent of {@link DatabaseOperation#CLEAN_INSERT}.
+	 */
+	public static final DatabaseOperation CLEAN_INSERT = new CompositeOperation(DatabaseOperation.DELETE_ALL, INSERT);
+
+	@Override
+	protected String getSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns, int rows) {
+		String tableName = getQualifiedName(connection.getSchema(), metaData.getTableName(), connection);
+		String columnNames = StringUtils.arrayToDelimitedString(getColumnNames(connection, columns), ", ");
+		return "insert into " + tableName + " (" + columnNames + ") values " + getParameterRows(columns, rows);
+	}
+
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.statement;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchStatement;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.PreparedStatementFactory;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.springframework.util.Assert;
+
+import com.github.springtestdbunit.bean.DatabaseConfigBean;
+
+/**
+ * A DBUnit {@link IStatementFactory} that tunes the JDBC batch size separately for each table. The time taken to
+ * execute each batch is measured and the batch size is doubled or halved, within the configured bounds, for as long as
+ * the time per row keeps improving. Tuning for a table stops once it has changed direction twice.
+ * <p>
+ * Tables start with the {@link DatabaseConfig#PROPERTY_BATCH_SIZE configured batch size}. Learned sizes can be
+ * persisted between runs by {@link #setFile(File) setting a file}. Batch sizes are only tuned when
+ * {@link DatabaseConfig#FEATURE_BATCHED_STATEMENTS batched statements} are enabled.
+ *
+ * @see DatabaseConfigBean#setStatementFactory(IStatementFactory)
+ */
+public class AdaptiveBatchStatementFactory implements IStatementFactory {
+
+	private static final Log logger = LogFactory.getLog(AdaptiveBatchStatementFactory.class);
+
+	private static final Pattern TABLE_NAME_PATTERN = Pattern
+			.compile("^\\s*(?:insert\\s+into|update|delete\\s+from)\\s+([^\\s(]+)", Pattern.CASE_INSENSITIVE);
+
+	private static final int DEFAULT_MIN_BATCH_SIZE = 10;
+
+	private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+	private static final int SAMPLES_PER_BATCH_SIZE = 3;
+
+	private final IStatementFactory statementFactory = new PreparedStatementFactory();
+
+	private final int minBatchSize;
+
+	private final int maxBatchSize;
+
+	private final Map<String, BatchSize> batchSizes = new HashMap<String, BatchSize>();
+
+	private final Properties learnedBatchSizes = new Properties();
+
+	private File file;
+
+	/**
+	 * Create a new {@link AdaptiveBatchStatementFactory} that tunes batch sizes between 10 and 1000.
+	 */
+	public AdaptiveBatchStatementFactory() {
+		this(DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+	/**
+	 * Create a new {@link AdaptiveBatchStatementFactory} instance.
+	 * @param minBatchSize the minimum batch size
+	 * @param maxBatchSize the maximum batch size
+	 */
+	public AdaptiveBatchStatementFactory(int minBatchSize, int maxBatchSize) {
+		Assert.isTrue(minBatchSize > 0, "MinBatchSize must be positive");
+		Assert.isTrue(maxBatchSize >= minBatchSize, "MaxBatchSize must not be less than MinBatchSize");
+		this.minBatchSize = minBatchSize;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Set the file used to persist learned batch sizes between runs. Sizes are loaded immediately, if the file
+	 * exists, and saved whenever a size changes.
+	 * @param file the properties file
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized void setFile(File file) throws IOException {
+		this.file = file;
+		if ((file != null) && file.exists()) {
+			InputStream inputStream = new FileInputStream(file);
+			try {
+				this.learnedBatchSizes.load(inputStream);
+			} finally {
+				inputStream.close();
+			}
+		}
+	}
+
+	public IBatchStatement createBatchStatement(IDatabaseConnection connection) throws SQLException {
+		return this.statementFactory.createBatchStatement(connection);
+	}
+
+	public IPreparedBatchStatement createPreparedBatchStatement(String sql, IDatabaseConnection connection)
+			throws SQLException {
+		DatabaseConfig config = connection.getConfig();
+		boolean batched = ((Boolean) config.getProperty(DatabaseConfig.FEATURE_BATCHED_STATEMENTS)).booleanValue()
+				&& connection.getConnection().getMetaData().supportsBatchUpdates();
+		Matcher matcher = TABLE_NAME_PATTERN.matcher(sql);
+		if (!batched || !matcher.find()) {
+			return this.statementFactory.createPreparedBatchStatement(sql, connection);
+		}
+		Integer batchSize = (Integer) config.getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
+		BatchSize tableBatchSize = getBatchSize(matcher.group(1), batchSize.intValue());
+		return new AdaptiveBatchStatement(connection.getConnection().prepareStatement(sql), tableBatchSize);
+	}
+
+	private synchronized BatchSize getBatchSize(String tableName, int defaultBatchSize) {
+		String key = tableName.toUpperCase();
+		BatchSize batchSize = this.batchSizes.get(key);
+		if (batchSize == null) {
+			String learned = this.learnedBatchSizes.getProperty(key);
+			batchSize = new BatchSize(key, (learned == null ? defaultBatchSize : Integer.parseInt(learned)));
+			this.batchSizes.put(key, batchSize);
+		}
+		return batchSize;
+	}
+
+	/**
+	 * Returns the current batch size for the specified table or {@code null} if the table has not been written.
+	 * @param tableName the table name
+	 * @return the batch size or {@code null}
+	 */
+	public synchronized Integer getBatchSize(String tableName) {
+		BatchSize batchSize = this.batchSizes.get(tableName.toUpperCase());
+		return (batchSize == null ? null : batchSize.get());
+	}
+
+	private synchronized void learned(String tableName, int batchSize) {
+		this.learnedBatchSizes.setProperty(tableName, String.valueOf(batchSize));
+		if (this.file == null) {
+			return;
+		}
+		try {
+			OutputStream outputStream = new FileOutputStream(this.file);
+			try {
+				this.learnedBatchSizes.store(outputStream, "DBUnit batch sizes");
+			} finally {
+				outputStream.close();
+			}
+		} catch (IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Unable to save batch sizes to " + this.file, ex);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current value of the timer used to measure batches.
+	 * @return the current time in nanoseconds
+	 */
+	protected long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * The tuned batch size of a single table.
+	 */
+	private class BatchSize {
+
+		private final String tableName;
+
+		private int size;
+
+		private boolean growing = true;
+
+		private int reversals;
+
+		private double previousNanosPerRow = -1;
+
+		private long sampleNanos;
+
+		private int sampleRows;
+
+		private int samples;
+
+		public BatchSize(String tableName, int size) {
+			this.tableName = tableName;
+			this.size = Math.max(AdaptiveBatchStatementFactory.this.minBatchSize,
+					Math.min(AdaptiveBatchStatementFactory.this.maxBatchSize, size));
+		}
+
+		public synchronized int get() {
+			return this.size;
+		}
+
+		public void record(int rows, long nanos) {
+			int learned;
+			synchronized (this) {
+				if ((this.reversals >= 2) || (rows != this.size)) {
+					return;
+				}
+				this.sampleNanos += nanos;
+				this.sampleRows += rows;
+				if (++this.samples < SAMPLES_PER_BATCH_SIZE) {
+					return;
+				}
+				double nanosPerRow = (double) this.sampleNanos / this.sampleRows;
+				this.sampleNanos = 0;
+				this.sampleRows = 0;
+				this.samples = 0;
+				if ((this.previousNanosPerRow >= 0) && (nanosPerRow > this.previousNanosPerRow)) {
+					this.growing = !this.growing;
+					this.reversals++;
+				}
+				this.previousNanosPerRow = nanosPerRow;
+				int next = next();
+				if (next == this.size) {
+					this.growing = !this.growing;
+					this.reversals++;
+					next = next();
+				}
+				this.size = next;
+				learned = next;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using batch size " + learned + " for table " + this.tableName);
+			}
+			learned(this.tableName, learned);
+		}
+
+		private int next() {
+			if (this.growing) {
+				return Math.min(AdaptiveBatchStatementFactory.this.maxBatchSize, this.size * 2);
+			}
+			return Math.max(AdaptiveBatchStatementFactory.this.minBatchSize, this.size / 2);
+		}
+
+	}
+
+	/**
+	 * {@link IPreparedBatchStatement} that executes each time the tuned batch size is reached.
+	 */
+	private class AdaptiveBatchStatement implements IPreparedBatchStatement {
+
+		private final PreparedStatement statement;
+
+		private final BatchSize batchSize;
+
+		private int size;
+
+		private int index;
+
+		private int rows;
+
+		private int result;
+
+		public AdaptiveBatchStatement(PreparedStatement statement, BatchSize batchSize) {
+			this.statement = statement;
+			this.batchSize = batchSize;
+			this.size = batchSize.get();
+		}
+
+		public void addValue(Object value, DataType dataType) throws TypeCastException, SQLException {
+			if ((value == null) || (value == ITable.NO_VALUE)) {
+				this.statement.setNull(++this.index, dataType.getSqlType());
+				return;
+			}
+			dataType.setSqlValue(value, ++this.index, this.statement);
+		}
+
+		public void addBatch() throws SQLException {
+			this.index = 0;
+			this.statement.addBatch();
+			if (++this.rows == this.size) {
+				execute();
+			}
+		}
+
+		private void execute() throws SQLException {
+			long start = nanoTime();
+			for (int count : this.statement.executeBatch()) {
+				this.result += count;
+			}
+			this.batchSize.record(this.rows, nanoTime() - start);
+			this.rows = 0;
+			this.size = this.batchSize.get();
+		}
+
+		public int executeBatch() throws SQLException {
+			if (this.rows > 0) {
+				execute();
+			}
+			int result = this.result;
+			this.result = 0;
+			return result;
+		}
+
+		public void clearBatch() throws SQLException {
+			this.statement.clearBatch();
+			this.index = 0;
+			this.rows = 0;
+			this.result = 0;
+		}
+
+		public void close() throws SQLException {
+			this.statement.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.AutomaticPreparedBatchStatement;
+import org.dbunit.database.statement.IBatchStatement;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.PreparedStatementFactory;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.util.Assert;
+
+import com.github.springtestdbunit.bean.DatabaseConfigBean;
+
+/**
+ * A DBUnit {@link IStatementFactory} that caches prepared statements so that repeated setup and teardown operations
+ * do not need to prepare the same SQL again. Statements are cached against the physical JDBC connection (Spring
+ * {@link ConnectionProxy connection proxies} are unwrapped) and are only reused while that connection remains open.
+ * The cache is therefore most effective when connections are reused between tests, for example when using a
+ * {@link org.springframework.jdbc.datasource.SingleConnectionDataSource SingleConnectionDataSource}.
+ * <p>
+ * Each connection holds a bounded number of statements, with the least recently used statement being closed when the
+ * limit is reached. Statements are keyed by their SQL, which DBUnit generates from the operation, the table and the
+ * columns being written.
+ *
+ * @see DatabaseConfigBean#setStatementFactory(IStatementFactory)
+ */
+public class CachingStatementFactory implements IStatementFactory {
+
+	private static final Log logger = LogFactory.getLog(CachingStatementFactory.class);
+
+	private static final int DEFAULT_CACHE_SIZE = 64;
+
+	private final IStatementFactory statementFactory = new PreparedStatementFactory();
+
+	private final int cacheSize;
+
+	private final Map<Connection, StatementCache> caches = new LinkedHashMap<Connection, StatementCache>();
+
+	/**
+	 * Create a new {@link CachingStatementFactory} that caches up to 64 statements per connection.
+	 */
+	public CachingStatementFactory() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Create a new {@link CachingStatementFactory} instance.
+	 * @param cacheSize the maximum number of statements cached per connection
+	 */
+	public CachingStatementFactory(int cacheSize) {
+		Assert.isTrue(cacheSize > 0, "CacheSize must be positive");
+		this.cacheSize = cacheSize;
+	}
+
+	public IBatchStatement createBatchStatement(IDatabaseConnection connection) throws SQLException {
+		return this.statementFactory.createBatchStatement(connection);
+	}
+
+	public IPreparedBatchStatement createPreparedBatchStatement(String sql, IDatabaseConnection connection)
+			throws SQLException {
+		DatabaseConfig config = connection.getConfig();
+		Integer batchSize = (Integer) config.getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
+		boolean batched = ((Boolean) config.getProperty(DatabaseConfig.FEATURE_BATCHED_STATEMENTS)).booleanValue()
+				&& connection.getConnection().getMetaData().supportsBatchUpdates();
+		StatementCache cache = getCache(connection.getConnection());
+		IPreparedBatchStatement statement = new CachedPreparedBatchStatement(cache, sql, cache.get(sql), batched);
+		return new AutomaticPreparedBatchStatement(statement, batchSize.intValue());
+	}
+
+	private synchronized StatementCache getCache(Connection connection) throws SQLException {
+		connection = getTargetConnection(connection);
+		Iterator<Map.Entry<Connection, StatementCache>> iterator = this.caches.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Connection, StatementCache> entry = iterator.next();
+			if ((entry.getKey() != connection) && entry.getKey().isClosed()) {
+				iterator.remove();
+				entry.getValue().close();
+			}
+		}
+		StatementCache cache = this.caches.get(connection);
+		if (cache == null) {
+			cache = new StatementCache(connection);
+			this.caches.put(connection, cache);
+		}
+		return cache;
+	}
+
+	private Connection getTargetConnection(Connection connection) {
+		while (connection instanceof ConnectionProxy) {
+			connection = ((ConnectionProxy) connection).getTargetConnection();
+		}
+		return connection;
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Unable to close cached statement", ex);
+			}
+		}
+	}
+
+	/**
+	 * Cache of statements for a single connection.
+	 */
+	private class StatementCache {
+
+		private final Connection connection;
+
+		private final Map<String, PreparedStatement> statements;
+
+		public StatementCache(Connection connection) {
+			this.connection = connection;
+			this.statements = new LeastRecentlyUsedStatements(CachingStatementFactory.this.cacheSize);
+		}
+
+		public synchronized PreparedStatement get(String sql) throws SQLException {
+			PreparedStatement statement = this.statements.remove(sql);
+			if (statement == null) {
+				statement = this.connection.prepareStatement(sql);
+			}
+			return statement;
+		}
+
+		public synchronized void release(String sql, PreparedStatement statement) {
+			PreparedStatement previous = this.statements.put(sql, statement);
+			if ((previous != null) && (previous != statement)) {
+				closeQuietly(previous);
+			}
+		}
+
+		public synchronized void close() {
+			for (PreparedStatement statement : this.statements.values()) {
+				closeQuietly(statement);
+			}
+			this.statements.clear();
+		}
+
+	}
+
+	/**
+	 * Statements held by a {@link StatementCache}, closing the least recently used statement once the cache is full.
+	 */
+	private static class LeastRecentlyUsedStatements extends LinkedHashMap<String, PreparedStatement> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+
+		public LeastRecentlyUsedStatements(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() > this.maxSize) {
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * {@link IPreparedBatchStatement} that returns its statement to the cache when closed. Statements that fail are
+	 * closed rather than being returned.
+	 */
+	private static class CachedPreparedBatchStatement implements IPreparedBatchStatement {
+
+		private final StatementCache cache;
+
+		private final String sql;
+
+		private final PreparedStatement statement;
+
+		private final boolean batched;
+
+		private int index;
+
+		private int result;
+
+		private boolean failed;
+
+		public CachedPreparedBatchStatement(StatementCache cache, String sql, PreparedStatement statement,
+				boolean batched) {
+			this.cache = cache;
+			this.sql = sql;
+			this.statement = statement;
+			this.batched = batched;
+		}
+
+		public void addValue(Object value, DataType dataType) throws TypeCastException, SQLException {
+			if ((value == null) || (value == ITable.NO_VALUE)) {
+				this.statement.setNull(++this.index, dataType.getSqlType());
+				return;
+			}
+			dataType.setSqlValue(value, ++this.index, this.statement);
+		}
+
+		public void addBatch() throws SQLException {
+			this.index = 0;
+			try {
+				if (this.batched) {
+					this.statement.addBatch();
+				} else if (!this.statement.execute()) {
+					this.result += this.statement.getUpdateCount();
+				}
+			} catch (SQLException ex) {
+				this.failed = true;
+				throw ex;
+			}
+		}
+
+		public int executeBatch() throws SQLException {
+			if (!this.batched) {
+				int result = this.result;
+				this.result = 0;
+				return result;
+			}
+			try {
+				int result = 0;
+				for (int count : this.statement.executeBatch()) {
+					result += count;
+				}
+				return result;
+			} catch (SQLException ex) {
+				this.failed = true;
+				throw ex;
+			}
+		}
+
+		public void clearBatch() throws SQLException {
+			this.index = 0;
+			this.result = 0;
+			if (this.batched) {
+				this.statement.clearBatch();
+			}
+		}
+
+		public void close() throws SQLException {
+			if (this.failed) {
+				this.statement.close();
+				return;
+			}
+			try {
+				clearBatch();
+				this.statement.clearParameters();
+			} catch (SQLException ex) {
+				this.statement.close();
+				throw ex;
+			}
+			this.cache.release(this.sql, this.statement);
+		}
+
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link AsyncTearDown}.
+ */
+public class AsyncTearDownTest {
+
+	private final AsyncTearDown asyncTearDown = new AsyncTearDown();
+
+	@Test
+	public void shouldOnlyAwaitTearDownsThatTouchTheSameTables() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicBoolean complete = new AtomicBoolean();
+		this.asyncTearDown.submit("test", true, Arrays.asList("PUBLIC.SAMPLE"), new Callable<Void>() {
+
+			public Void call() throws Exception {
+				latch.await();
+				complete.set(true);
+				return null;
+			}
+
+		});
+		this.asyncTearDown.await(Arrays.asList("other"));
+		assertFalse(complete.get());
+		assertTrue(this.asyncTearDown.isPending());
+		latch.countDown();
+		this.asyncTearDown.await(Arrays.asList("sample"));
+		assertTrue(complete.get());
+		assertFalse(this.asyncTearDown.isPending());
+		this.asyncTearDown.close();
+	}
+
+	@Test
+	public void shouldThrowFailureWhenClosed() throws Exception {
+		submitFailing(true, Collections.singleton("sample"));
+		this.asyncTearDown.await(null);
+		try {
+			this.asyncTearDown.close();
+			fail("Did not throw");
+		} catch (IllegalStateException ex) {
+			assertEquals("Asynchronous @DatabaseTearDown of com.example.FailingTest.test failed", ex.getMessage());
+			assertEquals("Failed", ex.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void shouldThrowCompletedFailureOnce() throws Exception {
+		submitFailing(true, Collections.singleton("sample"));
+		while (this.asyncTearDown.isPending()) {
+			Thread.sleep(10);
+		}
+		try {
+			this.asyncTearDown.throwFailure();
+			fail("Did not throw");
+		} catch (IllegalStateException ex) {
+			assertEquals("Asynchronous @DatabaseTearDown of com.example.FailingTest.test failed", ex.getMessage());
+		}
+		this.asyncTearDown.throwFailure();
+		this.asyncTearDown.close();
+	}
+
+	@Test
+	public void shouldNotThrowFailureWhenTestAlreadyFailed() throws Exception {
+		submitFailing(false, null);
+		this.asyncTearDown.close();
+	}
+
+	private void submitFailing(boolean reportFailure, Collection<String> tableNames) {
+		this.asyncTearDown.submit("com.example.FailingTest.test", reportFailure, tableNames, new Callable<Void>() {
+
+			public Void call() throws Exception {
+				throw new IllegalStateException("Failed");
+			}
+
+		});
+	}
+
+}
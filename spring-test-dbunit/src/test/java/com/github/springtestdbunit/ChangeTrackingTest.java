@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.sql.DriverManager;
+import java.util.Collections;
+import java.util.List;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.ChangeTracking.TableCheck;
+import com.github.springtestdbunit.bean.ChangeTrackingDataSource;
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link ChangeTracking}.
+ */
+public class ChangeTrackingTest {
+
+	private final ChangeTrackingDataSource dataSource = new ChangeTrackingDataSource(
+			HsqldbDatabase.createDataSource("changetracking"));
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase(this.dataSource);
+
+	private IDatabaseConnection connection;
+
+	private List<IDatabaseConnection> connections;
+
+	private JdbcTemplate jdbc;
+
+	private ChangeTracking changeTracking;
+
+	private ITable expectedTable;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.connections = Collections.singletonList(this.connection);
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key, value varchar(10))");
+		this.changeTracking = new ChangeTracking();
+		this.expectedTable = new FlatXmlDataSetBuilder()
+				.build(new StringReader("<dataset><sample id='1' value='a'/></dataset>")).getTable("sample");
+		startTest("setup");
+		this.jdbc.update("insert into sample values (1, 'a')");
+		this.changeTracking.setupComplete(this.connections);
+	}
+
+	@Test
+	public void shouldGetDataSource() throws Exception {
+		assertSame(this.dataSource, ChangeTracking.getDataSource(this.connection));
+		IDatabaseConnection untracked = new DatabaseConnection(DriverManager.getConnection(
+				"jdbc:hsqldb:mem:changetracking", "sa", ""));
+		assertNull(ChangeTracking.getDataSource(untracked));
+		untracked.close();
+	}
+
+	@Test
+	public void shouldNotCheckWithoutSetup() throws Exception {
+		this.changeTracking.startTest(this.connections);
+		assertNull(this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT"));
+	}
+
+	@Test
+	public void shouldBeVerifiedWhenUnchanged() throws Exception {
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(this.expectedTable));
+		check.verified(this.expectedTable, 1);
+		startTest("setup");
+		check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertTrue(check.isVerified(this.expectedTable));
+	}
+
+	@Test
+	public void shouldNotBeVerifiedWithDifferentSetup() throws Exception {
+		this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT").verified(this.expectedTable, 1);
+		startTest("other");
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(this.expectedTable));
+	}
+
+	@Test
+	public void shouldNotBeVerifiedWhenChangedByTest() throws Exception {
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		this.jdbc.update("update sample set value = 'b'");
+		check.verified(this.expectedTable, 1);
+		assertFalse(check.isVerified(this.expectedTable));
+		startTest("setup");
+		check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(this.expectedTable));
+	}
+
+	@Test
+	public void shouldForgetVerificationWhenChangedByLaterTest() throws Exception {
+		this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT").verified(this.expectedTable, 1);
+		this.jdbc.update("update sample set value = 'b'");
+		this.jdbc.update("update sample set value = 'a'");
+		startTest("setup");
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(this.expectedTable));
+	}
+
+	@Test
+	public void shouldNotBeVerifiedWhenRowCountDiffers() throws Exception {
+		this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT").verified(this.expectedTable, 1);
+		startTest("setup");
+		new JdbcTemplate(HsqldbDatabase.createDataSource("changetracking"))
+				.update("insert into sample values (2, 'b')");
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(this.expectedTable));
+	}
+
+	@Test
+	public void shouldNotBeVerifiedWhenChangedByCascade() throws Exception {
+		this.jdbc.execute("create table child (id int primary key, sample int references sample(id) "
+				+ "on update cascade)");
+		this.jdbc.update("insert into child values (1, 1)");
+		startTest("setup");
+		ITable expectedChild = new FlatXmlDataSetBuilder()
+				.build(new StringReader("<dataset><child id='1' sample='1'/></dataset>")).getTable("child");
+		this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT").verified(expectedChild, 1);
+		this.jdbc.update("update sample set id = 2");
+		TableCheck check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(expectedChild));
+		startTest("setup");
+		check = this.changeTracking.getTableCheck("dataSource", this.connection, "NON_STRICT");
+		assertFalse(check.isVerified(expectedChild));
+	}
+
+	private void startTest(String fingerprint) throws Exception {
+		this.changeTracking.startTest(this.connections);
+		this.changeTracking.setup("dataSource", fingerprint);
+		this.changeTracking.setupComplete(this.connections);
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.dataset.IDataSet;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import com.github.springtestdbunit.dataset.DataSetLoader;
+
+/**
+ * Tests for {@link DataSetPrefetcher}.
+ */
+public class DataSetPrefetcherTest {
+
+	private DataSetLoader loader = mock(DataSetLoader.class);
+
+	private DataSetPrefetcher prefetcher = new DataSetPrefetcher(Sample.class);
+
+	@Test
+	public void shouldGetNextTestMethodInJUnitOrder() throws Exception {
+		assertEquals(Sample.class.getMethod("b"), this.prefetcher.getNextTestMethod(Sample.class.getMethod("a")));
+		assertEquals(Sample.class.getMethod("c"), this.prefetcher.getNextTestMethod(Sample.class.getMethod("b")));
+		assertNull(this.prefetcher.getNextTestMethod(Sample.class.getMethod("c")));
+		assertNull(this.prefetcher.getNextTestMethod(Sample.class.getMethod("helper")));
+	}
+
+	@Test
+	public void shouldUsePrefetchedDataSetOnce() throws Exception {
+		IDataSet dataSet = mock(IDataSet.class);
+		given(this.loader.loadDataSet(Sample.class, "test.xml")).willReturn(dataSet);
+		this.prefetcher.prefetch(this.loader, Arrays.asList("test.xml", ""));
+		assertSame(dataSet, this.prefetcher.load(this.loader, "test.xml"));
+		verify(this.loader).loadDataSet(Sample.class, "test.xml");
+		assertSame(dataSet, this.prefetcher.load(this.loader, "test.xml"));
+		verify(this.loader, times(2)).loadDataSet(Sample.class, "test.xml");
+	}
+
+	@Test
+	public void shouldThrowPrefetchFailure() throws Exception {
+		Exception failure = new IllegalStateException("Failed");
+		given(this.loader.loadDataSet(Sample.class, "test.xml")).willThrow(failure);
+		this.prefetcher.prefetch(this.loader, Arrays.asList("test.xml"));
+		try {
+			this.prefetcher.load(this.loader, "test.xml");
+			fail("Did not throw");
+		} catch (IllegalStateException ex) {
+			assertSame(failure, ex);
+		}
+	}
+
+	@Test
+	public void shouldPredictDefaultJUnitOrder() throws Exception {
+		DataSetPrefetcher prefetcher = new DataSetPrefetcher(DefaultOrderSample.class);
+		List<FrameworkMethod> methods = new TestClass(DefaultOrderSample.class).getAnnotatedMethods(Test.class);
+		for (int i = 0; i < methods.size() - 1; i++) {
+			assertEquals(methods.get(i + 1).getMethod(), prefetcher.getNextTestMethod(methods.get(i).getMethod()));
+		}
+		assertNull(prefetcher.getNextTestMethod(methods.get(methods.size() - 1).getMethod()));
+	}
+
+	@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+	public static class Sample {
+
+		@Test
+		public void c() {
+		}
+
+		@Test
+		public void a() {
+		}
+
+		public void helper() {
+		}
+
+		@Test
+		public void b() {
+		}
+
+	}
+
+	public static class DefaultOrderSample extends DefaultOrderBase {
+
+		@Test
+		public void shouldLoad() {
+		}
+
+		@Test
+		public void shouldSave() {
+		}
+
+		@Test
+		public void verify() {
+		}
+
+	}
+
+	public static class DefaultOrderBase {
+
+		@Test
+		public void inherited() {
+		}
+
+		@Test
+		public void alsoInherited() {
+		}
+
+	}
+
+}
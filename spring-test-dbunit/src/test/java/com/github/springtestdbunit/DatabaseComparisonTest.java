@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.filter.DefaultColumnFilter;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link DatabaseComparison}.
+ */
+public class DatabaseComparisonTest {
+
+	private static final List<IColumnFilter> NO_FILTERS = Collections.emptyList();
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("databasecomparison");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key, value varchar(10), amount decimal(10,2), "
+				+ "created timestamp)");
+		this.jdbc.update("insert into sample values (1, 'a', 1.5, '2016-01-01 10:00:00')");
+		this.jdbc.update("insert into sample values (2, 'b', null, null)");
+		this.jdbc.update("insert into sample values (3, 'b', null, null)");
+	}
+
+	@Test
+	public void shouldMatchRowsInAnyOrder() throws Exception {
+		DefaultTable expected = createTable("sample", "id", "value", "amount");
+		expected.addRow(new Object[] { "3", "b", null });
+		expected.addRow(new Object[] { "1", "a", "1.50" });
+		expected.addRow(new Object[] { "2", "b", null });
+		assertTrue(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldMatchDuplicateRowsOfSpecifiedColumns() throws Exception {
+		DefaultTable expected = createTable("sample", "value");
+		expected.addRow(new Object[] { "b" });
+		expected.addRow(new Object[] { "a" });
+		expected.addRow(new Object[] { "b" });
+		assertTrue(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchDifferentDuplicates() throws Exception {
+		DefaultTable expected = createTable("sample", "value");
+		expected.addRow(new Object[] { "a" });
+		expected.addRow(new Object[] { "a" });
+		expected.addRow(new Object[] { "b" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchValuesSwappedBetweenRows() throws Exception {
+		DefaultTable expected = createTable("sample", "id", "value");
+		expected.addRow(new Object[] { "1", "b" });
+		expected.addRow(new Object[] { "2", "a" });
+		expected.addRow(new Object[] { "3", "b" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchEmptyStringWithNull() throws Exception {
+		this.jdbc.update("update sample set value = null where id = 2");
+		DefaultTable expected = createTable("sample", "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "" });
+		expected.addRow(new Object[] { "3", "b" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchLongerString() throws Exception {
+		this.jdbc.update("update sample set value = 'ab' where id = 1");
+		DefaultTable expected = createTable("sample", "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "3", "b" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchUnexpectedFraction() throws Exception {
+		this.jdbc.update("update sample set amount = 1.53 where id = 1");
+		DefaultTable expected = createTable("sample", "id", "amount");
+		expected.addRow(new Object[] { "1", "1.5" });
+		expected.addRow(new Object[] { "2", null });
+		expected.addRow(new Object[] { "3", null });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldMatchNegativeNumbers() throws Exception {
+		this.jdbc.update("update sample set id = -1, amount = -0.25 where id = 1");
+		DefaultTable expected = createTable("sample", "id", "amount");
+		expected.addRow(new Object[] { "-1", "-0.25" });
+		expected.addRow(new Object[] { "2", null });
+		expected.addRow(new Object[] { "3", null });
+		assertTrue(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldMatchLargeTables() throws Exception {
+		DefaultTable expected = createLargeTable(1001);
+		assertTrue(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchLargeTablesWithDifferenceInLastRow() throws Exception {
+		DefaultTable expected = createLargeTable(1001);
+		expected.setValue(expected.getRowCount() - 1, "value", "x");
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotCompareStringsAboveMaxCharacters() throws Exception {
+		this.jdbc.execute("alter table sample alter column value varchar(1000)");
+		char[] characters = new char[DatabaseComparison.MAX_CHARACTERS + 1];
+		Arrays.fill(characters, 'x');
+		String value = new String(characters);
+		this.jdbc.update("update sample set value = ?", value);
+		DefaultTable expected = createTable("sample", "value");
+		expected.addRow(new Object[] { value });
+		expected.addRow(new Object[] { value });
+		expected.addRow(new Object[] { value });
+		assertFalse(isEqual(expected, NO_FILTERS));
+		expected.setValue(0, "value", value.substring(1));
+		this.jdbc.update("update sample set value = ? where id = 1", value.substring(1));
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotCompareUnsupportedColumn() throws Exception {
+		DefaultTable expected = createTable("sample", "id", "created");
+		expected.addRow(new Object[] { "1", "2016-01-01 10:00:00" });
+		expected.addRow(new Object[] { "2", null });
+		expected.addRow(new Object[] { "3", null });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchDifferentRowCount() throws Exception {
+		DefaultTable expected = createTable("sample", "id");
+		expected.addRow(new Object[] { "1" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchUnknownColumn() throws Exception {
+		DefaultTable expected = createTable("sample", "missing");
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldNotMatchInvalidValue() throws Exception {
+		DefaultTable expected = createTable("sample", "id");
+		expected.addRow(new Object[] { "x" });
+		expected.addRow(new Object[] { "2" });
+		expected.addRow(new Object[] { "3" });
+		assertFalse(isEqual(expected, NO_FILTERS));
+	}
+
+	@Test
+	public void shouldApplyColumnFilters() throws Exception {
+		DefaultTable expected = createTable("sample", "id", "value");
+		expected.addRow(new Object[] { "1", "x" });
+		expected.addRow(new Object[] { "2", "x" });
+		expected.addRow(new Object[] { "3", "x" });
+		DefaultColumnFilter filter = new DefaultColumnFilter();
+		filter.excludeColumn("value");
+		assertTrue(isEqual(expected, Collections.<IColumnFilter> singletonList(filter)));
+	}
+
+	private boolean isEqual(ITable expected, List<IColumnFilter> columnFilters) throws Exception {
+		ITableMetaData actualMetaData = new TargetedDataSet(this.connection, new String[] { "sample" })
+				.getTableMetaData("sample");
+		return DatabaseComparison.isEqual(this.connection, expected, actualMetaData, columnFilters);
+	}
+
+	private DefaultTable createLargeTable(int rows) throws Exception {
+		this.jdbc.update("delete from sample");
+		List<Object[]> values = new ArrayList<Object[]>();
+		DefaultTable table = createTable("sample", "id", "value");
+		for (int i = 0; i < rows; i++) {
+			values.add(new Object[] { i, "v" + i });
+			table.addRow(new Object[] { String.valueOf(i), "v" + i });
+		}
+		this.jdbc.batchUpdate("insert into sample (id, value) values (?, ?)", values);
+		return table;
+	}
+
+}
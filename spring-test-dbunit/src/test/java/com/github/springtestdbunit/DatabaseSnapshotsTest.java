@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link DatabaseSnapshots}.
+ */
+public class DatabaseSnapshotsTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("snapshots");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	private IDataSet dataSet;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table parent (id int primary key, value varchar(10))");
+		this.jdbc.execute("create table child (id int primary key, parent int references parent(id))");
+		this.jdbc.update("insert into parent values (1, 'a')");
+		this.jdbc.update("insert into child values (1, 1)");
+		this.dataSet = new DefaultDataSet(new DefaultTable("parent"), new DefaultTable("child"));
+	}
+
+	@Test
+	public void shouldRestoreCapturedSnapshot() throws Exception {
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		snapshots.capture(this.connection, "key", this.dataSet);
+		this.jdbc.update("delete from child");
+		this.jdbc.update("insert into parent values (2, 'b')");
+		this.jdbc.update("update parent set value = 'c' where id = 1");
+		assertTrue(snapshots.restore(this.connection, "key"));
+		assertEquals(Arrays.asList("a"), this.jdbc.queryForList("select value from parent", String.class));
+		assertEquals(1, this.jdbc.queryForObject("select count(*) from child", Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldNotRestoreUnknownSnapshot() throws Exception {
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		assertFalse(snapshots.restore(this.connection, "key"));
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedSnapshot() throws Exception {
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		snapshots.capture(this.connection, "a", this.dataSet);
+		snapshots.capture(this.connection, "b", this.dataSet);
+		assertTrue(snapshots.restore(this.connection, "a"));
+		snapshots.capture(this.connection, "c", this.dataSet);
+		assertTrue(snapshots.restore(this.connection, "a"));
+		assertFalse(snapshots.restore(this.connection, "b"));
+		assertTrue(snapshots.restore(this.connection, "c"));
+		assertEquals(4, getSnapshotTables().size());
+	}
+
+	@Test
+	public void shouldDiscardSnapshotThatCannotBeRestored() throws Exception {
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		snapshots.capture(this.connection, "key", this.dataSet);
+		this.jdbc.execute("alter table parent drop column value");
+		assertFalse(snapshots.restore(this.connection, "key"));
+		assertEquals(0, getSnapshotTables().size());
+	}
+
+	@Test
+	public void shouldExcludeSnapshotTables() throws Exception {
+		new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2).capture(this.connection, "key", this.dataSet);
+		String[] tableNames = DatabaseSnapshots.exclude(this.connection.createDataSet()).getTableNames();
+		Arrays.sort(tableNames);
+		assertArrayEquals(new String[] { "CHILD", "PARENT" }, tableNames);
+	}
+
+	@Test
+	public void shouldRestoreGeneratedColumns() throws Exception {
+		this.jdbc.execute("create table generated (id int generated always as identity primary key, "
+				+ "value varchar(10), doubled int generated always as (id * 2))");
+		this.jdbc.update("insert into generated (value) values ('a')");
+		int id = this.jdbc.queryForObject("select id from generated", Integer.class);
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		snapshots.capture(this.connection, "key", new DefaultDataSet(new DefaultTable("generated")));
+		this.jdbc.update("delete from generated");
+		assertTrue(snapshots.restore(this.connection, "key"));
+		assertEquals(id * 2, this.jdbc.queryForObject("select doubled from generated where id = " + id,
+				Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldDropAllSnapshots() throws Exception {
+		DatabaseSnapshots snapshots = new DatabaseSnapshots(DatabaseDialect.HSQLDB, 2);
+		snapshots.capture(this.connection, "a", this.dataSet);
+		snapshots.capture(this.connection, "b", this.dataSet);
+		snapshots.dropAll(this.connection);
+		assertEquals(0, getSnapshotTables().size());
+		assertFalse(snapshots.restore(this.connection, "a"));
+	}
+
+	@Test
+	public void shouldDropSnapshotTablesLeftByEarlierRun() throws Exception {
+		IDatabaseConnection connection = new DatabaseConnection(
+				DriverManager.getConnection("jdbc:hsqldb:mem:remainingsnapshots", "sa", ""));
+		try {
+			JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection.getConnection(), true));
+			jdbc.execute("create table dbunit_snapshot_1_0 (id int)");
+			DatabaseSnapshots.get(connection);
+			assertEquals(0, jdbc.queryForList("select table_name from information_schema.tables "
+					+ "where table_name like 'DBUNIT_SNAPSHOT_%'", String.class).size());
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test
+	public void shouldAlwaysExcludeSnapshotTables() throws Exception {
+		this.jdbc.execute("create table dbunit_snapshot_1_0 (id int)");
+		String[] tableNames = DatabaseSnapshots.exclude(this.connection.createDataSet()).getTableNames();
+		Arrays.sort(tableNames);
+		assertArrayEquals(new String[] { "CHILD", "PARENT" }, tableNames);
+	}
+
+	private List<String> getSnapshotTables() {
+		return this.jdbc.queryForList("select table_name from information_schema.tables "
+				+ "where table_name like 'DBUNIT_SNAPSHOT_%'", String.class);
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelVerification}.
+ */
+public class ParallelVerificationTest {
+
+	@Test
+	public void shouldRunVerificationsAtTheSameTime() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(2);
+		ParallelVerification verification = new ParallelVerification();
+		for (int i = 0; i < 2; i++) {
+			verification.submit(new Callable<Void>() {
+
+				public Void call() throws Exception {
+					latch.countDown();
+					assertTrue("Verifications did not run in parallel", latch.await(10, TimeUnit.SECONDS));
+					return null;
+				}
+
+			});
+		}
+		verification.await();
+	}
+
+	@Test
+	public void shouldAwaitVerificationsSubmittedWhileRunning() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		final ParallelVerification verification = new ParallelVerification();
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				verification.submit(new Callable<Void>() {
+
+					public Void call() throws Exception {
+						Thread.sleep(100);
+						count.incrementAndGet();
+						return null;
+					}
+
+				});
+				return null;
+			}
+
+		});
+		verification.await();
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	public void shouldRunInCallingThreadWithoutPendingPermit() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+		Semaphore pending = new Semaphore(1);
+		ParallelVerification verification = new ParallelVerification();
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				latch.await(10, TimeUnit.SECONDS);
+				return null;
+			}
+
+		}, pending);
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				thread.set(Thread.currentThread());
+				throw new AssertionError("failed");
+			}
+
+		}, pending);
+		assertSame(Thread.currentThread(), thread.get());
+		latch.countDown();
+		try {
+			verification.await();
+			fail("Did not throw");
+		} catch (AssertionError ex) {
+			assertEquals("failed", ex.getMessage());
+		}
+		assertEquals(1, pending.availablePermits());
+	}
+
+	@Test
+	public void shouldThrowSingleFailure() throws Exception {
+		final AssertionError failure = new AssertionError("failed");
+		ParallelVerification verification = new ParallelVerification();
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				throw failure;
+			}
+
+		});
+		try {
+			verification.await();
+			fail("Did not throw");
+		} catch (AssertionError ex) {
+			assertSame(failure, ex);
+		}
+	}
+
+	@Test
+	public void shouldCombineFailures() throws Exception {
+		ParallelVerification verification = new ParallelVerification();
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				throw new AssertionError("first");
+			}
+
+		});
+		verification.submit(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				throw new IllegalStateException("second");
+			}
+
+		});
+		try {
+			verification.await();
+			fail("Did not throw");
+		} catch (AssertionError ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().startsWith("2 expected database verifications failed"));
+			assertTrue(ex.getMessage(), ex.getMessage().contains("first"));
+			assertTrue(ex.getMessage(), ex.getMessage().contains("second"));
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.filter.DefaultColumnFilter;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link ProjectedSelect}.
+ */
+public class ProjectedSelectTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("projectedselect");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int, version int, value varchar(10), content clob, "
+				+ "primary key (id, version))");
+		this.jdbc.update("insert into sample values (2, 1, 'b', 'second')");
+		this.jdbc.update("insert into sample values (1, 1, 'a', 'first')");
+	}
+
+	@Test
+	public void shouldSelectExpectedColumnsOrderedByPrimaryKey() throws Exception {
+		String sql = getSql(createTable("sample", "value", "id"));
+		assertEquals("select VALUE, ID, VERSION from SAMPLE order by ID, VERSION", sql);
+		ITable actual = this.connection.createQueryTable("sample", sql);
+		assertEquals(2, actual.getRowCount());
+		assertEquals("a", actual.getValue(0, "value"));
+		assertEquals(3, actual.getTableMetaData().getColumns().length);
+	}
+
+	@Test
+	public void shouldNotSelectFilteredColumns() throws Exception {
+		DefaultColumnFilter filter = new DefaultColumnFilter();
+		filter.excludeColumn("content");
+		String sql = getSql(createTable("sample", "id", "content"), filter);
+		assertEquals("select ID, VERSION from SAMPLE order by ID, VERSION", sql);
+	}
+
+	@Test
+	public void shouldSelectFilteredPrimaryKeyColumns() throws Exception {
+		DefaultColumnFilter filter = new DefaultColumnFilter();
+		filter.excludeColumn("id");
+		String sql = getSql(createTable("sample", "id", "value"), filter);
+		assertEquals("select VALUE, ID, VERSION from SAMPLE order by ID, VERSION", sql);
+	}
+
+	@Test
+	public void shouldNotSelectUnknownColumns() throws Exception {
+		String sql = getSql(createTable("sample", "id", "missing"));
+		assertEquals("select ID, VERSION from SAMPLE order by ID, VERSION", sql);
+	}
+
+	@Test
+	public void shouldReadWholeTableWhenAllColumnsAreExpected() throws Exception {
+		assertNull(getSql(createTable("sample", "id", "version", "value", "content")));
+	}
+
+	@Test
+	public void shouldReadWholeTableWhenNoColumnsAreExpected() throws Exception {
+		assertNull(getSql(createTable("sample", "missing")));
+	}
+
+	private String getSql(ITable expectedTable, IColumnFilter... columnFilters) throws Exception {
+		ITableMetaData actualMetaData = this.connection.createDataSet().getTableMetaData("sample");
+		return ProjectedSelect.get(this.connection, expectedTable, actualMetaData, Arrays.asList(columnFilters));
+	}
+
+}
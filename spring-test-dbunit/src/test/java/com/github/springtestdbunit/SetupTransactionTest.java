@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link SetupTransaction}.
+ */
+public class SetupTransactionTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("setuptransaction");
+
+	private Connection jdbcConnection;
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.jdbcConnection = this.database.getJdbcConnection();
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key)");
+	}
+
+	@Test
+	public void shouldCommitOnce() throws Exception {
+		SetupTransaction transaction = new SetupTransaction();
+		transaction.join(this.connection);
+		transaction.join(this.connection);
+		assertFalse(this.jdbcConnection.getAutoCommit());
+		this.jdbc.update("insert into sample values (1)");
+		this.jdbc.update("insert into sample values (2)");
+		transaction.commit();
+		transaction.end();
+		assertTrue(this.jdbcConnection.getAutoCommit());
+		assertEquals(2, count());
+	}
+
+	@Test
+	public void shouldRollbackIfNotCommitted() throws Exception {
+		SetupTransaction transaction = new SetupTransaction();
+		transaction.join(this.connection);
+		this.jdbc.update("insert into sample values (1)");
+		transaction.end();
+		assertTrue(this.jdbcConnection.getAutoCommit());
+		assertEquals(0, count());
+	}
+
+	@Test
+	public void shouldNotChangeManualCommitConnections() throws Exception {
+		this.jdbcConnection.setAutoCommit(false);
+		SetupTransaction transaction = new SetupTransaction();
+		transaction.join(this.connection);
+		transaction.commit();
+		transaction.end();
+		assertFalse(this.jdbcConnection.getAutoCommit());
+		this.jdbcConnection.setAutoCommit(true);
+	}
+
+	private int count() {
+		return this.jdbc.queryForObject("select count(*) from sample", Integer.class);
+	}
+
+}
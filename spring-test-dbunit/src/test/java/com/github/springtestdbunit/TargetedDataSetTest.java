@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link TargetedDataSet}.
+ */
+public class TargetedDataSetTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("targeteddataset");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int, version int, value varchar(10), primary key (version, id))");
+		this.jdbc.execute("create table other (id int primary key)");
+		this.jdbc.update("insert into sample values (2, 1, 'b')");
+		this.jdbc.update("insert into sample values (1, 1, 'a')");
+	}
+
+	@Test
+	public void shouldOnlyContainNamedTables() throws Exception {
+		TargetedDataSet dataSet = new TargetedDataSet(this.connection, new String[] { "sample" });
+		assertArrayEquals(new String[] { "sample" }, dataSet.getTableNames());
+		ITableIterator iterator = dataSet.iterator();
+		iterator.next();
+		assertEquals("sample", iterator.getTableMetaData().getTableName());
+		assertEquals(false, iterator.next());
+	}
+
+	@Test
+	public void shouldGetMetaDataWithPrimaryKeysInKeyOrder() throws Exception {
+		TargetedDataSet dataSet = new TargetedDataSet(this.connection, new String[] { "sample" });
+		ITableMetaData metaData = dataSet.getTableMetaData("SAMPLE");
+		assertEquals(3, metaData.getColumns().length);
+		assertEquals("VERSION", metaData.getPrimaryKeys()[0].getColumnName());
+		assertEquals("ID", metaData.getPrimaryKeys()[1].getColumnName());
+	}
+
+	@Test
+	public void shouldGetTableOrderedByPrimaryKey() throws Exception {
+		TargetedDataSet dataSet = new TargetedDataSet(this.connection, new String[] { "sample" });
+		ITable table = dataSet.getTable("sample");
+		assertEquals(2, table.getRowCount());
+		assertEquals("a", table.getValue(0, "value"));
+		assertEquals("b", table.getValue(1, "value"));
+	}
+
+	@Test(expected = NoSuchTableException.class)
+	public void shouldNotGetUnnamedTable() throws Exception {
+		new TargetedDataSet(this.connection, new String[] { "sample" }).getTableMetaData("other");
+	}
+
+	@Test(expected = NoSuchTableException.class)
+	public void shouldNotGetMissingTable() throws Exception {
+		new TargetedDataSet(this.connection, new String[] { "missing" }).getTableMetaData("missing");
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DatabaseAssertionMode}.
+ */
+public class DatabaseAssertionModeTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNegativeMaxReportedDifferences() throws Exception {
+		DatabaseAssertionMode.NON_STRICT.getDatabaseAssertion(-1, null);
+	}
+
+	@Test
+	public void shouldReportAllDifferingValuesOfEachTableInDefaultMode() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.VARCHAR, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = createTable("sample", DataType.VARCHAR, "id", "value");
+		actual.addRow(new Object[] { "1", "x" });
+		actual.addRow(new Object[] { "2", "y" });
+		DatabaseAssertion assertion = DatabaseAssertionMode.DEFAULT.getDatabaseAssertion(1, null);
+		try {
+			assertion.assertEquals(new DefaultDataSet(expected), new DefaultDataSet(actual),
+					Collections.<IColumnFilter> emptyList());
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.contains("2 values differ (table=sample)"));
+			assertTrue(message, message.contains("[row=0] value=x"));
+			assertTrue(message, message.contains("... 1 more"));
+			assertTrue(message, message.contains("all differences written to"));
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileReader;
+
+import org.dbunit.assertion.DefaultFailureHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Tests for {@link DifferenceReport}.
+ */
+public class DifferenceReportTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void shouldNotFailWithoutDifferences() throws Exception {
+		DifferenceReport report = new DifferenceReport("sample", 2, this.temp.getRoot());
+		report.assertNoDifferences(new DefaultFailureHandler(), "rows differ");
+		assertEquals(0, report.getCount());
+		assertNull(report.getFile());
+	}
+
+	@Test
+	public void shouldReportAllDifferencesInMessage() throws Exception {
+		DifferenceReport report = new DifferenceReport("sample", 2, this.temp.getRoot());
+		report.add("[id=1] value=a", "[id=1] value=b");
+		report.add("[id=2] value=c", "<missing>");
+		try {
+			report.assertNoDifferences(new DefaultFailureHandler(), "rows differ");
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.startsWith("2 rows differ (table=sample)"));
+			assertTrue(message, message.contains("[id=2] value=c"));
+			assertTrue(message, message.contains("<missing>"));
+		}
+		assertNull(report.getFile());
+		assertEquals(0, this.temp.getRoot().list().length);
+	}
+
+	@Test
+	public void shouldWriteAllDifferencesToFileWhenOverLimit() throws Exception {
+		DifferenceReport report = new DifferenceReport("sample", 2, new File(this.temp.getRoot(), "diff"));
+		for (int i = 0; i < 5; i++) {
+			report.add("[id=" + i + "] value=a", "[id=" + i + "] value=b");
+		}
+		try {
+			report.assertNoDifferences(new DefaultFailureHandler(), "rows differ");
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.startsWith("5 rows differ (table=sample), all differences written to "
+					+ report.getFile().getAbsolutePath()));
+			assertTrue(message, message.contains("[id=1] value=b"));
+			assertFalse(message, message.contains("[id=2]"));
+			assertTrue(message, message.contains("... 3 more"));
+		}
+		String content = FileCopyUtils.copyToString(new FileReader(report.getFile()));
+		for (int i = 0; i < 5; i++) {
+			assertTrue(content, content.contains("- [id=" + i + "] value=a\n+ [id=" + i + "] value=b\n"));
+		}
+	}
+
+}
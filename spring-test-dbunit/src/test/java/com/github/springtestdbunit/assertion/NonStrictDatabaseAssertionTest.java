@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.DefaultColumnFilter;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link NonStrictDatabaseAssertion}.
+ */
+public class NonStrictDatabaseAssertionTest {
+
+	private final NonStrictDatabaseAssertion assertion = new NonStrictDatabaseAssertion();
+
+	@Test
+	public void shouldIgnoreColumnsNotInExpectedTable() throws Exception {
+		Set<String> ignored = this.assertion.getColumnsToIgnore(createMetaData("id", "value"),
+				createMetaData("id", "value", "other"), Collections.<IColumnFilter> emptyList());
+		assertEquals(Collections.singleton("other"), ignored);
+	}
+
+	@Test
+	public void shouldIgnoreFilteredColumns() throws Exception {
+		DefaultColumnFilter filter = new DefaultColumnFilter();
+		filter.excludeColumn("value");
+		Set<String> ignored = this.assertion.getColumnsToIgnore(createMetaData("id", "value"),
+				createMetaData("id", "value", "other"), Collections.<IColumnFilter> singletonList(filter));
+		assertEquals(new HashSet<String>(Arrays.asList("value", "other")), ignored);
+	}
+
+	@Test
+	public void shouldCacheIgnoredColumnsForSameFiltersAndColumns() throws Exception {
+		List<IColumnFilter> columnFilters = Collections.<IColumnFilter> singletonList(new DefaultColumnFilter());
+		Set<String> ignored = this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id", "other"),
+				columnFilters);
+		assertSame(ignored, this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id", "other"),
+				columnFilters));
+	}
+
+	@Test
+	public void shouldNotShareCacheBetweenFilterInstances() throws Exception {
+		DefaultColumnFilter includeAll = new DefaultColumnFilter();
+		DefaultColumnFilter excludeId = new DefaultColumnFilter();
+		excludeId.excludeColumn("id");
+		Set<String> ignored = this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id"),
+				Collections.<IColumnFilter> singletonList(includeAll));
+		assertEquals(Collections.emptySet(), ignored);
+		ignored = this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id"),
+				Collections.<IColumnFilter> singletonList(excludeId));
+		assertEquals(Collections.singleton("id"), ignored);
+	}
+
+	@Test
+	public void shouldShareCacheBetweenInstancesOfStatelessFilter() throws Exception {
+		Set<String> ignored = this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id", "other"),
+				Collections.<IColumnFilter> singletonList(new ExcludeOtherColumnFilter()));
+		assertSame(ignored, this.assertion.getColumnsToIgnore(createMetaData("id"), createMetaData("id", "other"),
+				Collections.<IColumnFilter> singletonList(new ExcludeOtherColumnFilter())));
+	}
+
+	@Test
+	public void shouldReportAllDifferingValues() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "3", "c" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value", "other");
+		actual.addRow(new Object[] { 1, "x", "o" });
+		actual.addRow(new Object[] { 2, "b", "o" });
+		actual.addRow(new Object[] { 4, "y", "o" });
+		try {
+			this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.contains("3 values differ (table=sample)"));
+			assertTrue(message, message.contains("[row=0] value=x"));
+			assertTrue(message, message.contains("[row=2] id=4"));
+			assertTrue(message, message.contains("[row=2] value=y"));
+			assertFalse(message, message.contains("other"));
+		}
+	}
+
+	private ITableMetaData createMetaData(String... columnNames) {
+		Column[] columns = new Column[columnNames.length];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new Column(columnNames[i], DataType.UNKNOWN);
+		}
+		return new DefaultTableMetaData("sample", columns);
+	}
+
+	public static class ExcludeOtherColumnFilter implements IColumnFilter {
+
+		public boolean accept(String tableName, Column column) {
+			return !"other".equalsIgnoreCase(column.getColumnName());
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link NonStrictUnorderedDatabaseAssertion}.
+ */
+public class NonStrictUnorderedDatabaseAssertionTest {
+
+	private final NonStrictUnorderedDatabaseAssertion assertion = new NonStrictUnorderedDatabaseAssertion();
+
+	@Test
+	public void shouldIgnoreRowOrder() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = createTable("sample", DataType.NUMERIC, "id", "value", "other");
+		actual.addRow(new Object[] { new BigDecimal("2.00"), "b", "x" });
+		actual.addRow(new Object[] { new BigDecimal("2"), "b", "y" });
+		actual.addRow(new Object[] { new BigDecimal("1"), "a", "z" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnDifferentDuplicates() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "a" });
+		actual.addRow(new Object[] { 2, "b" });
+		actual.addRow(new Object[] { 2, "b" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnDifferentValues() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "b" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static com.github.springtestdbunit.testutils.TestTables.createColumns;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PrimaryKeyDatabaseAssertion}.
+ */
+public class PrimaryKeyDatabaseAssertionTest {
+
+	private final PrimaryKeyDatabaseAssertion assertion = new PrimaryKeyDatabaseAssertion();
+
+	@Test
+	public void shouldMatchRowsByPrimaryKey() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "10", "c" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "1", "a" });
+		DefaultTable actual = createTable(DataType.INTEGER, "id", "value", "other");
+		actual.addRow(new Object[] { 1, "a", "x" });
+		actual.addRow(new Object[] { 2, "b", "y" });
+		actual.addRow(new Object[] { 10, "c", "z" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test
+	public void shouldReportMissingExtraAndChangedRows() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "4", "d" });
+		DefaultTable actual = createTable(DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 2, "x" });
+		actual.addRow(new Object[] { 3, "c" });
+		actual.addRow(new Object[] { 4, "d" });
+		try {
+			this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.contains("3 rows differ by primary key (table=sample)"));
+			assertTrue(message, message.contains("[id=1] value=a"));
+			assertTrue(message, message.contains("[id=2] value=x"));
+			assertTrue(message, message.contains("[id=3] value=c"));
+		}
+	}
+
+	@Test
+	public void shouldMatchActualRowsInDifferentKeyOrder() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "a", "1" });
+		expected.addRow(new Object[] { "B", "2" });
+		expected.addRow(new Object[] { "c", "3" });
+		DefaultTable actual = createTable(DataType.VARCHAR, "id", "value");
+		actual.addRow(new Object[] { "a", "1" });
+		actual.addRow(new Object[] { "B", "2" });
+		actual.addRow(new Object[] { "c", "3" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test
+	public void shouldReportDifferencesOfActualRowsInDifferentKeyOrder() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "a", "1" });
+		expected.addRow(new Object[] { "B", "2" });
+		expected.addRow(new Object[] { "d", "4" });
+		DefaultTable actual = createTable(DataType.VARCHAR, "id", "value");
+		actual.addRow(new Object[] { "a", "1" });
+		actual.addRow(new Object[] { "B", "x" });
+		actual.addRow(new Object[] { "c", "3" });
+		try {
+			this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.contains("3 rows differ by primary key (table=sample)"));
+			assertTrue(message, message.contains("[id=B] value=x"));
+			assertTrue(message, message.contains("[id=c] value=3"));
+			assertTrue(message, message.contains("[id=d] value=4"));
+		}
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailWhenExpectedTableDoesNotSpecifyPrimaryKey() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "value");
+		DefaultTable actual = createTable(DataType.INTEGER, "id", "value");
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailWithoutPrimaryKey() throws Exception {
+		DefaultTable expected = createTable(DataType.UNKNOWN, "id", "value");
+		DefaultTable actual = new DefaultTable("sample", expected.getTableMetaData().getColumns());
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	private DefaultTable createTable(DataType idType, String... columnNames) {
+		Column[] columns = createColumns(idType, columnNames);
+		return new DefaultTable(new DefaultTableMetaData("sample", columns, new String[] { "id" }));
+	}
+
+}
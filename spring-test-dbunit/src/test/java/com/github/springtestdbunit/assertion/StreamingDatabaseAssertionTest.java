@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.assertion;
+
+import static com.github.springtestdbunit.testutils.TestTables.createColumns;
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.filter.IColumnFilter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StreamingDatabaseAssertion}.
+ */
+public class StreamingDatabaseAssertionTest {
+
+	private final StreamingDatabaseAssertion assertion = new StreamingDatabaseAssertion();
+
+	@Test
+	public void shouldCompareSpecifiedColumns() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value", "other");
+		actual.addRow(new Object[] { 1, "a", "x" });
+		actual.addRow(new Object[] { 2, "b", "y" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test
+	public void shouldSortExpectedRowsByPrimaryKey() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "10", "c" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "1", "a" });
+		Column[] columns = createColumns(DataType.INTEGER, "id", "value");
+		DefaultTable actual = new DefaultTable(new DefaultTableMetaData("sample", columns, new String[] { "id" }));
+		actual.addRow(new Object[] { 1, "a" });
+		actual.addRow(new Object[] { 2, "b" });
+		actual.addRow(new Object[] { 10, "c" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnDifferentValue() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "b" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnMissingRow() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "a" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnAdditionalRow() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "a" });
+		actual.addRow(new Object[] { 2, "b" });
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+	@Test
+	public void shouldReportAllDifferences() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		expected.addRow(new Object[] { "3", "c" });
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		actual.addRow(new Object[] { 1, "x" });
+		actual.addRow(new Object[] { 2, "y" });
+		try {
+			this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+			fail("Did not fail");
+		} catch (AssertionError ex) {
+			String message = ex.getMessage();
+			assertTrue(message, message.contains("3 rows differ (table=sample)"));
+			assertTrue(message, message.contains("[row=0] id=1 value=x"));
+			assertTrue(message, message.contains("[row=1] id=2 value=y"));
+			assertTrue(message, message.contains("[row=2] id=3 value=c"));
+		}
+	}
+
+	@Test
+	public void shouldCloseReportWhenReadingFails() throws Exception {
+		final AtomicBoolean closed = new AtomicBoolean();
+		StreamingDatabaseAssertion assertion = new StreamingDatabaseAssertion(0, null) {
+
+			@Override
+			protected DifferenceReport createDifferenceReport(String tableName) {
+				return new DifferenceReport(tableName, 0, null) {
+
+					@Override
+					public void close() {
+						closed.set(true);
+						super.close();
+					}
+
+				};
+			}
+
+		};
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "value");
+		expected.addRow(new Object[] { "1", "a" });
+		expected.addRow(new Object[] { "2", "b" });
+		DefaultTable actual = new DefaultTable(new DefaultTableMetaData("sample",
+				createColumns(DataType.INTEGER, "id", "value"))) {
+
+			@Override
+			public Object getValue(int row, String column) throws DataSetException {
+				if (row > 0) {
+					throw new DataSetException("Read failed");
+				}
+				return super.getValue(row, column);
+			}
+
+		};
+		actual.addRow(new Object[] { 1, "x" });
+		actual.addRow(new Object[] { 2, "y" });
+		try {
+			assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+			fail("Did not throw");
+		} catch (DataSetException ex) {
+			assertEquals("Read failed", ex.getMessage());
+		}
+		assertTrue(closed.get());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailOnMissingColumn() throws Exception {
+		DefaultTable expected = createTable("sample", DataType.UNKNOWN, "id", "missing");
+		DefaultTable actual = createTable("sample", DataType.INTEGER, "id", "value");
+		this.assertion.assertEquals(expected, actual, Collections.<IColumnFilter> emptyList());
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.bean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link ChangeTrackingDataSource}.
+ */
+public class ChangeTrackingDataSourceTest {
+
+	private final ChangeTrackingDataSource dataSource = new ChangeTrackingDataSource(
+			HsqldbDatabase.createDataSource("changetrackingdatasource"));
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase(this.dataSource);
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key, value varchar(10))");
+		this.jdbc.execute("create table other (id int primary key)");
+		this.dataSource.reset();
+	}
+
+	@Test
+	public void shouldNotRecordReads() throws Exception {
+		this.jdbc.queryForList("select * from sample");
+		this.jdbc.queryForList("select * from other where id = ?", 1);
+		assertTrue(this.dataSource.getChangedTables().isEmpty());
+		assertFalse(this.dataSource.isAllChanged());
+		assertFalse(this.dataSource.isChanged("sample"));
+	}
+
+	@Test
+	public void shouldRecordWrittenTables() throws Exception {
+		this.jdbc.update("insert into sample values (1, 'a')");
+		this.jdbc.update("update \"PUBLIC\".\"SAMPLE\" set value = ? where id = ?", "b", 1);
+		this.jdbc.update("/* comment */ delete from other");
+		assertEquals(new HashSet<String>(Arrays.asList("SAMPLE", "OTHER")), this.dataSource.getChangedTables());
+		assertTrue(this.dataSource.isChanged("public.sample"));
+		assertFalse(this.dataSource.isAllChanged());
+	}
+
+	@Test
+	public void shouldRecordStatementBatches() throws Exception {
+		this.jdbc.batchUpdate(new String[] { "insert into other values (1)", "truncate table other" });
+		assertEquals(new HashSet<String>(Arrays.asList("OTHER")), this.dataSource.getChangedTables());
+	}
+
+	@Test
+	public void shouldRecordUnknownStatementsAsAllChanged() throws Exception {
+		this.jdbc.execute("create table another (id int)");
+		assertTrue(this.dataSource.isAllChanged());
+		assertTrue(this.dataSource.isChanged("sample"));
+	}
+
+	@Test
+	public void shouldReset() throws Exception {
+		this.jdbc.update("insert into sample values (1, 'a')");
+		this.jdbc.execute("create table another (id int)");
+		this.dataSource.reset();
+		assertFalse(this.dataSource.isAllChanged());
+		assertFalse(this.dataSource.isChanged("sample"));
+	}
+
+	@Test
+	public void shouldRecordPreparedStatementsWhenExecuted() throws Exception {
+		PreparedStatement statement = this.database.getJdbcConnection()
+				.prepareStatement("insert into sample values (?, ?)");
+		try {
+			this.dataSource.reset();
+			statement.setInt(1, 1);
+			statement.setString(2, "a");
+			assertFalse(this.dataSource.isChanged("sample"));
+			statement.executeUpdate();
+			assertTrue(this.dataSource.isChanged("sample"));
+		} finally {
+			statement.close();
+		}
+	}
+
+	@Test
+	public void shouldRecordPreparedStatementBatches() throws Exception {
+		Connection connection = this.database.getJdbcConnection();
+		PreparedStatement statement = connection.prepareStatement("insert into other values (?)");
+		try {
+			statement.setInt(1, 1);
+			statement.addBatch();
+			assertFalse(this.dataSource.isChanged("other"));
+			statement.executeBatch();
+			assertEquals(new HashSet<String>(Arrays.asList("OTHER")), this.dataSource.getChangedTables());
+		} finally {
+			statement.close();
+		}
+	}
+
+	@Test
+	public void shouldReturnTrackedConnectionFromStatement() throws Exception {
+		Connection connection = this.database.getJdbcConnection();
+		Statement statement = connection.createStatement();
+		try {
+			assertSame(connection, statement.getConnection());
+		} finally {
+			statement.close();
+		}
+	}
+
+	@Test
+	public void shouldAddReferencingTables() throws Exception {
+		this.jdbc.execute("create table child (id int primary key, sample int references sample(id) "
+				+ "on delete cascade)");
+		this.jdbc.execute("create table grandchild (id int primary key, child int references child(id) "
+				+ "on delete set null)");
+		this.dataSource.reset();
+		this.jdbc.update("delete from sample");
+		this.dataSource.addReferencingTables(this.database.getJdbcConnection(), "PUBLIC");
+		assertEquals(new HashSet<String>(Arrays.asList("SAMPLE", "CHILD", "GRANDCHILD")),
+				this.dataSource.getChangedTables());
+	}
+
+	@Test
+	public void shouldUnwrapConnection() throws Exception {
+		Connection connection = this.database.getJdbcConnection();
+		assertTrue(connection.isWrapperFor(ChangeTrackingDataSource.class));
+		assertSame(this.dataSource, connection.unwrap(ChangeTrackingDataSource.class));
+		assertTrue(this.dataSource.isWrapperFor(ChangeTrackingDataSource.class));
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.dialect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.springtestdbunit.dialect.DatabaseDialect.Feature;
+
+/**
+ * Tests for {@link DatabaseDialect}.
+ */
+public class DatabaseDialectTest {
+
+	private static final String[] COLUMNS = { "ID", "NAME", "VALUE" };
+
+	@Test
+	public void shouldGetByProductName() throws Exception {
+		assertSame(DatabaseDialect.HSQLDB, DatabaseDialect.get("HSQL Database Engine"));
+		assertSame(DatabaseDialect.H2, DatabaseDialect.get("H2"));
+		assertSame(DatabaseDialect.DERBY, DatabaseDialect.get("Apache Derby"));
+		assertNull(DatabaseDialect.get("Oracle"));
+	}
+
+	@Test
+	public void shouldGetHsqldbMergeSql() throws Exception {
+		assertEquals("MERGE INTO T1 AS T USING (VALUES (?, ?, ?)) AS S (ID, NAME, VALUE) ON T.ID = S.ID "
+				+ "WHEN MATCHED THEN UPDATE SET NAME = S.NAME, VALUE = S.VALUE "
+				+ "WHEN NOT MATCHED THEN INSERT (ID, NAME, VALUE) VALUES (S.ID, S.NAME, S.VALUE)",
+				DatabaseDialect.HSQLDB.getMergeSql("T1", COLUMNS, new String[] { "ID" }, "(?, ?, ?)"));
+	}
+
+	@Test
+	public void shouldGetHsqldbMergeSqlWhenAllColumnsAreKeys() throws Exception {
+		assertEquals("MERGE INTO T1 AS T USING (VALUES (?, ?, ?)) AS S (ID, NAME, VALUE) "
+				+ "ON T.ID = S.ID AND T.NAME = S.NAME AND T.VALUE = S.VALUE "
+				+ "WHEN NOT MATCHED THEN INSERT (ID, NAME, VALUE) VALUES (S.ID, S.NAME, S.VALUE)",
+				DatabaseDialect.HSQLDB.getMergeSql("T1", COLUMNS, COLUMNS, "(?, ?, ?)"));
+	}
+
+	@Test
+	public void shouldGetH2MergeSql() throws Exception {
+		assertEquals("MERGE INTO T1 (ID, NAME, VALUE) KEY (ID) VALUES (?, ?, ?), (?, ?, ?)",
+				DatabaseDialect.H2.getMergeSql("T1", COLUMNS, new String[] { "ID" }, "(?, ?, ?), (?, ?, ?)"));
+	}
+
+	@Test
+	public void shouldNotSupportDerbyMerge() throws Exception {
+		assertFalse(DatabaseDialect.DERBY.supports(Feature.MERGE));
+		assertNull(DatabaseDialect.DERBY.getMergeSql("T1", COLUMNS, new String[] { "ID" }, "(?, ?, ?)"));
+	}
+
+	@Test
+	public void shouldGetSupportedFeatures() throws Exception {
+		for (Feature feature : Feature.values()) {
+			assertTrue(DatabaseDialect.HSQLDB.supports(feature));
+		}
+		assertTrue(DatabaseDialect.H2.supports(Feature.MERGE));
+		assertTrue(DatabaseDialect.H2.supports(Feature.CHECKSUM));
+		assertFalse(DatabaseDialect.DERBY.supports(Feature.CHECKSUM));
+	}
+
+	@Test
+	public void shouldGetRestartSql() throws Exception {
+		assertEquals("ALTER TABLE T1 ALTER COLUMN ID RESTART WITH 42",
+				DatabaseDialect.DERBY.getRestartIdentitySql("T1", "ID", 42));
+		assertEquals("ALTER SEQUENCE S1 RESTART WITH 42", DatabaseDialect.H2.getRestartSequenceSql("S1", 42));
+		assertNull(DatabaseDialect.DERBY.getRestartSequenceSql("S1", 42));
+	}
+
+	@Test
+	public void shouldGetIndexSql() throws Exception {
+		assertEquals("DROP INDEX I1", DatabaseDialect.HSQLDB.getDropIndexSql("T1", "I1"));
+		assertEquals("CREATE INDEX I1 ON T1 (NAME DESC, ID)",
+				DatabaseDialect.HSQLDB.getCreateIndexSql("T1", "I1", new String[] { "NAME DESC", "ID" }));
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.expected;
+
+import javax.sql.DataSource;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.annotation.ExpectedDatabase;
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("/META-INF/dbunit-context.xml")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class })
+@DbUnitConfiguration(databaseConnection = "changeTrackingDataSource", changeTracking = true)
+@DatabaseSetup("/META-INF/db/multi-insert.xml")
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ExpectedChangeTrackingOnMethodTest {
+
+	@Autowired
+	@Qualifier("dataSource2")
+	private DataSource untrackedDataSource;
+
+	@Autowired
+	@Qualifier("changeTrackingDataSource")
+	private DataSource dataSource;
+
+	@Test
+	@ExpectedDatabase(value = "/META-INF/db/multi-insert.xml", assertionMode = DatabaseAssertionMode.NON_STRICT)
+	public void test1Verifies() throws Exception {
+	}
+
+	@Test
+	@ExpectedDatabase(value = "/META-INF/db/multi-insert.xml", assertionMode = DatabaseAssertionMode.NON_STRICT)
+	public void test2SkipsUnchanged() throws Exception {
+		// Deliberately bypass change tracking so that we can detect the skipped verification
+		new JdbcTemplate(this.untrackedDataSource).update("update second set value = 'sneaky'");
+	}
+
+	@Test
+	@ExpectedDatabase(value = "/META-INF/db/expected_change_tracking.xml",
+			assertionMode = DatabaseAssertionMode.NON_STRICT)
+	public void test3VerifiesChanged() throws Exception {
+		new JdbcTemplate(this.dataSource).update("update second set value = 'changedByTest'");
+	}
+
+}
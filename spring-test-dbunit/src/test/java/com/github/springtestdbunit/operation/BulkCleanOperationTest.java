@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link BulkCleanOperation}.
+ */
+public class BulkCleanOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("bulkclean");
+
+	private Connection jdbcConnection;
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.jdbcConnection = this.database.getJdbcConnection();
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table parent (id int primary key)");
+		this.jdbc.execute("create table child (id int primary key, parent int references parent(id))");
+		this.jdbc.update("insert into parent values (1)");
+		this.jdbc.update("insert into child values (1, 1)");
+	}
+
+	@Test
+	public void shouldTruncateTablesInAnyOrder() throws Exception {
+		BulkCleanOperation.TRUNCATE_TABLE.execute(this.connection,
+				new DefaultDataSet(new DefaultTable("parent"), new DefaultTable("child")));
+		assertEquals(0, count("parent"));
+		assertEquals(0, count("child"));
+		assertReferentialIntegrityEnabled();
+	}
+
+	@Test
+	public void shouldCleanInsertTablesInAnyOrder() throws Exception {
+		BulkCleanOperation.CLEAN_INSERT.execute(this.connection, createDataSet());
+		assertEquals(1, count("parent"));
+		assertEquals(2, this.jdbc.queryForObject("select parent from child", Integer.class).intValue());
+		assertReferentialIntegrityEnabled();
+	}
+
+	@Test
+	public void shouldUseStandardOperationInTransaction() throws Exception {
+		this.jdbcConnection.setAutoCommit(false);
+		try {
+			BulkCleanOperation.CLEAN_INSERT.execute(this.connection, createDataSet());
+			fail("Standard operation should respect foreign keys");
+		} catch (Exception ex) {
+			this.jdbcConnection.rollback();
+		} finally {
+			this.jdbcConnection.setAutoCommit(true);
+		}
+		assertEquals(1, count("child"));
+	}
+
+	private IDataSet createDataSet() throws Exception {
+		DefaultTable child = new DefaultTable("child",
+				new Column[] { new Column("id", DataType.INTEGER), new Column("parent", DataType.INTEGER) });
+		child.addRow(new Object[] { 2, 2 });
+		DefaultTable parent = new DefaultTable("parent", new Column[] { new Column("id", DataType.INTEGER) });
+		parent.addRow(new Object[] { 2 });
+		return new DefaultDataSet(child, parent);
+	}
+
+	private int count(String table) {
+		return this.jdbc.queryForObject("select count(*) from " + table, Integer.class);
+	}
+
+	private void assertReferentialIntegrityEnabled() {
+		try {
+			this.jdbc.update("insert into child values (3, 3)");
+			fail("Referential integrity was not enabled");
+		} catch (DataIntegrityViolationException ex) {
+		}
+	}
+
+}
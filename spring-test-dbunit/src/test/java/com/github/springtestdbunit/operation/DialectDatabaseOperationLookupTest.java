@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.dialect.DatabaseDialect;
+
+/**
+ * Tests for {@link DialectDatabaseOperationLookup}.
+ */
+public class DialectDatabaseOperationLookupTest {
+
+	private DefaultDatabaseOperationLookup lookup = new DialectDatabaseOperationLookup();
+
+	@Test
+	public void shouldLookupDefaultsForUnchangedOperations() throws Exception {
+		assertSame(org.dbunit.operation.DatabaseOperation.UPDATE, this.lookup.get(DatabaseOperation.UPDATE));
+		assertSame(org.dbunit.operation.DatabaseOperation.DELETE_ALL, this.lookup.get(DatabaseOperation.DELETE_ALL));
+	}
+
+	@Test
+	public void shouldUseMultiRowInsert() throws Exception {
+		DialectDatabaseOperation insert = get(DatabaseOperation.INSERT);
+		assertSame(MultiRowInsertOperation.INSERT, insert.get(DatabaseDialect.HSQLDB));
+		assertSame(MultiRowInsertOperation.INSERT, insert.get(DatabaseDialect.H2));
+		assertSame(MultiRowInsertOperation.INSERT, insert.get(DatabaseDialect.DERBY));
+		assertSame(org.dbunit.operation.DatabaseOperation.INSERT, insert.get(null));
+	}
+
+	@Test
+	public void shouldUseInListDelete() throws Exception {
+		DialectDatabaseOperation delete = get(DatabaseOperation.DELETE);
+		assertSame(InListDeleteOperation.DELETE, delete.get(DatabaseDialect.HSQLDB));
+		assertSame(InListDeleteOperation.DELETE, delete.get(DatabaseDialect.DERBY));
+		assertSame(org.dbunit.operation.DatabaseOperation.DELETE, delete.get(null));
+	}
+
+	@Test
+	public void shouldUseMergeRefresh() throws Exception {
+		DialectDatabaseOperation refresh = get(DatabaseOperation.REFRESH);
+		assertSame(MergeRefreshOperation.REFRESH, refresh.get(DatabaseDialect.HSQLDB));
+		assertSame(MergeRefreshOperation.REFRESH, refresh.get(DatabaseDialect.H2));
+		assertSame(org.dbunit.operation.DatabaseOperation.REFRESH, refresh.get(DatabaseDialect.DERBY));
+	}
+
+	@Test
+	public void shouldUseBulkClean() throws Exception {
+		DialectDatabaseOperation truncate = get(DatabaseOperation.TRUNCATE_TABLE);
+		assertSame(BulkCleanOperation.TRUNCATE_TABLE, truncate.get(DatabaseDialect.HSQLDB));
+		assertSame(org.dbunit.operation.DatabaseOperation.TRUNCATE_TABLE, truncate.get(DatabaseDialect.DERBY));
+		DialectDatabaseOperation cleanInsert = get(DatabaseOperation.CLEAN_INSERT);
+		assertTrue(cleanInsert.get(DatabaseDialect.H2) instanceof BulkCleanOperation);
+		assertSame(MultiRowInsertOperation.CLEAN_INSERT, cleanInsert.get(DatabaseDialect.DERBY));
+		assertSame(org.dbunit.operation.DatabaseOperation.CLEAN_INSERT, cleanInsert.get(null));
+	}
+
+	private DialectDatabaseOperation get(DatabaseOperation operation) {
+		org.dbunit.operation.DatabaseOperation dbUnitOperation = this.lookup.get(operation);
+		assertEquals(DialectDatabaseOperation.class, dbUnitOperation.getClass());
+		return (DialectDatabaseOperation) dbUnitOperation;
+	}
+
+}
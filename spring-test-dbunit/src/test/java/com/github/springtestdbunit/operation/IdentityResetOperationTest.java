@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link IdentityResetOperation}.
+ */
+public class IdentityResetOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("identityreset");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table entity (id int generated by default as identity (start with 1) "
+				+ "primary key, value varchar(10))");
+		this.jdbc.execute("create sequence item_seq start with 1");
+		this.jdbc.execute("create table item (id int generated by default as sequence item_seq "
+				+ "primary key, value varchar(10))");
+		this.jdbc.execute("create sequence shared_seq start with 1");
+		this.jdbc.execute("create table first (id int generated by default as sequence shared_seq primary key)");
+		this.jdbc.execute("create table second (id int generated by default as sequence shared_seq primary key)");
+		this.jdbc.execute("create table third (id int generated by default as sequence shared_seq primary key)");
+	}
+
+	@Test
+	public void shouldRestartIdentityAfterHighestValue() throws Exception {
+		DefaultTable table = createTable("entity", "id", "value");
+		table.addRow(new Object[] { 7, "a" });
+		table.addRow(new Object[] { "41", "b" });
+		table.addRow(new Object[] { 3, "c" });
+		IdentityResetOperation.CLEAN_INSERT.execute(this.connection, new DefaultDataSet(table));
+		this.jdbc.update("insert into entity (value) values ('d')");
+		assertEquals(42, this.jdbc.queryForObject("select id from entity where value = 'd'", Integer.class)
+				.intValue());
+	}
+
+	@Test
+	public void shouldRestartSequenceAfterHighestValue() throws Exception {
+		DefaultTable table = createTable("item", "id", "value");
+		table.addRow(new Object[] { 12, "a" });
+		IdentityResetOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+		this.jdbc.update("insert into item (value) values ('b')");
+		assertEquals(13, this.jdbc.queryForObject("select id from item where value = 'b'", Integer.class)
+				.intValue());
+	}
+
+	@Test
+	public void shouldNotMoveIdentityBackwardsWhenInserting() throws Exception {
+		this.jdbc.update("insert into entity values (50, 'a')");
+		DefaultTable table = createTable("entity", "id", "value");
+		table.addRow(new Object[] { 7, "b" });
+		IdentityResetOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+		this.jdbc.update("insert into entity (value) values ('c')");
+		assertEquals(51, this.jdbc.queryForObject("select id from entity where value = 'c'", Integer.class)
+				.intValue());
+	}
+
+	@Test
+	public void shouldNotRestartWithoutValues() throws Exception {
+		this.jdbc.update("insert into entity (value) values ('a')");
+		DefaultTable table = createTable("entity", "value");
+		table.addRow(new Object[] { "b" });
+		DefaultTable item = createTable("item", "id", "value");
+		item.addRow(new Object[] { ITable.NO_VALUE, "c" });
+		IdentityResetOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+		assertEquals(2, this.jdbc.queryForObject("select max(id) from entity", Integer.class).intValue());
+		IdentityResetOperation.RESET.execute(this.connection, new DefaultDataSet(item));
+		assertEquals(1, this.jdbc.queryForObject("select next value for item_seq from entity where id = 1",
+				Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldRestartSharedSequenceAfterHighestValueOfAllTables() throws Exception {
+		DefaultTable first = createTable("first", "id");
+		first.addRow(new Object[] { 30 });
+		DefaultTable second = createTable("second", "id");
+		second.addRow(new Object[] { 20 });
+		IdentityResetOperation.CLEAN_INSERT.execute(this.connection, new DefaultDataSet(first, second));
+		this.jdbc.update("insert into second values (default)");
+		assertEquals(31, this.jdbc.queryForObject("select max(id) from second", Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldNotRestartSharedSequenceBelowOtherTables() throws Exception {
+		this.jdbc.update("insert into third values (50)");
+		DefaultTable first = createTable("first", "id");
+		first.addRow(new Object[] { 30 });
+		IdentityResetOperation.CLEAN_INSERT.execute(this.connection, new DefaultDataSet(first));
+		this.jdbc.update("insert into first values (default)");
+		assertEquals(51, this.jdbc.queryForObject("select max(id) from first", Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldNotRestartSequenceBelowCurrentValue() throws Exception {
+		this.jdbc.execute("alter sequence shared_seq restart with 100");
+		DefaultTable first = createTable("first", "id");
+		first.addRow(new Object[] { 30 });
+		IdentityResetOperation.CLEAN_INSERT.execute(this.connection, new DefaultDataSet(first));
+		this.jdbc.update("insert into first values (default)");
+		assertEquals(100, this.jdbc.queryForObject("select max(id) from first", Integer.class).intValue());
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link InListDeleteOperation}.
+ */
+public class InListDeleteOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("inlistdelete");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table parent (id int primary key, value varchar(10))");
+		this.jdbc.execute("create table child (parent int references parent(id), line int, "
+				+ "primary key (parent, line))");
+		this.jdbc.execute("create table nokey (id int)");
+		for (int i = 0; i < 300; i++) {
+			this.jdbc.update("insert into parent values (?, ?)", i, "v" + i);
+			this.jdbc.update("insert into child values (?, 1)", i);
+			this.jdbc.update("insert into child values (?, 2)", i);
+		}
+	}
+
+	@Test
+	public void shouldDeleteRowsInReverseTableOrder() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "value");
+		DefaultTable child = createTable("child", "parent", "line");
+		for (int i = 0; i < 250; i++) {
+			parent.addRow(new Object[] { i, ITable.NO_VALUE });
+			child.addRow(new Object[] { i, 1 });
+			child.addRow(new Object[] { i, 2 });
+		}
+		InListDeleteOperation.DELETE.execute(this.connection, new DefaultDataSet(parent, child));
+		assertEquals(50, count("parent"));
+		assertEquals(100, count("child"));
+		assertEquals(250, this.jdbc.queryForObject("select min(id) from parent", Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldDeleteOnlyMatchingCompositeKeys() throws Exception {
+		DefaultTable child = createTable("child", "parent", "line");
+		child.addRow(new Object[] { 1, 2 });
+		child.addRow(new Object[] { 2, 1 });
+		InListDeleteOperation.DELETE.execute(this.connection, new DefaultDataSet(child));
+		assertEquals(598, count("child"));
+		assertEquals(1, this.jdbc.queryForObject("select count(*) from child where parent = 1", Integer.class)
+				.intValue());
+	}
+
+	@Test(expected = NoPrimaryKeyException.class)
+	public void shouldFailWithoutPrimaryKey() throws Exception {
+		DefaultTable table = createTable("nokey", "id");
+		table.addRow(new Object[] { 1 });
+		InListDeleteOperation.DELETE.execute(this.connection, new DefaultDataSet(table));
+	}
+
+	@Test(expected = DatabaseUnitException.class)
+	public void shouldFailWithoutPrimaryKeyValue() throws Exception {
+		DefaultTable table = createTable("child", "parent", "line");
+		table.addRow(new Object[] { 1, ITable.NO_VALUE });
+		InListDeleteOperation.DELETE.execute(this.connection, new DefaultDataSet(table));
+	}
+
+	private int count(String tableName) {
+		return this.jdbc.queryForObject("select count(*) from " + tableName, Integer.class);
+	}
+
+}
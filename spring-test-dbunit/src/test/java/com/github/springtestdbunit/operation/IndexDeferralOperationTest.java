@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link IndexDeferralOperation}.
+ */
+public class IndexDeferralOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("indexdeferral");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	private List<String> indexesDuringLoad;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table parent (id int primary key, name varchar(10) unique, value varchar(10))");
+		this.jdbc.execute("create index parent_value on parent (value desc, id)");
+		this.jdbc.execute("create table child (id int primary key, parent int references parent(id))");
+		this.jdbc.execute("insert into parent values (0, 'p', 'v')");
+	}
+
+	@Test
+	public void shouldDeferIndexesOfLargeTables() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		DefaultTable child = createTable("child", "id", "parent");
+		for (int i = 1; i <= 20; i++) {
+			parent.addRow(new Object[] { i, "n" + i, "v" + i });
+			child.addRow(new Object[] { i, i });
+		}
+		new IndexDeferralOperation(new RecordingOperation(DatabaseOperation.INSERT), 10).execute(this.connection,
+				new DefaultDataSet(parent, child));
+		assertEquals(Arrays.asList(), this.indexesDuringLoad);
+		assertEquals(Arrays.asList("PARENT_VALUE"), getIndexes());
+		assertEquals(21, this.jdbc.queryForObject("select count(*) from parent", Integer.class).intValue());
+		assertEquals(20, this.jdbc.queryForObject("select count(*) from child", Integer.class).intValue());
+	}
+
+	@Test
+	public void shouldNotDeferIndexesOfSmallTables() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		parent.addRow(new Object[] { 1, "n", "v" });
+		new IndexDeferralOperation(new RecordingOperation(DatabaseOperation.INSERT), 10).execute(this.connection,
+				new DefaultDataSet(parent));
+		assertEquals(Arrays.asList("PARENT_VALUE"), this.indexesDuringLoad);
+	}
+
+	@Test
+	public void shouldNotDeferIndexesWithoutColumnNames() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		for (int i = 1; i <= 20; i++) {
+			parent.addRow(new Object[] { i, "n" + i, "v" + i });
+		}
+		// Expression indexes report a null column name, which HSQLDB cannot create
+		Connection jdbcConnection = spy(this.database.getJdbcConnection());
+		DatabaseMetaData metaData = spy(this.database.getJdbcConnection().getMetaData());
+		doReturn(metaData).when(jdbcConnection).getMetaData();
+		doAnswer(new Answer<ResultSet>() {
+
+			public ResultSet answer(InvocationOnMock invocation) throws Throwable {
+				final ResultSet resultSet = spy((ResultSet) invocation.callRealMethod());
+				doAnswer(new Answer<String>() {
+
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String columnName = (String) invocation.callRealMethod();
+						return (resultSet.getInt("ORDINAL_POSITION") == 2 ? null : columnName);
+					}
+
+				}).when(resultSet).getString("COLUMN_NAME");
+				return resultSet;
+			}
+
+		}).when(metaData).getIndexInfo(anyString(), anyString(), anyString(), anyBoolean(), anyBoolean());
+		new IndexDeferralOperation(new RecordingOperation(DatabaseOperation.INSERT), 10)
+				.execute(new DatabaseConnection(jdbcConnection), new DefaultDataSet(parent));
+		assertEquals(Arrays.asList("PARENT_VALUE"), this.indexesDuringLoad);
+	}
+
+	@Test
+	public void shouldRecreateIndexesWhenLoadFails() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		for (int i = 0; i <= 20; i++) {
+			parent.addRow(new Object[] { i, "n" + i, "v" + i });
+		}
+		try {
+			new IndexDeferralOperation(DatabaseOperation.INSERT, 10).execute(this.connection,
+					new DefaultDataSet(parent));
+		} catch (DatabaseUnitException ex) {
+			// Expected duplicate key
+		}
+		assertEquals(Arrays.asList("PARENT_VALUE"), getIndexes());
+	}
+
+	@Test
+	public void shouldNotDeferIndexesInsideTransaction() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		for (int i = 1; i <= 20; i++) {
+			parent.addRow(new Object[] { i, "n" + i, "v" + i });
+		}
+		this.database.getJdbcConnection().setAutoCommit(false);
+		try {
+			new IndexDeferralOperation(new RecordingOperation(DatabaseOperation.INSERT), 10).execute(this.connection,
+					new DefaultDataSet(parent));
+		} finally {
+			this.database.getJdbcConnection().setAutoCommit(true);
+		}
+		assertEquals(Arrays.asList("PARENT_VALUE"), this.indexesDuringLoad);
+	}
+
+	@Test
+	public void shouldKeepLoadFailureWhenIndexesCannotBeRecreated() throws Exception {
+		DefaultTable parent = createTable("parent", "id", "name", "value");
+		for (int i = 1; i <= 20; i++) {
+			parent.addRow(new Object[] { i, "n" + i, "v" + i });
+		}
+		DatabaseOperation failing = new DatabaseOperation() {
+
+			@Override
+			public void execute(IDatabaseConnection connection, IDataSet dataSet)
+					throws DatabaseUnitException, SQLException {
+				IndexDeferralOperationTest.this.jdbc.execute("create index parent_value on parent (name)");
+				throw new DatabaseUnitException("Load failed");
+			}
+
+		};
+		try {
+			new IndexDeferralOperation(failing, 10).execute(this.connection, new DefaultDataSet(parent));
+			fail("Did not throw");
+		} catch (DatabaseUnitException ex) {
+			assertEquals("Load failed", ex.getMessage());
+		}
+	}
+
+	private List<String> getIndexes() {
+		return this.jdbc.queryForList("select distinct index_name from information_schema.system_indexinfo "
+				+ "where table_name = 'PARENT' and non_unique = true", String.class);
+	}
+
+	private class RecordingOperation extends DatabaseOperation {
+
+		private final DatabaseOperation operation;
+
+		public RecordingOperation(DatabaseOperation operation) {
+			this.operation = operation;
+		}
+
+		@Override
+		public void execute(IDatabaseConnection connection, IDataSet dataSet)
+				throws DatabaseUnitException, SQLException {
+			IndexDeferralOperationTest.this.indexesDuringLoad = new ArrayList<String>(getIndexes());
+			this.operation.execute(connection, dataSet);
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link MergeRefreshOperation}.
+ */
+public class MergeRefreshOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("mergerefresh");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key, value varchar(10))");
+		this.jdbc.execute("create table nokey (id int, value varchar(10))");
+		this.jdbc.update("insert into sample values (1, 'one')");
+		this.jdbc.update("insert into sample values (2, 'two')");
+	}
+
+	@Test
+	public void shouldUpdateExistingAndInsertNewRows() throws Exception {
+		DefaultTable table = createTable("sample", "id", "value");
+		table.addRow(new Object[] { 2, "updated" });
+		for (int i = 3; i < 300; i++) {
+			table.addRow(new Object[] { i, "v" + i });
+		}
+		MergeRefreshOperation.REFRESH.execute(this.connection, new DefaultDataSet(table));
+		assertEquals(299, this.jdbc.queryForObject("select count(*) from sample", Integer.class).intValue());
+		assertEquals("one", this.jdbc.queryForObject("select value from sample where id = 1", String.class));
+		assertEquals("updated", this.jdbc.queryForObject("select value from sample where id = 2", String.class));
+		assertEquals("v299", this.jdbc.queryForObject("select value from sample where id = 299", String.class));
+	}
+
+	@Test
+	public void shouldRefreshRowsWithOnlyKeyColumns() throws Exception {
+		DefaultTable table = createTable("sample", "id");
+		table.addRow(new Object[] { 1 });
+		table.addRow(new Object[] { 3 });
+		MergeRefreshOperation.REFRESH.execute(this.connection, new DefaultDataSet(table));
+		assertEquals("one", this.jdbc.queryForObject("select value from sample where id = 1", String.class));
+		assertEquals(3, this.jdbc.queryForObject("select count(*) from sample", Integer.class).intValue());
+	}
+
+	@Test(expected = NoPrimaryKeyException.class)
+	public void shouldFailWithoutPrimaryKey() throws Exception {
+		DefaultTable table = createTable("nokey", "id", "value");
+		table.addRow(new Object[] { 1, "one" });
+		MergeRefreshOperation.REFRESH.execute(this.connection, new DefaultDataSet(table));
+	}
+
+	@Test(expected = DatabaseUnitException.class)
+	public void shouldFailWithoutPrimaryKeyValue() throws Exception {
+		DefaultTable table = createTable("sample", "value");
+		table.addRow(new Object[] { "one" });
+		MergeRefreshOperation.REFRESH.execute(this.connection, new DefaultDataSet(table));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.operation;
+
+import static com.github.springtestdbunit.testutils.TestTables.createTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link MultiRowInsertOperation}.
+ */
+public class MultiRowInsertOperationTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("multirowinsert");
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key, value varchar(10) default 'none')");
+	}
+
+	@Test
+	public void shouldInsertMoreRowsThanFitInOneStatement() throws Exception {
+		DefaultTable table = createTable("sample", "id", "value");
+		for (int i = 0; i < 250; i++) {
+			table.addRow(new Object[] { i, "v" + i });
+		}
+		MultiRowInsertOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+		assertEquals(250, this.jdbc.queryForObject("select count(*) from sample", Integer.class).intValue());
+		assertEquals("v249", this.jdbc.queryForObject("select value from sample where id = 249", String.class));
+	}
+
+	@Test
+	public void shouldInsertNullAndUnspecifiedValues() throws Exception {
+		DefaultTable table = createTable("sample", "id", "value");
+		table.addRow(new Object[] { 1, null });
+		table.addRow(new Object[] { 2, ITable.NO_VALUE });
+		table.addRow(new Object[] { 3, "three" });
+		MultiRowInsertOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+		assertNull(this.jdbc.queryForObject("select value from sample where id = 1", String.class));
+		assertEquals("none", this.jdbc.queryForObject("select value from sample where id = 2", String.class));
+		assertEquals("three", this.jdbc.queryForObject("select value from sample where id = 3", String.class));
+	}
+
+	@Test(expected = NoSuchColumnException.class)
+	public void shouldFailForUnknownColumn() throws Exception {
+		DefaultTable table = createTable("sample", "id", "missing");
+		table.addRow(new Object[] { 1, "x" });
+		MultiRowInsertOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+	}
+
+}
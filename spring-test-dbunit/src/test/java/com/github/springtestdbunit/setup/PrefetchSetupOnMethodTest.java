@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.setup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dbunit.dataset.IDataSet;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.springtestdbunit.TransactionDbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.annotation.ExpectedDatabase;
+import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+import com.github.springtestdbunit.dataset.FlatXmlDataSetLoader;
+import com.github.springtestdbunit.entity.EntityAssert;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("/META-INF/dbunit-context.xml")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class,
+		TransactionDbUnitTestExecutionListener.class })
+@DbUnitConfiguration(dataSetLoader = PrefetchSetupOnMethodTest.ThreadRecordingDataSetLoader.class,
+		prefetchDataSets = true)
+@Transactional
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PrefetchSetupOnMethodTest {
+
+	private static final Map<String, String> loadingThreads = Collections
+			.synchronizedMap(new HashMap<String, String>());
+
+	@Autowired
+	private EntityAssert entityAssert;
+
+	@Test
+	@DatabaseSetup("/META-INF/db/insert.xml")
+	@ExpectedDatabase(value = "/META-INF/db/insert.xml", assertionMode = DatabaseAssertionMode.NON_STRICT)
+	public void test1() throws Exception {
+		this.entityAssert.assertValues("fromDbUnit");
+	}
+
+	@Test
+	@DatabaseSetup("/META-INF/db/insert2.xml")
+	public void test2LoadsSetupInBackground() throws Exception {
+		this.entityAssert.assertValues("fromDbUnit2");
+		assertEquals("dbunit-prefetch-1", loadingThreads.get("/META-INF/db/insert.xml"));
+		assertEquals("dbunit-prefetch-1", loadingThreads.get("/META-INF/db/insert2.xml"));
+	}
+
+	public static class ThreadRecordingDataSetLoader extends FlatXmlDataSetLoader {
+
+		@Override
+		public IDataSet loadDataSet(Class<?> testClass, String location) throws Exception {
+			loadingThreads.put(location, Thread.currentThread().getName());
+			return super.loadDataSet(testClass, location);
+		}
+
+	}
+
+}
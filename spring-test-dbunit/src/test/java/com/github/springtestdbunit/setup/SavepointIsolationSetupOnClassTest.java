@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.setup;
+
+import static org.junit.Assert.assertTrue;
+
+import javax.sql.DataSource;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.springtestdbunit.TransactionDbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+import com.github.springtestdbunit.entity.EntityAssert;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("/META-INF/dbunit-context.xml")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class,
+		TransactionDbUnitTestExecutionListener.class })
+@DbUnitConfiguration(savepointIsolation = true)
+@DatabaseSetup("/META-INF/db/insert.xml")
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SavepointIsolationSetupOnClassTest {
+
+	@Autowired
+	private EntityAssert entityAssert;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	public void test1ChangesDatabase() throws Exception {
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		this.entityAssert.assertValues("fromDbUnit");
+		new JdbcTemplate(this.dataSource).update("insert into SampleEntity (id, value) values (101, 'changed')");
+		this.entityAssert.assertValues("fromDbUnit", "changed");
+	}
+
+	@Test
+	@Transactional
+	public void test2RollsBackToSavepoint() throws Exception {
+		this.entityAssert.assertValues("fromDbUnit");
+		new JdbcTemplate(this.dataSource).update("delete from SampleEntity");
+	}
+
+	@Test
+	@DatabaseSetup(value = "/META-INF/db/insert2.xml", type = DatabaseOperation.INSERT)
+	public void test3AppliesMethodSetup() throws Exception {
+		this.entityAssert.assertValues("fromDbUnit", "fromDbUnit2");
+	}
+
+	@Test
+	public void test4RollsBackMethodSetup() throws Exception {
+		this.entityAssert.assertValues("fromDbUnit");
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.setup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseSetups;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.github.springtestdbunit.annotation.DbUnitConfiguration;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("/META-INF/dbunit-context.xml")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class })
+@DbUnitConfiguration(databaseConnection = "dataSource2", singleTransaction = true)
+@DatabaseTearDown(type = DatabaseOperation.DELETE_ALL, value = "/META-INF/db/multi-insert.xml")
+public class SingleTransactionSetupOnMethodTest {
+
+	@Autowired
+	@Qualifier("dataSource2")
+	private DataSource dataSource;
+
+	@Test
+	@DatabaseSetups({ @DatabaseSetup("/META-INF/db/multi-insert.xml"),
+			@DatabaseSetup(type = DatabaseOperation.INSERT, value = "/META-INF/db/multi-insert2.xml") })
+	public void test() throws Exception {
+		JdbcTemplate jdbc = new JdbcTemplate(this.dataSource);
+		List<String> actual = jdbc.queryForList("select value from second order by id", String.class);
+		assertEquals(Arrays.asList("fromDbUnitSecondConnection", "fromDbUnitSecondConnection2"), actual);
+	}
+
+}
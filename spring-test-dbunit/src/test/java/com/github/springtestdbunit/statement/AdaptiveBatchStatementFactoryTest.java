@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Properties;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.github.springtestdbunit.testutils.HsqldbDatabase;
+
+/**
+ * Tests for {@link AdaptiveBatchStatementFactory}.
+ */
+public class AdaptiveBatchStatementFactoryTest {
+
+	@Rule
+	public HsqldbDatabase database = new HsqldbDatabase("adaptivebatch");
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = this.database.getConnection();
+		this.connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BATCH_SIZE, 20);
+		this.connection.getConfig().setProperty(DatabaseConfig.FEATURE_BATCHED_STATEMENTS, true);
+		this.jdbc = this.database.getJdbcTemplate();
+		this.jdbc.execute("create table sample (id int primary key)");
+	}
+
+	@Test
+	public void shouldGrowBatchSizeWhileTimePerRowImproves() throws Exception {
+		AdaptiveBatchStatementFactory factory = new FixedCostStatementFactory(10, 100);
+		insert(factory, 2000);
+		assertEquals(2000, this.jdbc.queryForObject("select count(*) from sample", Integer.class).intValue());
+		assertEquals(Integer.valueOf(100), factory.getBatchSize("SAMPLE"));
+		assertNull(factory.getBatchSize("other"));
+	}
+
+	@Test
+	public void shouldPersistLearnedBatchSizes() throws Exception {
+		File file = new File(this.temp.getRoot(), "batch.properties");
+		AdaptiveBatchStatementFactory factory = new FixedCostStatementFactory(10, 100);
+		factory.setFile(file);
+		insert(factory, 2000);
+		Properties properties = new Properties();
+		FileInputStream inputStream = new FileInputStream(file);
+		try {
+			properties.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		assertEquals("100", properties.getProperty("SAMPLE"));
+	}
+
+	@Test
+	public void shouldStartWithPersistedBatchSizeWithinBounds() throws Exception {
+		File file = new File(this.temp.getRoot(), "batch.properties");
+		Properties properties = new Properties();
+		properties.setProperty("SAMPLE", "5000");
+		FileOutputStream outputStream = new FileOutputStream(file);
+		try {
+			properties.store(outputStream, null);
+		} finally {
+			outputStream.close();
+		}
+		AdaptiveBatchStatementFactory factory = new AdaptiveBatchStatementFactory(10, 500);
+		factory.setFile(file);
+		insert(factory, 1);
+		assertEquals(Integer.valueOf(500), factory.getBatchSize("sample"));
+	}
+
+	private void insert(AdaptiveBatchStatementFactory factory, int rows) throws Exception {
+		this.connection.getConfig().setProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY, factory);
+		DefaultTable table = new DefaultTable("sample", new Column[] { new Column("id", DataType.INTEGER) });
+		for (int i = 0; i < rows; i++) {
+			table.addRow(new Object[] { i });
+		}
+		DatabaseOperation.INSERT.execute(this.connection, new DefaultDataSet(table));
+	}
+
+	/**
+	 * Factory where every batch takes the same time, so larger batches are always faster per row.
+	 */
+	private static class FixedCostStatementFactory extends AdaptiveBatchStatementFactory {
+
+		private long time;
+
+		public FixedCostStatementFactory(int minBatchSize, int maxBatchSize) {
+			super(minBatchSize, maxBatchSize);
+		}
+
+		@Override
+		protected long nanoTime() {
+			this.time += 1000000;
+			return this.time;
+		}
+
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.statement;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Tests for {@link CachingStatementFactory}.
+ */
+public class CachingStatementFactoryTest {
+
+	private static final String SQL = "insert into sample (id) values (?)";
+
+	private Connection connection;
+
+	private IDatabaseConnection databaseConnection;
+
+	private PreparedStatement statement;
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = mock(Connection.class);
+		DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+		given(this.connection.getMetaData()).willReturn(metaData);
+		given(metaData.supportsBatchUpdates()).willReturn(true);
+		this.statement = mock(PreparedStatement.class);
+		given(this.statement.executeBatch()).willReturn(new int[] { 1 });
+		given(this.connection.prepareStatement(anyString())).willReturn(this.statement);
+		this.databaseConnection = mockDatabaseConnection(this.connection);
+	}
+
+	private IDatabaseConnection mockDatabaseConnection(Connection connection) throws SQLException {
+		IDatabaseConnection databaseConnection = mock(IDatabaseConnection.class);
+		DatabaseConfig config = new DatabaseConfig();
+		config.setProperty(DatabaseConfig.FEATURE_BATCHED_STATEMENTS, Boolean.TRUE);
+		given(databaseConnection.getConfig()).willReturn(config);
+		given(databaseConnection.getConnection()).willReturn(connection);
+		return databaseConnection;
+	}
+
+	@Test
+	public void shouldReuseStatement() throws Exception {
+		CachingStatementFactory factory = new CachingStatementFactory();
+		insert(factory, this.databaseConnection);
+		insert(factory, this.databaseConnection);
+		verify(this.connection, times(1)).prepareStatement(SQL);
+		verify(this.statement, times(2)).executeBatch();
+		verify(this.statement, never()).close();
+	}
+
+	@Test
+	public void shouldReuseStatementFromTargetConnection() throws Exception {
+		CachingStatementFactory factory = new CachingStatementFactory();
+		SingleConnectionDataSource dataSource = new SingleConnectionDataSource(this.connection, true);
+		insert(factory, mockDatabaseConnection(dataSource.getConnection()));
+		insert(factory, mockDatabaseConnection(dataSource.getConnection()));
+		verify(this.connection, times(1)).prepareStatement(SQL);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedStatement() throws Exception {
+		CachingStatementFactory factory = new CachingStatementFactory(1);
+		PreparedStatement other = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("other")).willReturn(other);
+		insert(factory, this.databaseConnection);
+		factory.createPreparedBatchStatement("other", this.databaseConnection).close();
+		insert(factory, this.databaseConnection);
+		verify(this.statement).close();
+		verify(this.connection, times(2)).prepareStatement(SQL);
+	}
+
+	@Test
+	public void shouldCloseFailedStatement() throws Exception {
+		CachingStatementFactory factory = new CachingStatementFactory();
+		given(this.statement.executeBatch()).willThrow(new SQLException("failed"));
+		IPreparedBatchStatement batchStatement = factory.createPreparedBatchStatement(SQL, this.databaseConnection);
+		batchStatement.addValue(1, DataType.INTEGER);
+		batchStatement.addBatch();
+		try {
+			batchStatement.executeBatch();
+			fail();
+		} catch (SQLException ex) {
+		}
+		batchStatement.close();
+		verify(this.statement).close();
+		factory.createPreparedBatchStatement(SQL, this.databaseConnection).close();
+		verify(this.connection, times(2)).prepareStatement(SQL);
+	}
+
+	@Test
+	public void shouldCloseStatementsOfClosedConnections() throws Exception {
+		CachingStatementFactory factory = new CachingStatementFactory();
+		insert(factory, this.databaseConnection);
+		given(this.connection.isClosed()).willReturn(true);
+		DatabaseMetaData metaData = this.connection.getMetaData();
+		PreparedStatement otherStatement = mock(PreparedStatement.class);
+		Connection otherConnection = mock(Connection.class);
+		given(otherConnection.getMetaData()).willReturn(metaData);
+		given(otherConnection.prepareStatement(SQL)).willReturn(otherStatement);
+		factory.createPreparedBatchStatement(SQL, mockDatabaseConnection(otherConnection)).close();
+		verify(this.statement).close();
+	}
+
+	private void insert(CachingStatementFactory factory, IDatabaseConnection connection) throws Exception {
+		IPreparedBatchStatement batchStatement = factory.createPreparedBatchStatement(SQL, connection);
+		batchStatement.addValue(1, DataType.INTEGER);
+		batchStatement.addBatch();
+		assertEquals(1, batchStatement.executeBatch());
+		batchStatement.close();
+	}
+
+}
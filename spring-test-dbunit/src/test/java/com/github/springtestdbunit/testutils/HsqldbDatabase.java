@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.testutils;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.junit.rules.ExternalResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * JUnit rule that opens a connection to an in-memory HSQLDB database before each test and drops everything created
+ * in it afterwards.
+ */
+public class HsqldbDatabase extends ExternalResource {
+
+	private final DataSource dataSource;
+
+	private Connection jdbcConnection;
+
+	private IDatabaseConnection connection;
+
+	private JdbcTemplate jdbc;
+
+	/**
+	 * Create a new {@link HsqldbDatabase} for the named in-memory database.
+	 * @param name the database name
+	 */
+	public HsqldbDatabase(String name) {
+		this(createDataSource(name));
+	}
+
+	/**
+	 * Create a new {@link HsqldbDatabase} that obtains its connection from the given data source.
+	 * @param dataSource the data source, usually wrapping one returned from {@link #createDataSource(String)}
+	 */
+	public HsqldbDatabase(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	protected void before() throws Throwable {
+		this.jdbcConnection = this.dataSource.getConnection();
+		this.connection = new DatabaseConnection(this.jdbcConnection);
+		this.jdbc = new JdbcTemplate(new SingleConnectionDataSource(this.jdbcConnection, true));
+	}
+
+	@Override
+	protected void after() {
+		try {
+			this.jdbc.execute("drop schema public cascade");
+			this.connection.close();
+		} catch (Exception ex) {
+			throw new IllegalStateException("Unable to close database", ex);
+		}
+	}
+
+	public Connection getJdbcConnection() {
+		return this.jdbcConnection;
+	}
+
+	public IDatabaseConnection getConnection() {
+		return this.connection;
+	}
+
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbc;
+	}
+
+	/**
+	 * Create a data source for the named in-memory database.
+	 * @param name the database name
+	 * @return the data source
+	 */
+	public static DataSource createDataSource(String name) {
+		return new DriverManagerDataSource("jdbc:hsqldb:mem:" + name, "sa", "");
+	}
+
+}
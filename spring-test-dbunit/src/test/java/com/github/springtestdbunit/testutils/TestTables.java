@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2016 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.springtestdbunit.testutils;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Factory methods for the in-memory tables used by tests.
+ */
+public abstract class TestTables {
+
+	/**
+	 * Create an empty table with columns of unknown type.
+	 * @param tableName the table name
+	 * @param columnNames the column names
+	 * @return the table
+	 */
+	public static DefaultTable createTable(String tableName, String... columnNames) {
+		Column[] columns = new Column[columnNames.length];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new Column(columnNames[i], DataType.UNKNOWN);
+		}
+		return new DefaultTable(tableName, columns);
+	}
+
+	/**
+	 * Create an empty table where the first column has the given type and the others are {@code VARCHAR}.
+	 * @param tableName the table name
+	 * @param idType the type of the first column
+	 * @param columnNames the column names
+	 * @return the table
+	 */
+	public static DefaultTable createTable(String tableName, DataType idType, String... columnNames) {
+		return new DefaultTable(tableName, createColumns(idType, columnNames));
+	}
+
+	/**
+	 * Create columns where the first has the given type and the others are {@code VARCHAR}.
+	 * @param idType the type of the first column
+	 * @param columnNames the column names
+	 * @return the columns
+	 */
+	public static Column[] createColumns(DataType idType, String... columnNames) {
+		Column[] columns = new Column[columnNames.length];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new Column(columnNames[i], i == 0 ? idType : DataType.VARCHAR);
+		}
+		return columns;
+	}
+
+}